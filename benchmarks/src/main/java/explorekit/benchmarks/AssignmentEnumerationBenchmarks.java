@@ -0,0 +1,68 @@
+package explorekit.benchmarks;
+
+import explorekit.data.ColumnInfo;
+import explorekit.operators.Operator;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The enumeration of the operator assignments (getOperatorAssignments) of all the operators defined in the
+ * properties, both for the complete dataset (as in the first iteration of the search) and for the assignments that
+ * must include a given attribute (as in the following iterations, where only the assignments of the attribute that
+ * was added in the previous iteration are generated). The enumeration depends on the number of columns rather than
+ * on the number of rows, so the number of columns is a parameter of its own. The streamed benchmark consumes the
+ * parallel stream of streamOperatorAssignments without collecting the assignments into a list.
+ */
+public class AssignmentEnumerationBenchmarks extends SyntheticDatasetBenchmark {
+    @Param({"5", "20"})
+    public int numOfColumnsPerType;
+
+    @Param({"1", "2"})
+    public int maxCombinationSize;
+
+    private List<Operator> unaryOperators;
+    private List<Operator> nonUnaryOperators;
+    private List<ColumnInfo> addedAttribute;
+
+    @Override
+    protected void prepare() throws Exception {
+        unaryOperators = OperatorsAssignmentsManager.getUnaryOperatorsList();
+        nonUnaryOperators = OperatorsAssignmentsManager.getNonUnaryOperatorsList();
+        addedAttribute = Collections.singletonList(dataset.getAllColumns(false).get(0));
+    }
+
+    @Override
+    protected int getNumOfNumericColumns() {
+        return numOfColumnsPerType;
+    }
+
+    @Override
+    protected int getNumOfDiscreteColumns() {
+        return numOfColumnsPerType;
+    }
+
+    @Benchmark
+    public List<OperatorAssignment> unaryOperatorAssignments() throws Exception {
+        return OperatorsAssignmentsManager.getOperatorAssignments(dataset, null, unaryOperators, 1);
+    }
+
+    @Benchmark
+    public List<OperatorAssignment> nonUnaryOperatorAssignments() throws Exception {
+        return OperatorsAssignmentsManager.getOperatorAssignments(dataset, null, nonUnaryOperators, maxCombinationSize);
+    }
+
+    @Benchmark
+    public List<OperatorAssignment> nonUnaryOperatorAssignmentsOfAddedAttribute() throws Exception {
+        return OperatorsAssignmentsManager.getOperatorAssignments(dataset, addedAttribute, nonUnaryOperators, maxCombinationSize);
+    }
+
+    @Benchmark
+    public long streamedNonUnaryOperatorAssignments() throws Exception {
+        return OperatorsAssignmentsManager.streamOperatorAssignments(dataset, null, nonUnaryOperators, maxCombinationSize, true).count();
+    }
+}
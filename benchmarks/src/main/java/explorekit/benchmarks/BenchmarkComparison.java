@@ -0,0 +1,100 @@
+package explorekit.benchmarks;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JSON result files of BenchmarkRunner (e.g. of two commits). For every benchmark (and combination of
+ * parameters) that appears in both files, the change of the score is printed. A change is marked as a regression
+ * or an improvement only if it is larger than the threshold (in percents, 5 by default) and than the sum of the
+ * errors of the two scores.
+ *
+ * usage: BenchmarkComparison [baseline json] [current json] [threshold]
+ */
+public class BenchmarkComparison {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: BenchmarkComparison <baseline json> <current json> [threshold]");
+            return;
+        }
+        Map<String, JSONObject> baselineResults = readResults(args[0]);
+        Map<String, JSONObject> currentResults = readResults(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+
+        int numOfRegressions = 0;
+        for (Map.Entry<String, JSONObject> entry : currentResults.entrySet()) {
+            JSONObject baselineResult = baselineResults.get(entry.getKey());
+            if (baselineResult == null) {
+                System.out.println(entry.getKey() + ": new benchmark");
+                continue;
+            }
+            JSONObject baselineMetric = (JSONObject) baselineResult.get("primaryMetric");
+            JSONObject currentMetric = (JSONObject) entry.getValue().get("primaryMetric");
+            double baselineScore = getDouble(baselineMetric, "score");
+            double currentScore = getDouble(currentMetric, "score");
+            double errors = getDouble(baselineMetric, "scoreError") + getDouble(currentMetric, "scoreError");
+            double change = (currentScore - baselineScore) / baselineScore * 100;
+
+            //in the throughput mode higher scores are better, in all the other modes (times) lower scores are better
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode"));
+            String status = "";
+            if (Math.abs(change) > threshold && Math.abs(currentScore - baselineScore) > errors) {
+                boolean improved = (currentScore > baselineScore) == higherIsBetter;
+                status = improved ? "  IMPROVEMENT" : "  REGRESSION";
+                if (!improved) {
+                    numOfRegressions++;
+                }
+            }
+            System.out.println(String.format("%s: %.3f -> %.3f %s (%+.1f%%)%s", entry.getKey(), baselineScore, currentScore,
+                    currentMetric.get("scoreUnit"), change, status));
+        }
+        for (String key : baselineResults.keySet()) {
+            if (!currentResults.containsKey(key)) {
+                System.out.println(key + ": missing from the current results");
+            }
+        }
+        System.out.println("Number of regressions: " + numOfRegressions);
+    }
+
+    /**
+     * Reads the results of a JMH JSON file, by the name of the benchmark and its parameters
+     * @param filePath
+     * @return
+     * @throws Exception
+     */
+    private static Map<String, JSONObject> readResults(String filePath) throws Exception {
+        Map<String, JSONObject> results = new TreeMap<>();
+        try (Reader reader = new FileReader(filePath)) {
+            JSONArray benchmarks = (JSONArray) new JSONParser().parse(reader);
+            for (Object benchmark : benchmarks) {
+                JSONObject result = (JSONObject) benchmark;
+                StringBuilder key = new StringBuilder((String) result.get("benchmark"));
+                JSONObject params = (JSONObject) result.get("params");
+                if (params != null) {
+                    //the parameters are sorted by their names, so the keys of the two files match
+                    for (Object param : new TreeMap<Object, Object>(params).entrySet()) {
+                        Map.Entry paramEntry = (Map.Entry) param;
+                        key.append(" ").append(paramEntry.getKey()).append("=").append(paramEntry.getValue());
+                    }
+                }
+                results.put(key.toString(), result);
+            }
+        }
+        return results;
+    }
+
+    private static double getDouble(JSONObject object, String key) {
+        Object value = object.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        //JMH writes NaN scores (e.g. the error of a single measurement) as strings
+        return 0;
+    }
+}
@@ -0,0 +1,42 @@
+package explorekit.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks and writes the results in JSON format to results/[label].json, so that the results of
+ * different commits can be compared with BenchmarkComparison. The label is usually the (short) hash of the commit.
+ * The arguments that follow the label are passed to JMH, e.g. a regular expression of the benchmarks to run or
+ * parameters such as "-p numOfRows=10000".
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: BenchmarkRunner <label> [JMH options]");
+            return;
+        }
+        String label = args[0];
+        File resultsFile = new File("results", label + ".json");
+        resultsFile.getParentFile().mkdirs();
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length));
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            optionsBuilder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        Options options = optionsBuilder
+                .parent(commandLineOptions)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultsFile.getPath())
+                .build();
+
+        new Runner(options).run();
+        System.out.println("The results were written to " + resultsFile.getPath());
+    }
+}
@@ -0,0 +1,49 @@
+package explorekit.benchmarks;
+
+import explorekit.data.RowIndices;
+import explorekit.operators.BinaryOperators.BinaryOperatorKernels;
+import explorekit.operators.OperatorAssignment;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * The arithmetic of the binary operators on the first pair of numeric columns of the dataset: the four operations
+ * computed one after the other (as four separate assignments do) and in a single pass (as a batch of sibling
+ * assignments does)
+ */
+public class BinaryOperatorKernelsBenchmarks extends SyntheticDatasetBenchmark {
+    private double[] source;
+    private double[] target;
+    private RowIndices rows;
+    private double[] sum;
+    private double[] difference;
+    private double[] product;
+    private double[] quotient;
+
+    @Override
+    protected void prepare() throws Exception {
+        OperatorAssignment assignment = getFirstAssignment(dataset, "AddBinaryOperator");
+        source = BinaryOperatorKernels.getValues(assignment.getSources().get(0).getColumn());
+        target = BinaryOperatorKernels.getValues(assignment.getTragets().get(0).getColumn());
+        rows = dataset.getIndices();
+        int numOfInstances = dataset.getNumOfInstancesPerColumn();
+        sum = new double[numOfInstances];
+        difference = new double[numOfInstances];
+        product = new double[numOfInstances];
+        quotient = new double[numOfInstances];
+    }
+
+    @Benchmark
+    public double[] separatePasses() {
+        BinaryOperatorKernels.add(source, target, rows, sum);
+        BinaryOperatorKernels.subtract(source, target, rows, difference);
+        BinaryOperatorKernels.multiply(source, target, rows, product);
+        BinaryOperatorKernels.divide(source, target, rows, quotient);
+        return quotient;
+    }
+
+    @Benchmark
+    public double[] singlePass() {
+        BinaryOperatorKernels.computeAll(source, target, rows, sum, difference, product, quotient);
+        return quotient;
+    }
+}
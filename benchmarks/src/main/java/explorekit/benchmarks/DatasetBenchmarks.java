@@ -0,0 +1,56 @@
+package explorekit.benchmarks;
+
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import weka.core.Instances;
+
+import java.util.List;
+
+/**
+ * The operations of the Dataset that are performed for every evaluated candidate or in every iteration of the
+ * search: the creation of the Weka Instances (of the dataset itself, and of a replica with an additional candidate
+ * column, which uses the cached values of the dataset), the replication of the dataset and the creation of the
+ * training sub-folds.
+ */
+public class DatasetBenchmarks extends SyntheticDatasetBenchmark {
+    private ColumnInfo candidateColumn;
+
+    @Override
+    protected void prepare() throws Exception {
+        candidateColumn = OperatorsAssignmentsManager.generateColumn(dataset, getFirstAssignment(dataset, "AddBinaryOperator"), false);
+    }
+
+    @Benchmark
+    public Instances generateTrainingSet() throws Exception {
+        return dataset.generateSet(true);
+    }
+
+    @Benchmark
+    public Instances generateTestSet() throws Exception {
+        return dataset.generateSet(false);
+    }
+
+    @Benchmark
+    public Instances generateTrainingSetWithCandidate() throws Exception {
+        Dataset replica = dataset.replicateDataset();
+        replica.addColumn(candidateColumn);
+        return replica.generateSet(true);
+    }
+
+    @Benchmark
+    public Dataset replicateDataset() {
+        return dataset.replicateDataset();
+    }
+
+    @Benchmark
+    public Dataset emptyReplica() {
+        return dataset.emptyReplica();
+    }
+
+    @Benchmark
+    public List<Dataset> generateTrainingSetSubFolds() throws Exception {
+        return dataset.GenerateTrainingSetSubFolds();
+    }
+}
@@ -0,0 +1,73 @@
+package explorekit.benchmarks;
+
+import explorekit.Evaluation.FilterEvaluators.FilterEvaluator;
+import explorekit.Evaluation.FilterEvaluators.InformationGainFilterEvaluator;
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The filter evaluation of a candidate attribute on the training sub-folds, the same way it is performed by the search
+ * (the candidate is added to an empty replica of every sub-fold and scored by the InformationGainFilterEvaluator).
+ * The MLFilterEvaluator is not included, since it requires background models that are created from other datasets.
+ *
+ * produceScore scores a candidate that was not evaluated before, while rescore scores the same candidate again (as
+ * in the iterations of the search), which reuses the discretization of the candidate.
+ */
+public class FilterEvaluatorBenchmarks extends SyntheticDatasetBenchmark {
+    @Param({"AddBinaryOperator", "GroupByThenAvg"})
+    public String candidateOperatorName;
+
+    private List<Dataset> subFoldTrainingDatasets;
+    private OperatorAssignment assignment;
+    private List<ColumnInfo> candidateColumns;
+    private List<ColumnInfo> newCandidateColumns;
+
+    @Override
+    protected void prepare() throws Exception {
+        subFoldTrainingDatasets = dataset.GenerateTrainingSetSubFolds();
+        assignment = getFirstAssignment(dataset, candidateOperatorName);
+        candidateColumns = new ArrayList<>();
+        for (Dataset subFold : subFoldTrainingDatasets) {
+            candidateColumns.add(OperatorsAssignmentsManager.generateColumn(subFold, assignment, false));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyCandidateColumns() {
+        newCandidateColumns = new ArrayList<>();
+        for (ColumnInfo ci : candidateColumns) {
+            newCandidateColumns.add(copyColumnInfo(ci));
+        }
+    }
+
+    @Benchmark
+    public double produceScore() throws Exception {
+        return score(newCandidateColumns);
+    }
+
+    @Benchmark
+    public double rescore() throws Exception {
+        return score(candidateColumns);
+    }
+
+    private double score(List<ColumnInfo> columns) throws Exception {
+        double score = 0;
+        for (int i=0; i<subFoldTrainingDatasets.size(); i++) {
+            FilterEvaluator filterEvaluator = new InformationGainFilterEvaluator();
+            filterEvaluator.initFilterEvaluator(new ArrayList<>(Collections.singletonList(columns.get(i))));
+            score += filterEvaluator.produceScore(subFoldTrainingDatasets.get(i).emptyReplica(), null, subFoldTrainingDatasets.get(i),
+                    assignment, columns.get(i), properties);
+        }
+        return score / subFoldTrainingDatasets.size();
+    }
+}
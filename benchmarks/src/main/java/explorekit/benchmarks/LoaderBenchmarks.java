@@ -0,0 +1,55 @@
+package explorekit.benchmarks;
+
+import explorekit.data.Dataset;
+import explorekit.data.Loader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The loading of a dataset from an ARFF file, both by the memory-mapped parser (readArffFile) and through Weka's
+ * ArffReader (readArff). The file is generated once per trial and deleted at its end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoaderBenchmarks {
+    @Param({"10000", "100000"})
+    public int numOfRows;
+
+    @Param({"10", "1000"})
+    public int cardinality;
+
+    @Param({"1"})
+    public int numOfDateColumns;
+
+    private File arffFile;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws Exception {
+        arffFile = new SyntheticDatasetGenerator(numOfRows, 4, 3, cardinality, numOfDateColumns, 0.5, 0).writeArffFile(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        arffFile.delete();
+    }
+
+    @Benchmark
+    public Dataset readArffFile() throws Exception {
+        return new Loader().readArffFile(arffFile.getAbsolutePath(), 0, null, -1, 0.66);
+    }
+
+    @Benchmark
+    public Dataset readArff() throws Exception {
+        try (Reader reader = new FileReader(arffFile)) {
+            return new Loader().readArff(reader, 0, null, -1, 0.66);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package explorekit.benchmarks;
+
+import explorekit.data.ColumnInfo;
+import explorekit.operators.Operator;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The generation of attributes by every family of operators (unary, binary, GroupByThen and TimeBasedGroupByThen).
+ * Every operator is applied to the first columns of the dataset it is applicable to. The training of the operator
+ * (processTrainingSet) and the generation of the column (generate) are measured separately, and generateColumn
+ * measures the complete path used by the search (including the secondary operator, if there is one).
+ */
+public class OperatorBenchmarks extends SyntheticDatasetBenchmark {
+    @Param({"StandardScoreUnaryOperator", "EqualRangeDiscretizerUnaryOperator", "DayOfWeekUnaryOperator",
+            "HourOfDayUnaryOperator", "IsWeekendUnaryOperator",
+            "AddBinaryOperator", "SubtractBinaryOperator", "MultiplyBinaryOperator", "DivisionBinaryOperator",
+            "GroupByThenAvg", "GroupByThenMax", "GroupByThenMin", "GroupByThenCount", "GroupByThenStdev",
+            "TimeBasedGroupByThenCountAndAvg_180.0", "TimeBasedGroupByThenCountAndCount_180.0",
+            "TimeBasedGroupByThenCountAndMax_180.0", "TimeBasedGroupByThenCountAndMin_180.0",
+            "TimeBasedGroupByThenCountAndStdev_180.0"})
+    public String operatorName;
+
+    private OperatorAssignment assignment;
+    private Operator trainedOperator;
+
+    @Override
+    protected void prepare() throws Exception {
+        assignment = getFirstAssignment(dataset, operatorName);
+        trainedOperator = getOperator(operatorName);
+        trainedOperator.processTrainingSet(dataset, assignment.getSources(), assignment.getTragets());
+    }
+
+    @Benchmark
+    public Operator processTrainingSet() throws Exception {
+        Operator operator = getOperator(operatorName);
+        operator.processTrainingSet(dataset, assignment.getSources(), assignment.getTragets());
+        return operator;
+    }
+
+    @Benchmark
+    public ColumnInfo generate() throws Exception {
+        return trainedOperator.generate(dataset, assignment.getSources(), assignment.getTragets(), false);
+    }
+
+    @Benchmark
+    public ColumnInfo generateColumn() throws Exception {
+        return OperatorsAssignmentsManager.generateColumn(dataset, assignment, false);
+    }
+}
@@ -0,0 +1,127 @@
+package explorekit.benchmarks;
+
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.operators.Operator;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The common state of the benchmarks that run on a synthetic dataset: the parameters of the dataset, the dataset
+ * itself and the properties. The dataset is generated once per trial, after which prepare() is called so that every
+ * benchmark can create the rest of its state.
+ *
+ * The properties are read from the config.properties of the project, with the candidate columns cache disabled
+ * (otherwise the benchmarks of the operators would measure the cache) and without writing generated attributes to
+ * files. The parameters can be overridden from the command line of JMH (e.g. -p numOfRows=1000000).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public abstract class SyntheticDatasetBenchmark {
+    @Param({"10000", "100000"})
+    public int numOfRows;
+
+    @Param({"10", "1000"})
+    public int cardinality;
+
+    @Param({"1"})
+    public int numOfDateColumns;
+
+    @Param({"0.5", "0.05"})
+    public double minorityClassRatio;
+
+    protected Properties properties;
+    protected Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception {
+        properties = loadProperties();
+        //the constructor sets the properties used by the static functions of the manager
+        new OperatorsAssignmentsManager(properties);
+        SyntheticDatasetGenerator generator = new SyntheticDatasetGenerator(numOfRows, getNumOfNumericColumns(), getNumOfDiscreteColumns(),
+                cardinality, numOfDateColumns, minorityClassRatio, 0);
+        dataset = generator.generateDataset();
+        prepare();
+    }
+
+    /**
+     * Creates the state of the benchmark, after the dataset was generated
+     * @throws Exception
+     */
+    protected void prepare() throws Exception {}
+
+    protected int getNumOfNumericColumns() {
+        return 4;
+    }
+
+    protected int getNumOfDiscreteColumns() {
+        return 3;
+    }
+
+    public static Properties loadProperties() throws Exception {
+        Properties properties = new Properties();
+        InputStream input = SyntheticDatasetBenchmark.class.getClassLoader().getResourceAsStream("config.properties");
+        properties.load(input);
+        properties.setProperty("candidateColumnCacheSizeInMB", "0");
+        properties.setProperty("writeAttributesToFile", "false");
+        return properties;
+    }
+
+    /**
+     * Returns a new instance of the operator with the given name (as returned by its getName()), out of the operators
+     * defined in the properties
+     * @param operatorName
+     * @return
+     * @throws Exception
+     */
+    protected static Operator getOperator(String operatorName) throws Exception {
+        List<Operator> operators = new ArrayList<>(OperatorsAssignmentsManager.getUnaryOperatorsList());
+        operators.addAll(OperatorsAssignmentsManager.getNonUnaryOperatorsList());
+        for (Operator operator : operators) {
+            if (operator.getName().equals(operatorName)) {
+                return OperatorsAssignmentsManager.getOperator(operatorName, operator.getType());
+            }
+        }
+        throw new Exception("The operator " + operatorName + " is not defined in the properties");
+    }
+
+    /**
+     * Returns the first assignment of the operator (without a secondary operator) to the columns of the dataset
+     * @param dataset
+     * @param operatorName
+     * @return
+     * @throws Exception
+     */
+    protected static OperatorAssignment getFirstAssignment(Dataset dataset, String operatorName) throws Exception {
+        Operator operator = getOperator(operatorName);
+        List<OperatorAssignment> assignments = OperatorsAssignmentsManager.getOperatorAssignments(dataset, null, Collections.singletonList(operator), 2);
+        for (OperatorAssignment oa : assignments) {
+            if (oa.getSecondaryOperator() == null) {
+                return oa;
+            }
+        }
+        throw new Exception("The operator " + operatorName + " cannot be applied to the columns of the dataset");
+    }
+
+    /**
+     * Returns a copy of the column. Caches that are keyed by the column (e.g. the discretizations of the filter
+     * evaluators) do not contain the copy
+     * @param ci
+     * @return
+     */
+    protected static ColumnInfo copyColumnInfo(ColumnInfo ci) {
+        return new ColumnInfo(ci.getColumn(), ci.getSourceColumns(), ci.getTargetColumns(), null, ci.getName());
+    }
+}
@@ -0,0 +1,151 @@
+package explorekit.benchmarks;
+
+import explorekit.data.Dataset;
+import explorekit.data.Loader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic binary classification datasets for the benchmarks. The dataset has numeric columns, discrete
+ * columns and date columns, followed by the class column. The number of rows, the number of distinct values of the
+ * discrete columns (which determines the number of groups of the GroupByThen operators), the number of date columns
+ * and the share of the minority class are all controlled by the caller. The values depend only on the random seed,
+ * so the same parameters always produce the same dataset.
+ *
+ * The first numeric column and the first discrete column are correlated with the class, so the evaluators and the
+ * classifiers do the same work they do on real data (a dataset of pure noise produces degenerate trees).
+ *
+ * The dataset is written to an ARFF file and loaded with the Loader, exactly like the datasets of the experiments.
+ */
+public class SyntheticDatasetGenerator {
+    public static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    //the dates are spread over 30 days
+    private static final long DATE_RANGE_IN_SECONDS = 30L * 24 * 60 * 60;
+    private static final long FIRST_DATE = 1451606400000L;
+
+    private final int numOfRows;
+    private final int numOfNumericColumns;
+    private final int numOfDiscreteColumns;
+    private final int cardinality;
+    private final int numOfDateColumns;
+    private final double minorityClassRatio;
+    private final int randomSeed;
+
+    /**
+     * @param numOfRows
+     * @param numOfNumericColumns
+     * @param numOfDiscreteColumns
+     * @param cardinality the number of distinct values of every discrete column
+     * @param numOfDateColumns
+     * @param minorityClassRatio the share of the rows that belong to the minority class (0.5 for balanced classes)
+     * @param randomSeed
+     */
+    public SyntheticDatasetGenerator(int numOfRows, int numOfNumericColumns, int numOfDiscreteColumns, int cardinality,
+                                     int numOfDateColumns, double minorityClassRatio, int randomSeed) {
+        this.numOfRows = numOfRows;
+        this.numOfNumericColumns = numOfNumericColumns;
+        this.numOfDiscreteColumns = numOfDiscreteColumns;
+        this.cardinality = cardinality;
+        this.numOfDateColumns = numOfDateColumns;
+        this.minorityClassRatio = minorityClassRatio;
+        this.randomSeed = randomSeed;
+    }
+
+    public String getRelationName() {
+        return "synthetic_" + numOfRows + "_" + numOfNumericColumns + "_" + numOfDiscreteColumns + "_" + cardinality
+                + "_" + numOfDateColumns + "_" + minorityClassRatio;
+    }
+
+    /**
+     * Writes the dataset to an ARFF file in the given directory
+     * @param directory
+     * @return the file
+     * @throws Exception
+     */
+    public File writeArffFile(File directory) throws Exception {
+        File file = File.createTempFile(getRelationName() + "_", ".arff", directory);
+        Random random = new Random(randomSeed);
+        SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write("@relation " + getRelationName() + "\n\n");
+            for (int i=0; i<numOfNumericColumns; i++) {
+                writer.write("@attribute numeric" + i + " numeric\n");
+            }
+            StringBuilder discreteValues = new StringBuilder();
+            for (int i=0; i<cardinality; i++) {
+                if (i > 0) {
+                    discreteValues.append(",");
+                }
+                discreteValues.append("v").append(i);
+            }
+            for (int i=0; i<numOfDiscreteColumns; i++) {
+                writer.write("@attribute discrete" + i + " {" + discreteValues + "}\n");
+            }
+            for (int i=0; i<numOfDateColumns; i++) {
+                writer.write("@attribute date" + i + " date \"" + DATE_FORMAT + "\"\n");
+            }
+            writer.write("@attribute class {0,1}\n\n@data\n");
+
+            StringBuilder line = new StringBuilder();
+            for (int row=0; row<numOfRows; row++) {
+                boolean isMinorityClass = random.nextDouble() < minorityClassRatio;
+                line.setLength(0);
+                for (int i=0; i<numOfNumericColumns; i++) {
+                    double value = random.nextGaussian();
+                    if (i == 0 && isMinorityClass) {
+                        value += 1;
+                    }
+                    line.append(value).append(",");
+                }
+                for (int i=0; i<numOfDiscreteColumns; i++) {
+                    int value = random.nextInt(cardinality);
+                    //the minority class is more common in the lower half of the values of the first column
+                    if (i == 0 && isMinorityClass && random.nextBoolean()) {
+                        value = random.nextInt(Math.max(cardinality / 2, 1));
+                    }
+                    line.append("v").append(value).append(",");
+                }
+                for (int i=0; i<numOfDateColumns; i++) {
+                    long seconds = (long) (random.nextDouble() * DATE_RANGE_IN_SECONDS);
+                    line.append("\"").append(dateFormat.format(new Date(FIRST_DATE + seconds * 1000))).append("\",");
+                }
+                line.append(isMinorityClass ? "1" : "0").append("\n");
+                writer.write(line.toString());
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Generates the dataset and loads it (the class column is the last column)
+     * @return
+     * @throws Exception
+     */
+    public Dataset generateDataset() throws Exception {
+        return generateDataset(null);
+    }
+
+    /**
+     * Generates the dataset and loads it with the given distinct value columns (see Loader.readArff). The numeric
+     * columns come first, followed by the discrete columns and the date columns
+     * @param distinctValIndices the indices of the distinct value columns, or null if there are none
+     * @return
+     * @throws Exception
+     */
+    public Dataset generateDataset(List<Integer> distinctValIndices) throws Exception {
+        File file = writeArffFile(null);
+        try {
+            return new Loader().readArffFile(file.getAbsolutePath(), randomSeed, distinctValIndices, -1, 0.66);
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package explorekit.benchmarks;
+
+import explorekit.Evaluation.ClassificationResults;
+import explorekit.Evaluation.WrapperEvaluation.AucWrapperEvaluator;
+import explorekit.Evaluation.WrapperEvaluation.LogLossWrapperEvaluator;
+import explorekit.Evaluation.WrapperEvaluation.WrapperEvaluator;
+import explorekit.data.Dataset;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.List;
+
+/**
+ * The wrapper evaluation, which trains and evaluates the classifier defined in the properties. produceClassificationResults
+ * measures the classification of the training folds (performed once per iteration of the search) and
+ * evaluateCandidate measures the evaluation of a single candidate attribute (performed for every candidate the
+ * search evaluates).
+ */
+public class WrapperEvaluatorBenchmarks extends SyntheticDatasetBenchmark {
+    @Param({"AucWrapperEvaluator", "LogLossWrapperEvaluator"})
+    public String wrapperName;
+
+    @Param({"AddBinaryOperator"})
+    public String candidateOperatorName;
+
+    private WrapperEvaluator wrapperEvaluator;
+    private List<Dataset> trainingFolds;
+    private List<ClassificationResults> currentClassificationResults;
+    private OperatorAssignment assignment;
+
+    @Override
+    protected void prepare() throws Exception {
+        switch (wrapperName) {
+            case "AucWrapperEvaluator":
+                wrapperEvaluator = new AucWrapperEvaluator();
+                break;
+            case "LogLossWrapperEvaluator":
+                wrapperEvaluator = new LogLossWrapperEvaluator();
+                break;
+            default:
+                throw new Exception("Unidentified wrapper");
+        }
+        trainingFolds = dataset.GenerateTrainingSetSubFolds();
+        currentClassificationResults = wrapperEvaluator.produceClassificationResults(trainingFolds, properties);
+        assignment = getFirstAssignment(dataset, candidateOperatorName);
+    }
+
+    @Benchmark
+    public List<ClassificationResults> produceClassificationResults() throws Exception {
+        return wrapperEvaluator.produceClassificationResults(trainingFolds, properties);
+    }
+
+    @Benchmark
+    public double evaluateCandidate() throws Exception {
+        return OperatorsAssignmentsManager.applyOperatorAndPerformWrapperEvaluation(trainingFolds, assignment, wrapperEvaluator,
+                currentClassificationResults, null);
+    }
+}
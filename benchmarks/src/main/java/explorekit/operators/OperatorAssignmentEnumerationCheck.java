@@ -0,0 +1,411 @@
+package explorekit.operators;
+
+import explorekit.benchmarks.SyntheticDatasetBenchmark;
+import explorekit.benchmarks.SyntheticDatasetGenerator;
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.operators.UnaryOperators.UnaryOperator;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the lazy enumeration of the operator assignments (OperatorAssignmentSpliterator) with the enumeration it
+ * replaced, which first materialized all the combinations of source attributes and then all the assignments
+ * (getReferenceAssignments, kept as it was). Both must return the same assignments in the same order:
+ * - sequentially (getOperatorAssignments) and as a parallel stream (streamOperatorAssignments)
+ * - when the source combinations are split into two ranges at an arbitrary rank: 0, 1, the last rank, the end, the
+ *   first rank of every combination size and its neighbours, and a few random ranks
+ * - when the source combinations are split into consecutive ranges at all of these ranks at once
+ * - when the spliterators are split (recursively) while they are traversed
+ * CombinationGenerator is compared with a plain lexicographic enumeration as well, since the splits rely on its
+ * unranking and on its ranges.
+ *
+ * The datasets are synthetic: a small one (3 attributes, so every combination size down to a single combination is
+ * a boundary), one with generated attributes (which share ancestors with their sources) and one with a distinct value
+ * column. The random ranks depend only on the seed, so every run performs the same checks. The check is in the
+ * package of OperatorAssignmentSpliterator, which is package-private.
+ *
+ * usage: OperatorAssignmentEnumerationCheck [random seed]
+ */
+public class OperatorAssignmentEnumerationCheck {
+    private static final int NUM_OF_RANDOM_RANKS = 5;
+    private static final int MAX_COMBINATION_SIZE = 3;
+
+    private final Random random;
+    private int numOfChecks = 0;
+    private int numOfMismatches = 0;
+
+    public OperatorAssignmentEnumerationCheck(int randomSeed) {
+        this.random = new Random(randomSeed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int randomSeed = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        //the constructor sets the properties used by the static functions of the manager
+        new OperatorsAssignmentsManager(SyntheticDatasetBenchmark.loadProperties());
+
+        OperatorAssignmentEnumerationCheck check = new OperatorAssignmentEnumerationCheck(randomSeed);
+        check.checkCombinationGenerator(10);
+
+        check.checkDataset("small dataset", new SyntheticDatasetGenerator(200, 2, 1, 5, 0, 0.5, randomSeed).generateDataset());
+
+        Dataset datasetWithGeneratedAttributes = new SyntheticDatasetGenerator(200, 3, 3, 5, 1, 0.5, randomSeed).generateDataset();
+        List<OperatorAssignment> assignments = OperatorsAssignmentsManager.getOperatorAssignments(datasetWithGeneratedAttributes, null,
+                OperatorsAssignmentsManager.getNonUnaryOperatorsList(), 2);
+        //the assignments are distinct, so are the names of the generated attributes
+        Collections.shuffle(assignments, check.random);
+        OperatorsAssignmentsManager.GenerateAndAddColumnToDataset(datasetWithGeneratedAttributes, assignments.subList(0, 3));
+        check.checkDataset("dataset with generated attributes", datasetWithGeneratedAttributes);
+
+        //the first discrete column (after the 3 numeric columns) is the distinct value column
+        check.checkDataset("dataset with a distinct value column",
+                new SyntheticDatasetGenerator(200, 3, 3, 5, 1, 0.5, randomSeed).generateDataset(Collections.singletonList(3)));
+
+        System.out.println("Number of checks: " + check.numOfChecks + ", number of mismatches: " + check.numOfMismatches);
+        if (check.numOfMismatches > 0) {
+            throw new Exception("The enumeration of the operator assignments does not match the reference enumeration");
+        }
+    }
+
+    /**
+     * Compares the combinations, the unranking, the ranges and the splits of CombinationGenerator with a plain
+     * lexicographic enumeration, for all the combination sizes of up to maxNumOfElements elements
+     * @param maxNumOfElements
+     */
+    public void checkCombinationGenerator(int maxNumOfElements) {
+        for (int n=1; n<=maxNumOfElements; n++) {
+            for (int r=1; r<=n; r++) {
+                String description = "combinations of " + r + " out of " + n;
+                List<String> expected = getReferenceCombinations(n, r);
+                long total = CombinationGenerator.getNumOfCombinations(n, r);
+                compare(description, expected, getCombinations(new CombinationGenerator(n, r)));
+
+                List<String> unranked = new ArrayList<>();
+                for (long rank=0; rank<total; rank++) {
+                    int[] combination = new int[r];
+                    CombinationGenerator.unrank(n, r, rank, combination);
+                    unranked.add(Arrays.toString(combination));
+                }
+                compare(description + ", unranked", expected, unranked);
+
+                for (long fromRank : getRanks(total, new long[0])) {
+                    for (long toRank : getRanks(total, new long[0])) {
+                        if (fromRank <= toRank) {
+                            compare(description + ", ranks " + fromRank + " to " + toRank, expected.subList((int) fromRank, (int) toRank),
+                                    getCombinations(new CombinationGenerator(n, r, fromRank, toRank)));
+                        }
+                    }
+                }
+
+                List<String> splitCombinations = new ArrayList<>();
+                traverseWithSplits(new CombinationGenerator(n, r), splitCombinations);
+                compare(description + ", split while traversed", expected, splitCombinations);
+            }
+        }
+    }
+
+    /**
+     * Compares the enumerations of the unary and the non-unary operators of the dataset, for every combination size
+     * (up to 3), with and without an attribute that must be included
+     * @param description
+     * @param dataset
+     * @throws Exception
+     */
+    public void checkDataset(String description, Dataset dataset) throws Exception {
+        List<ColumnInfo> attributes = dataset.getAllColumns(false);
+        List<ColumnInfo> lastAttribute = Collections.singletonList(attributes.get(attributes.size() - 1));
+        int maxCombinationSize = Math.min(MAX_COMBINATION_SIZE, attributes.size());
+        for (List<Operator> operators : Arrays.asList(OperatorsAssignmentsManager.getUnaryOperatorsList(), OperatorsAssignmentsManager.getNonUnaryOperatorsList())) {
+            for (int combinationSize=1; combinationSize<=maxCombinationSize; combinationSize++) {
+                for (List<ColumnInfo> attributesToInclude : Arrays.asList(null, lastAttribute)) {
+                    checkEnumeration(description + ", " + operators.get(0).getType() + " operators, combination size " + combinationSize +
+                            (attributesToInclude != null ? ", must include " + lastAttribute.get(0).getName() : ""),
+                            dataset, attributesToInclude, operators, combinationSize);
+                }
+            }
+        }
+    }
+
+    private void checkEnumeration(String description, Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators,
+                                  int maxCombinationSize) throws Exception {
+        List<String> expected = getKeys(getReferenceAssignments(dataset, attributesToInclude, operators, maxCombinationSize));
+        compare(description + ", sequential", expected,
+                getKeys(OperatorsAssignmentsManager.getOperatorAssignments(dataset, attributesToInclude, operators, maxCombinationSize)));
+        compare(description + ", parallel", expected,
+                getKeys(OperatorsAssignmentsManager.streamOperatorAssignments(dataset, attributesToInclude, operators, maxCombinationSize, true)
+                        .collect(Collectors.toList())));
+
+        OperatorAssignmentSpliterator.Enumeration enumeration = new OperatorAssignmentSpliterator.Enumeration(dataset, attributesToInclude, operators, maxCombinationSize);
+        long total = enumeration.getNumOfCombinations();
+        //the first rank of every combination size (the sizes are enumerated from the largest to 1)
+        int numOfAttributes = dataset.getAllColumns(false).size();
+        long[] firstRanks = new long[maxCombinationSize];
+        long rank = 0;
+        for (int i=0; i<maxCombinationSize; i++) {
+            firstRanks[i] = rank;
+            rank += CombinationGenerator.getNumOfCombinations(numOfAttributes, maxCombinationSize - i);
+        }
+        List<Long> ranks = getRanks(total, firstRanks);
+
+        for (long splitRank : ranks) {
+            List<OperatorAssignment> assignments = new ArrayList<>();
+            for (boolean secondaryAssignments : new boolean[] {false, true}) {
+                addAll(new OperatorAssignmentSpliterator(enumeration, secondaryAssignments, 0, splitRank), assignments);
+                addAll(new OperatorAssignmentSpliterator(enumeration, secondaryAssignments, splitRank, total), assignments);
+            }
+            compare(description + ", split at rank " + splitRank + " of " + total, expected, getKeys(assignments));
+        }
+
+        List<OperatorAssignment> assignments = new ArrayList<>();
+        for (boolean secondaryAssignments : new boolean[] {false, true}) {
+            long fromRank = 0;
+            for (long splitRank : ranks) {
+                addAll(new OperatorAssignmentSpliterator(enumeration, secondaryAssignments, fromRank, splitRank), assignments);
+                fromRank = splitRank;
+            }
+        }
+        compare(description + ", split at all the ranks " + ranks, expected, getKeys(assignments));
+
+        assignments = new ArrayList<>();
+        for (boolean secondaryAssignments : new boolean[] {false, true}) {
+            traverseWithSplits(new OperatorAssignmentSpliterator(enumeration, secondaryAssignments, 0, total), assignments);
+        }
+        compare(description + ", split while traversed", expected, getKeys(assignments));
+    }
+
+    /**
+     * The ranks at which the ranges are split, in ascending order: the first, second, last and end ranks, the given
+     * boundaries and their neighbours, and a few random ranks
+     * @param total
+     * @param boundaries
+     * @return
+     */
+    private List<Long> getRanks(long total, long[] boundaries) {
+        TreeSet<Long> ranks = new TreeSet<>(Arrays.asList(0L, 1L, total - 1, total));
+        for (long boundary : boundaries) {
+            ranks.addAll(Arrays.asList(boundary - 1, boundary, boundary + 1));
+        }
+        for (int i=0; i<NUM_OF_RANDOM_RANKS; i++) {
+            ranks.add((long) (random.nextDouble() * total));
+        }
+        return new ArrayList<>(ranks.subSet(0L, true, total, true));
+    }
+
+    /**
+     * Traverses a few elements, splits the spliterator and traverses the prefix before the rest (which is split again)
+     * @param spliterator
+     * @param elements
+     * @param <T>
+     */
+    private <T> void traverseWithSplits(Spliterator<T> spliterator, List<T> elements) {
+        int numOfElementsToTraverse = random.nextInt(3);
+        for (int i=0; i<numOfElementsToTraverse && spliterator.tryAdvance(elements::add); i++) {}
+        Spliterator<T> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            spliterator.forEachRemaining(elements::add);
+            return;
+        }
+        traverseWithSplits(prefix, elements);
+        traverseWithSplits(spliterator, elements);
+    }
+
+    private void traverseWithSplits(CombinationGenerator generator, List<String> combinations) {
+        int numOfCombinationsToTraverse = random.nextInt(3);
+        for (int i=0; i<numOfCombinationsToTraverse && generator.hasMore(); i++) {
+            combinations.add(Arrays.toString(generator.getNext()));
+        }
+        CombinationGenerator prefix = generator.trySplit();
+        if (prefix == null) {
+            combinations.addAll(getCombinations(generator));
+            return;
+        }
+        traverseWithSplits(prefix, combinations);
+        traverseWithSplits(generator, combinations);
+    }
+
+    private static void addAll(OperatorAssignmentSpliterator spliterator, List<OperatorAssignment> assignments) {
+        spliterator.forEachRemaining(assignments::add);
+    }
+
+    private static List<String> getCombinations(CombinationGenerator generator) {
+        List<String> combinations = new ArrayList<>();
+        while (generator.hasMore()) {
+            combinations.add(Arrays.toString(generator.getNext()));
+        }
+        return combinations;
+    }
+
+    private void compare(String description, List<String> expected, List<String> actual) {
+        numOfChecks++;
+        if (expected.equals(actual)) {
+            return;
+        }
+        numOfMismatches++;
+        int i = 0;
+        while (i < expected.size() && i < actual.size() && expected.get(i).equals(actual.get(i))) {
+            i++;
+        }
+        System.out.println("MISMATCH: " + description + ": " + expected.size() + " expected, " + actual.size() + " enumerated, first difference at " + i +
+                ": " + (i < expected.size() ? expected.get(i) : "none") + " expected, " + (i < actual.size() ? actual.get(i) : "none") + " enumerated");
+    }
+
+    /**
+     * The columns are identified by their names, which are unique in the synthetic datasets
+     * @param assignments
+     * @return
+     */
+    private static List<String> getKeys(List<OperatorAssignment> assignments) {
+        List<String> keys = new ArrayList<>(assignments.size());
+        for (OperatorAssignment oa : assignments) {
+            keys.add(oa.getName());
+        }
+        return keys;
+    }
+
+    /**
+     * All the combinations of r out of n elements, in lexicographic order
+     * @param n
+     * @param r
+     * @return
+     */
+    private static List<String> getReferenceCombinations(int n, int r) {
+        List<String> combinations = new ArrayList<>();
+        int[] combination = new int[r];
+        for (int i=0; i<r; i++) {
+            combination[i] = i;
+        }
+        while (true) {
+            combinations.add(Arrays.toString(combination));
+            int i = r - 1;
+            while (i >= 0 && combination[i] == n - r + i) {
+                i--;
+            }
+            if (i < 0) {
+                return combinations;
+            }
+            combination[i]++;
+            for (int j=i+1; j<r; j++) {
+                combination[j] = combination[j-1] + 1;
+            }
+        }
+    }
+
+    /**
+     * The enumeration that getOperatorAssignments used before the assignments were enumerated lazily
+     * @param dataset
+     * @param attributesToInclude
+     * @param operators
+     * @param maxCombinationSize
+     * @return
+     * @throws Exception
+     */
+    private static List<OperatorAssignment> getReferenceAssignments(Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators,
+                                                                    int maxCombinationSize) throws Exception {
+        boolean areNonUniaryOperatorsBeingUsed = false;
+        if (operators.size() > 0 && !operators.get(0).getType().equals(Operator.operatorType.Unary)) {
+            areNonUniaryOperatorsBeingUsed = true;
+        }
+
+        if (attributesToInclude == null) {attributesToInclude = new ArrayList<>();}
+        List<OperatorAssignment> operatorsAssignments = new ArrayList<>();
+        List<ColumnInfo> attributes = dataset.getAllColumns(false);
+        for (int i=maxCombinationSize; i>0; i--) {
+            //for each of the candidate source attributes combinations
+            for (String combination : getReferenceCombinations(attributes.size(), i)) {
+                List<ColumnInfo> sources = new ArrayList<>();
+                for (String index : combination.substring(1, combination.length() - 1).split(", ")) {
+                    sources.add(attributes.get(Integer.parseInt(index)));
+                }
+                //if a distinct dolumn(s) exists, we need to make sure that at least one column (or one of its ancestors) satisfies the constraint
+                if (dataset.getDistinctValueColumns() != null && dataset.getDistinctValueColumns().size() > 0) {
+                    if (areNonUniaryOperatorsBeingUsed && !isDistinctValueCompliantAttributeExists(dataset.getDistinctValueCompliantColumns(), sources)) {
+                        continue;
+                    }
+                }
+
+                //first check if any of the required atts (if there are any) are included
+                if (attributesToInclude.size() > 0) {
+                    ArrayList<ColumnInfo> tempList = new ArrayList<>(sources);
+                    tempList.retainAll(attributesToInclude);
+                    if (tempList.size() == 0) { continue; }
+                }
+
+                //Now we check all the operators on the source attributes alone.
+                for (Operator operator: operators) {
+                    if (operator.isApplicable(dataset, sources, new ArrayList<ColumnInfo>())) {
+                        OperatorAssignment os = new OperatorAssignment(sources, null, OperatorsAssignmentsManager.getOperator(operator), null);
+                        operatorsAssignments.add(os);
+                    }
+
+                    //now we pair the source attributes with a target attribute and check again
+                    for (ColumnInfo targetColumn : attributes) {
+                        if (overlapExistsBetweenSourceAndTargetAttributes(sources,targetColumn)) { continue; }
+                        List<ColumnInfo> tempList = new ArrayList<>();
+                        tempList.add(targetColumn);
+                        if (operator.isApplicable(dataset, sources, tempList)) {
+                            OperatorAssignment os = new OperatorAssignment(sources, tempList, OperatorsAssignmentsManager.getOperator(operator), null);
+                            operatorsAssignments.add(os);
+                        }
+                    }
+                }
+            }
+        }
+
+        //Finally, we go over all the operator assignments. For every assignment that is not performed on
+        //an unary operator, we check if any of the unary operators can be applied on it.
+        List<OperatorAssignment> additionalAssignments = new ArrayList<>();
+        for (OperatorAssignment os : operatorsAssignments) {
+            if (os.getOperator().getType() != Operator.operatorType.Unary) {
+                for (Operator operator : OperatorsAssignmentsManager.getUnaryOperatorsList()) {
+                    UnaryOperator tempOperator = (UnaryOperator)operator;
+                    if (tempOperator.requiredInputType().equals(os.getOperator().getOutputType())) {
+                        additionalAssignments.add(new OperatorAssignment(os.getSources(), os.getTragets(), os.getOperator(), tempOperator));
+                    }
+                }
+            }
+        }
+        operatorsAssignments.addAll(additionalAssignments);
+        return operatorsAssignments;
+    }
+
+    private static boolean isDistinctValueCompliantAttributeExists(List<ColumnInfo> distinctValueCompliantColumns, List<ColumnInfo> columns) {
+        for (ColumnInfo ci : columns) {
+            if (distinctValueCompliantColumns.contains(ci) ||
+                    ((ci.getSourceColumns() != null) && isDistinctValueCompliantAttributeExists(distinctValueCompliantColumns, ci.getSourceColumns()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlapExistsBetweenSourceAndTargetAttributes(List<ColumnInfo> sourceAtts, ColumnInfo targetAtt) {
+        //the simplest case - the same attribute appears both in the source and the target
+        if (sourceAtts.contains(targetAtt)) {
+            return true;
+        }
+
+        //the source atts and the target att must not share columns (including after the application of an operator)
+        List<ColumnInfo> sourceAttsAndAncestors = new ArrayList<>();
+        for (ColumnInfo sourceAtt: sourceAtts) {
+            sourceAttsAndAncestors.add(sourceAtt);
+            addAncestors(sourceAtt, sourceAttsAndAncestors);
+        }
+        List<ColumnInfo> targetAttsAndAncestors = new ArrayList<>();
+        targetAttsAndAncestors.add(targetAtt);
+        addAncestors(targetAtt, targetAttsAndAncestors);
+        return !Collections.disjoint(sourceAttsAndAncestors, targetAttsAndAncestors);
+    }
+
+    private static void addAncestors(ColumnInfo ci, List<ColumnInfo> ancestors) {
+        for (List<ColumnInfo> columns : Arrays.asList(ci.getSourceColumns(), ci.getTargetColumns())) {
+            if (columns != null) {
+                for (ColumnInfo ancestor : columns) {
+                    if (!ancestors.contains(ancestor)) {
+                        ancestors.add(ancestor);
+                    }
+                }
+            }
+        }
+    }
+}
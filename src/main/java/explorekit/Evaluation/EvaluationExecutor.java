@@ -0,0 +1,282 @@
+package explorekit.Evaluation;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the evaluation of candidate attributes on dedicated thread pools instead of the common ForkJoinPool (which is
+ * shared with everything else that runs in the JVM, including other searches and Weka). Every phase of the search has
+ * its own pool, so a phase never waits for threads that are busy with another phase. The pools belong to a search:
+ * they are identified by the Properties object of the search, created from its properties on their first use and
+ * shut down when the search ends (see shutdown), so searches with different settings can run in the same JVM.
+ *
+ * The queue of every pool is bounded. When it is full, the thread that submits the tasks waits until a task finishes
+ * (instead of queueing all the candidates at once). The submitting thread never runs a task itself, so a phase never
+ * runs more tasks at once than its number of threads.
+ *
+ * The number of threads of a phase is read from its own property (filterEvaluationThreads, wrapperEvaluationThreads
+ * or mlAttributesGenerationThreads), or from numOfThreads if it is not defined. The capacity of the queue is read from
+ * evaluationQueueCapacity (the default is four tasks per thread).
+ *
+ * A task must not submit tasks to its own phase or wait for them, since all the threads of the phase may be waiting.
+ */
+public class EvaluationExecutor {
+    public enum Phase {
+        FilterEvaluation("filterEvaluationThreads"),
+        WrapperEvaluation("wrapperEvaluationThreads"),
+        MLAttributesGeneration("mlAttributesGenerationThreads");
+
+        private final String numOfThreadsProperty;
+
+        Phase(String numOfThreadsProperty) {
+            this.numOfThreadsProperty = numOfThreadsProperty;
+        }
+    }
+
+    //the executors of every search, by the Properties object of the search (compared by identity, since searches may
+    //have equal properties)
+    private static final Map<Properties, Map<Phase, EvaluationExecutor>> executors = new IdentityHashMap<>();
+
+    private final ThreadPoolExecutor pool;
+    //a permit for every task that is running or queued, acquired before the task is submitted
+    private final Semaphore permits;
+
+    private EvaluationExecutor(Phase phase, int numOfThreads, int queueCapacity) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "explorekit-" + phase.name() + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        //the permits bound the queue (a task releases its permit before its thread takes the next task from the queue,
+        //so the queue itself can't be bounded). A task is only rejected once the pool is shut down (rather than
+        //silently discarded, which would leave forEach waiting for it)
+        permits = new Semaphore(numOfThreads + queueCapacity);
+        pool = new ThreadPoolExecutor(numOfThreads, numOfThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the executor of the phase for the search with the given properties, creating it from the properties if
+     * this is its first use
+     * @param phase
+     * @param properties the properties of the search
+     * @return
+     */
+    public static EvaluationExecutor getExecutor(Phase phase, Properties properties) {
+        synchronized (executors) {
+            Map<Phase, EvaluationExecutor> searchExecutors = executors.computeIfAbsent(properties, p -> new EnumMap<>(Phase.class));
+            EvaluationExecutor executor = searchExecutors.get(phase);
+            if (executor == null) {
+                int numOfThreads = Integer.parseInt(properties.getProperty(phase.numOfThreadsProperty, properties.getProperty("numOfThreads")));
+                numOfThreads = Math.max(numOfThreads, 1);
+                int queueCapacity = Integer.parseInt(properties.getProperty("evaluationQueueCapacity", Integer.toString(numOfThreads * 4)));
+                executor = new EvaluationExecutor(phase, numOfThreads, Math.max(queueCapacity, 1));
+                searchExecutors.put(phase, executor);
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Shuts down the executors of the search with the given properties. The tasks that were already submitted are
+     * completed, and the next call to getExecutor with these properties creates new executors
+     * @param properties the properties of the search
+     */
+    public static void shutdown(Properties properties) {
+        Map<Phase, EvaluationExecutor> searchExecutors;
+        synchronized (executors) {
+            searchExecutors = executors.remove(properties);
+        }
+        if (searchExecutors != null) {
+            for (EvaluationExecutor executor : searchExecutors.values()) {
+                executor.pool.shutdown();
+            }
+        }
+    }
+
+    public int getNumOfThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Runs the task on every one of the items and waits for all of them to finish. Once the job is cancelled (by one
+     * of the tasks or by another thread), the tasks that did not start yet are skipped. Exceptions thrown by the tasks
+     * are counted as failures and do not stop the other tasks
+     * @param items
+     * @param task
+     * @return the job, which contains the number of completed, skipped and failed tasks
+     * @throws InterruptedException
+     */
+    public <T> Job forEach(Collection<T> items, ItemTask<T> task) throws InterruptedException {
+        return forEach(items, task, new Job());
+    }
+
+    /**
+     * Identical to forEach, but the tasks are added to the given job. This allows a single job to span calls to
+     * several executors, so that cancelling it stops all of them. A task that is stopped because the job was
+     * cancelled while it was running should throw a CancellationException, and is counted as skipped
+     * @param items
+     * @param task
+     * @param job
+     * @return the job
+     * @throws InterruptedException
+     */
+    public <T> Job forEach(Collection<T> items, ItemTask<T> task, Job job) throws InterruptedException {
+        waitFor(submit(items, task, job));
+        return job;
+    }
+
+    /**
+     * Starts a long-running task for every one of the items (e.g. a worker that takes its work from a queue) and
+     * returns without waiting for them. The tasks are added to the given job, as in forEach. Since a task that does not
+     * get a thread would wait in the queue until another one ends, there can be at most one item per thread of the pool
+     * @param items
+     * @param task
+     * @param job
+     * @return the started tasks, which need to be waited for with await()
+     * @throws InterruptedException
+     */
+    public <T> StartedTasks start(Collection<T> items, ItemTask<T> task, Job job) throws InterruptedException {
+        if (items.size() > getNumOfThreads()) {
+            throw new IllegalArgumentException("cannot start " + items.size() + " tasks on " + getNumOfThreads() + " threads");
+        }
+        return new StartedTasks(submit(items, task, job), job);
+    }
+
+    /**
+     * Submits a task for every one of the items, waiting for a permit before every submission
+     */
+    private <T> List<Future<?>> submit(Collection<T> items, ItemTask<T> task, Job job) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (job.isCancelled()) {
+                job.numOfSkippedTasks.incrementAndGet();
+                continue;
+            }
+            permits.acquire();
+            try {
+                futures.add(pool.submit(() -> {
+                    try {
+                        runTask(item, task, job);
+                    }
+                    finally {
+                        permits.release();
+                    }
+                }));
+            }
+            catch (RejectedExecutionException ex) {
+                permits.release();
+                throw ex;
+            }
+        }
+        return futures;
+    }
+
+    private static <T> void runTask(T item, ItemTask<T> task, Job job) {
+        if (job.isCancelled()) {
+            job.numOfSkippedTasks.incrementAndGet();
+            return;
+        }
+        try {
+            task.process(item, job);
+            job.numOfCompletedTasks.incrementAndGet();
+        }
+        catch (CancellationException ex) {
+            job.numOfSkippedTasks.incrementAndGet();
+        }
+        catch (Exception ex) {
+            job.numOfFailedTasks.incrementAndGet();
+            job.failure.compareAndSet(null, ex);
+            System.out.println("error in evaluation task: " + ex.getMessage());
+        }
+    }
+
+    private static void waitFor(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException ex) {
+                //the exceptions of the tasks are handled within the tasks, so this can only be an Error
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * Tasks that were started by start() and are still running
+     */
+    public static class StartedTasks {
+        private final List<Future<?>> futures;
+        private final Job job;
+
+        private StartedTasks(List<Future<?>> futures, Job job) {
+            this.futures = futures;
+            this.job = job;
+        }
+
+        /**
+         * Waits for all the tasks to finish
+         * @return the job of the tasks
+         * @throws InterruptedException
+         */
+        public Job await() throws InterruptedException {
+            waitFor(futures);
+            return job;
+        }
+    }
+
+    public interface ItemTask<T> {
+        void process(T item, Job job) throws Exception;
+    }
+
+    /**
+     * The state of a single call to forEach. All the counters can be read while the tasks are running
+     */
+    public static class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicInteger numOfCompletedTasks = new AtomicInteger();
+        private final AtomicInteger numOfFailedTasks = new AtomicInteger();
+        private final AtomicInteger numOfSkippedTasks = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        public Job() {
+        }
+
+        /**
+         * Stops the job: tasks that did not start yet will not run. Tasks that are already running are not interrupted
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public int getNumOfCompletedTasks() {
+            return numOfCompletedTasks.get();
+        }
+
+        public int getNumOfFailedTasks() {
+            return numOfFailedTasks.get();
+        }
+
+        public int getNumOfSkippedTasks() {
+            return numOfSkippedTasks.get();
+        }
+
+        /**
+         * Returns the exception of the first task that failed, or null if no task failed
+         * @return
+         */
+        public Exception getFailure() {
+            return failure.get();
+        }
+    }
+}
@@ -5,15 +5,14 @@ import explorekit.Evaluation.Evaluator;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
+import explorekit.data.RowIndices;
 import explorekit.operators.OperatorAssignment;
 import explorekit.operators.OperatorsAssignmentsManager;
 import explorekit.operators.UnaryOperators.EqualRangeDiscretizerUnaryOperator;
 
 import java.io.File;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
 
 /**
  * Created by giladkatz on 20/02/2016.
@@ -64,15 +63,62 @@ public abstract class FilterEvaluator implements Evaluator {
         //Curretnly only needed for the ML-Based filter evaluatur
     }
 
+    /**
+     * Returns true if the evaluator saved what it needs in order to recalculate the score of the candidate attribute
+     * on all the datasets without generating the attribute again (see recalculateScore)
+     * @param oa
+     * @param datasets
+     * @return
+     */
+    public boolean canRecalculateScore(OperatorAssignment oa, List<Dataset> datasets) {
+        return false;
+    }
+
+    /**
+     * Recalculates the score of a candidate attribute that was already scored on the dataset (by produceScore) in a
+     * previous search iteration. Only evaluators for which canRecalculateScore returns true support this
+     * @param dataset the dataset that was provided as the complete dataset to produceScore
+     * @param currentScore
+     * @param oa
+     * @param properties
+     * @return
+     * @throws Exception
+     */
+    public double recalculateScore(Dataset dataset, ClassificationResults currentScore, OperatorAssignment oa, Properties properties) throws Exception {
+        throw new Exception("The evaluator cannot recalculate the score without generating the attribute");
+    }
+
+    /**
+     * Replaces the non-discrete analyzed columns with their discretized versions. The discretization of a column
+     * depends only on the column, the number of bins and the rows of the dataset, so it is computed once and reused
+     * by all the evaluations of the column on the same rows (e.g. the same fold). The discretizations are kept by the
+     * analyzed ColumnInfo (see ColumnInfo.getDiscretizedColumn), so concurrent evaluations of different candidates
+     * don't share a lock
+     * @param dataset
+     * @param bins
+     * @throws Exception
+     */
     public void discretizeColumns(Dataset dataset, double[] bins) throws Exception {
         for (int i=0; i<analyzedColumns.size(); i++) {
             ColumnInfo ci = analyzedColumns.get(i);
             if (!ci.getColumn().getType().equals(Column.columnType.Discrete)) {
-                EqualRangeDiscretizerUnaryOperator  discretizer = new EqualRangeDiscretizerUnaryOperator(bins);
                 List<ColumnInfo> columns = new ArrayList<>();
                 columns.add(ci);
+                DiscretizationKey key = new DiscretizationKey(dataset, bins.length);
+                Column discretizedColumn = ci.getDiscretizedColumn(key);
+                if (discretizedColumn != null) {
+                    analyzedColumns.set(i, new ColumnInfo(discretizedColumn, columns, null, EqualRangeDiscretizerUnaryOperator.class,
+                            "EqualRangeDiscretizer(" + ci.getName() + ")"));
+                    continue;
+                }
+
+                EqualRangeDiscretizerUnaryOperator  discretizer = new EqualRangeDiscretizerUnaryOperator(bins);
                 discretizer.processTrainingSet(dataset, columns, null);
-                analyzedColumns.set(i, discretizer.generate(dataset, columns, null, false));
+                ColumnInfo discretizedColumnInfo = discretizer.generate(dataset, columns, null, false);
+                analyzedColumns.set(i, discretizedColumnInfo);
+                if (discretizedColumnInfo != null) {
+                    ci.putDiscretizedColumn(key, discretizedColumnInfo.getColumn());
+                }
             }
         }
     }
@@ -82,4 +128,34 @@ public abstract class FilterEvaluator implements Evaluator {
     public abstract FilterEvaluator getCopy();
 
     public abstract boolean needToRecalculateScoreAtEachIteration();
+
+    /**
+     * The rows used for the discretization (the training rows determine the bins and all the rows are discretized)
+     * and the number of bins. The rows are compared by their content, since sub-fold datasets are created separately
+     */
+    private static class DiscretizationKey {
+        private final RowIndices trainingIndices;
+        private final RowIndices indices;
+        private final int numOfBins;
+
+        DiscretizationKey(Dataset dataset, int numOfBins) {
+            this.trainingIndices = dataset.getIndicesOfTrainingInstances();
+            this.indices = dataset.getIndices();
+            this.numOfBins = numOfBins;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DiscretizationKey)) {
+                return false;
+            }
+            DiscretizationKey other = (DiscretizationKey) o;
+            return numOfBins == other.numOfBins && trainingIndices.equals(other.trainingIndices) && indices.equals(other.indices);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * trainingIndices.hashCode() + indices.hashCode()) + numOfBins;
+        }
+    }
 }
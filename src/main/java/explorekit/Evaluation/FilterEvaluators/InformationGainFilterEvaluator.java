@@ -1,24 +1,16 @@
 package explorekit.Evaluation.FilterEvaluators;
 
 import explorekit.Evaluation.ClassificationResults;
-import explorekit.data.ColumnInfo;
-import explorekit.data.Dataset;
-import explorekit.data.DiscreteColumn;
+import explorekit.data.*;
 import explorekit.operators.OperatorAssignment;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Properties;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * Created by giladkatz on 20/02/2016.
  */
 public class InformationGainFilterEvaluator extends FilterEvaluator {
 
-    protected HashMap<List<Integer>, int[]> valuesPerKey = new HashMap<>();
-
     public InformationGainFilterEvaluator() {}
 
     public evaluatorScoringMethod getEvaluatorScoreingMethod() {
@@ -27,19 +19,8 @@ public class InformationGainFilterEvaluator extends FilterEvaluator {
 
     public double produceScoreWithDistinctValues(Dataset dataset, ClassificationResults currentScore, OperatorAssignment oa, ColumnInfo candidateAttribute) throws Exception {
         try {
-            valuesPerKey = new HashMap<>();
-            ColumnInfo targetColumn = dataset.getTargetClassColumn();
-
-            for (int i : dataset.getTestFoldsDistinctValRepresentatives()) {
-                final int j = i;
-                List<Integer> sourceValues = analyzedColumns.stream().map(c -> (Integer) c.getColumn().getValue(j)).collect(Collectors.toList());
-                int targetValue = (int) targetColumn.getColumn().getValue(i);
-                if (!valuesPerKey.containsKey(sourceValues)) {
-                    valuesPerKey.put(sourceValues, new int[((DiscreteColumn) dataset.getTargetClassColumn().getColumn()).getNumOfPossibleValues()]);
-                }
-                valuesPerKey.get(sourceValues)[targetValue] += 1;
-            }
-            return calculateIG(dataset);
+            RowIndices representatives = dataset.getTestFoldsDistinctValRepresentatives();
+            return calculateIG(dataset, representatives, representatives.size());
         }
         catch (Exception ex) {
             throw new Exception("failure to evaluate");
@@ -59,31 +40,45 @@ public class InformationGainFilterEvaluator extends FilterEvaluator {
             return produceScoreWithDistinctValues(analyzedDatasets, currentScore, oa, candidateAttribute);
         }
 
-        valuesPerKey = new HashMap<>();
-        ColumnInfo targetColumn = analyzedDatasets.getTargetClassColumn();
-
         //In filter evaluators we evaluate the test set, the same as we do in wrappers. The only difference here is that we
         //train and test on the test set directly, while in the wrappers we train a model on the training set and then apply on the test set
-        for (int i =0; i<analyzedDatasets.getNumOfTestDatasetRows(); i++) {
-            final int j = analyzedDatasets.getIndicesOfTestInstances().get(i);
-            List<Integer> sourceValues = analyzedColumns.stream().map(c -> (Integer) c.getColumn().getValue(j)).collect(Collectors.toList());
-            int targetValue = (int)targetColumn.getColumn().getValue(j);
-            if (!valuesPerKey.containsKey(sourceValues)) {
-                valuesPerKey.put(sourceValues, new int[((DiscreteColumn)analyzedDatasets.getTargetClassColumn().getColumn()).getNumOfPossibleValues()]);
-            }
-            valuesPerKey.get(sourceValues)[targetValue] += 1;
-        }
-        return calculateIG(analyzedDatasets);
+        return calculateIG(analyzedDatasets, analyzedDatasets.getIndicesOfTestInstances(), analyzedDatasets.getNumOfTestDatasetRows());
     }
 
-    private double calculateIG(Dataset dataset) {
+    /**
+     * Calculates the IG of the analyzed columns on the given rows. The combination of values of the analyzed columns
+     * in each row is encoded into a group id, and the class counts of every group are accumulated in a flat
+     * (group x class) contingency table
+     * @param dataset
+     * @param rows
+     * @param numOfRows
+     * @return
+     */
+    private double calculateIG(Dataset dataset, RowIndices rows, int numOfRows) {
+        Column targetColumn = dataset.getTargetClassColumn().getColumn();
+        int numOfClasses = ((DiscreteColumn) targetColumn).getNumOfPossibleValues();
+        GroupKeyEncoder encoder = new GroupKeyEncoder(analyzedColumns);
+
+        //there can't be more groups than rows
+        int maxNumOfGroups = (int) Math.min(encoder.getMaxNumOfGroups(), numOfRows);
+        int[] contingencyTable = new int[maxNumOfGroups * numOfClasses];
+        for (int i=0; i<numOfRows; i++) {
+            int j = rows.get(i);
+            contingencyTable[encoder.encode(j) * numOfClasses + targetColumn.getInt(j)]++;
+        }
+
         double IG = 0;
-        for (int[] val: valuesPerKey.values()) {
-            double numOfInstances = IntStream.of(val).sum();
+        for (int group=0; group<encoder.getNumOfGroups(); group++) {
+            int offset = group * numOfClasses;
+            double numOfInstances = 0;
+            for (int k=0; k<numOfClasses; k++) {
+                numOfInstances += contingencyTable[offset + k];
+            }
             double tempIG = 0;
-            for (int i=0; i<val.length; i++) {
-                if (val[i] != 0) {
-                    tempIG += -((val[i] / numOfInstances) * Math.log10(val[i] / numOfInstances));
+            for (int k=0; k<numOfClasses; k++) {
+                int count = contingencyTable[offset + k];
+                if (count != 0) {
+                    tempIG += -((count / numOfInstances) * Math.log10(count / numOfInstances));
                 }
             }
             IG += (numOfInstances/dataset.getNumOfTrainingDatasetRows()) * tempIG;
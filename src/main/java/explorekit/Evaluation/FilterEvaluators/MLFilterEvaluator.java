@@ -21,8 +21,8 @@ import weka.core.Instances;
 
 import java.io.File;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static explorekit.Evaluation.Evaluator.evaluatorScoringMethod.ClassifierProbability;
 
@@ -38,6 +38,11 @@ public class MLFilterEvaluator extends FilterEvaluator {
 
     HashMap<Integer, AttributeInfo> datasetAttributes;
 
+    //The operator assignment based attributes of every candidate attribute, per training sub-fold (the complete dataset
+    //of produceScore). These attributes don't depend on the other attributes of the dataset, so when the dataset based
+    //attributes change only the classification needs to be repeated. Shared by all the copies of the evaluator
+    private Map<OperatorAssignment, Map<Dataset, SavedCandidateAttributes>> savedCandidateAttributes = Collections.synchronizedMap(new WeakHashMap<>());
+
     public MLFilterEvaluator() {
 
     }
@@ -63,6 +68,7 @@ public class MLFilterEvaluator extends FilterEvaluator {
         mlf.setClassifier(this.classifier);
         mlf.setDatasetAttributes(this.datasetAttributes);
         mlf.setEvaluation(this.evaluation);
+        mlf.savedCandidateAttributes = this.savedCandidateAttributes;
         return mlf;
     }
 
@@ -80,41 +86,46 @@ public class MLFilterEvaluator extends FilterEvaluator {
     public double produceScore(Dataset analyzedDatasets, ClassificationResults currentScore, Dataset completeDataset, OperatorAssignment oa, ColumnInfo candidateAttribute, Properties properties) throws Exception {
 
         try {
-            MLAttributesManager mlam = new MLAttributesManager();
-            if (classifier == null) {
-                System.out.println("Classifier is not initialized");
-                throw new Exception("Classifier is not initialized");
-            }
-
             //we need to generate the features for this candidate attribute and then run the (previously) calculated classification model
             OperatorAssignmentBasedAttributes oaba = new OperatorAssignmentBasedAttributes();
-            HashMap<Integer, AttributeInfo> candidateAttributes = oaba.getOperatorAssignmentBasedAttributes(analyzedDatasets, oa, candidateAttribute, properties);
+            HashMap<Integer, AttributeInfo> operatorAssignmentAttributes = oaba.getOperatorAssignmentBasedAttributes(analyzedDatasets, oa, candidateAttribute, properties);
+            HashMap<Integer, AttributeInfo> currentDatasetAttributes = datasetAttributes;
+            double score = classifyCandidateAttribute(operatorAssignmentAttributes, currentDatasetAttributes, analyzedDatasets.getMinorityClassIndex(), properties);
 
-            //now add the dataset attributes to the candidate attribute's attribute
-            for (AttributeInfo datasetAttInfo : datasetAttributes.values()) {
-                candidateAttributes.put(candidateAttributes.size(), datasetAttInfo);
+            if (oa != null && completeDataset != null) {
+                savedCandidateAttributes.computeIfAbsent(oa, k -> new ConcurrentHashMap<>())
+                        .put(completeDataset, new SavedCandidateAttributes(operatorAssignmentAttributes, currentDatasetAttributes, score));
             }
+            return score;
+        }
+        catch (Exception ex) {
+            System.out.println("Error in ML score generation : " + ex.getMessage());
+            return -1;
+        }
+    }
 
-            //We need to add the type of the classifier we're using
-            AttributeInfo classifierAttribute = new AttributeInfo("Classifier", Column.columnType.Discrete, mlam.getClassifierIndex(properties.getProperty("classifier")), properties.getProperty("classifiersForMLAttributesGeneration").split(",").length);
-            candidateAttributes.put(candidateAttributes.size(), classifierAttribute);
-
-            //In order to have attributes of the same set size, we need to add the class attribute. We don't know the true value, so we set it to negative
-            AttributeInfo classAttrubute = new AttributeInfo("classAttribute", Column.columnType.Discrete, 0, 2);
-            candidateAttributes.put(candidateAttributes.size(), classAttrubute);
-
-            //finally, we need to set the index of the target class
-            Instances testInstances = mlam.generateValuesMatrix(candidateAttributes);
-            testInstances.setClassIndex(testInstances.numAttributes() - 1);
-
-
-            evaluation = new Evaluation(testInstances);
-            evaluation.evaluateModel(classifier, testInstances);
+    @Override
+    public boolean canRecalculateScore(OperatorAssignment oa, List<Dataset> datasets) {
+        Map<Dataset, SavedCandidateAttributes> savedAttributes = savedCandidateAttributes.get(oa);
+        return savedAttributes != null && datasets.stream().allMatch(savedAttributes::containsKey);
+    }
 
-            //we have a single prediction, so it's easy to process
-            Prediction prediction = evaluation.predictions().get(0);
-            ClassificationItem ci = new ClassificationItem((int) prediction.actual(), ((NominalPrediction) prediction).distribution());
-            return ci.getProbabilities()[analyzedDatasets.getMinorityClassIndex()];
+    @Override
+    public double recalculateScore(Dataset dataset, ClassificationResults currentScore, OperatorAssignment oa, Properties properties) throws Exception {
+        Map<Dataset, SavedCandidateAttributes> savedAttributes = savedCandidateAttributes.get(oa);
+        SavedCandidateAttributes saved = savedAttributes == null ? null : savedAttributes.get(dataset);
+        if (saved == null) {
+            throw new Exception("The attributes of the candidate were not saved");
+        }
+        HashMap<Integer, AttributeInfo> currentDatasetAttributes = datasetAttributes;
+        //if the dataset based attributes did not change since the score was calculated, neither did the score
+        if (saved.datasetAttributes == currentDatasetAttributes) {
+            return saved.score;
+        }
+        try {
+            double score = classifyCandidateAttribute(saved.operatorAssignmentAttributes, currentDatasetAttributes, dataset.getMinorityClassIndex(), properties);
+            savedAttributes.put(dataset, new SavedCandidateAttributes(saved.operatorAssignmentAttributes, currentDatasetAttributes, score));
+            return score;
         }
         catch (Exception ex) {
             System.out.println("Error in ML score generation : " + ex.getMessage());
@@ -122,6 +133,53 @@ public class MLFilterEvaluator extends FilterEvaluator {
         }
     }
 
+    /**
+     * Classifies the candidate attribute using the background model, based on its operator assignment attributes and
+     * the attributes of the dataset
+     * @param operatorAssignmentAttributes
+     * @param datasetAttributes
+     * @param minorityClassIndex
+     * @param properties
+     * @return the probability of the candidate attribute to belong to the minority class
+     * @throws Exception
+     */
+    private double classifyCandidateAttribute(HashMap<Integer, AttributeInfo> operatorAssignmentAttributes, HashMap<Integer, AttributeInfo> datasetAttributes,
+                                              int minorityClassIndex, Properties properties) throws Exception {
+        MLAttributesManager mlam = new MLAttributesManager();
+        if (classifier == null) {
+            System.out.println("Classifier is not initialized");
+            throw new Exception("Classifier is not initialized");
+        }
+        //the operator assignment attributes may be used again, so the attributes are added to a copy
+        HashMap<Integer, AttributeInfo> candidateAttributes = new HashMap<>(operatorAssignmentAttributes);
+
+        //now add the dataset attributes to the candidate attribute's attribute
+        for (AttributeInfo datasetAttInfo : datasetAttributes.values()) {
+            candidateAttributes.put(candidateAttributes.size(), datasetAttInfo);
+        }
+
+        //We need to add the type of the classifier we're using
+        AttributeInfo classifierAttribute = new AttributeInfo("Classifier", Column.columnType.Discrete, mlam.getClassifierIndex(properties.getProperty("classifier")), properties.getProperty("classifiersForMLAttributesGeneration").split(",").length);
+        candidateAttributes.put(candidateAttributes.size(), classifierAttribute);
+
+        //In order to have attributes of the same set size, we need to add the class attribute. We don't know the true value, so we set it to negative
+        AttributeInfo classAttrubute = new AttributeInfo("classAttribute", Column.columnType.Discrete, 0, 2);
+        candidateAttributes.put(candidateAttributes.size(), classAttrubute);
+
+        //finally, we need to set the index of the target class
+        Instances testInstances = mlam.generateValuesMatrix(candidateAttributes);
+        testInstances.setClassIndex(testInstances.numAttributes() - 1);
+
+
+        evaluation = new Evaluation(testInstances);
+        evaluation.evaluateModel(classifier, testInstances);
+
+        //we have a single prediction, so it's easy to process
+        Prediction prediction = evaluation.predictions().get(0);
+        ClassificationItem ci = new ClassificationItem((int) prediction.actual(), ((NominalPrediction) prediction).distribution());
+        return ci.getProbabilities()[minorityClassIndex];
+    }
+
     /**
      * Used to create or load the data used by the background model - all the datasets that are evaluated "offline" to create
      * the meta-features classifier.
@@ -139,7 +197,24 @@ public class MLFilterEvaluator extends FilterEvaluator {
 
     public void recalculateDatasetBasedFeatures(Dataset analyzedDatasets, Properties properties) throws Exception {
         DatasetBasedAttributes dba = new DatasetBasedAttributes();
-        datasetAttributes = dba.getDatasetBasedFeatures(analyzedDatasets, properties.getProperty("classifier"), properties);
+        HashMap<Integer, AttributeInfo> recalculatedAttributes = dba.getDatasetBasedFeatures(analyzedDatasets, properties.getProperty("classifier"), properties);
+        //the saved scores remain valid as long as the same object is used, so it is only replaced if a value changed
+        if (!haveSameValues(datasetAttributes, recalculatedAttributes)) {
+            datasetAttributes = recalculatedAttributes;
+        }
+    }
+
+    private static boolean haveSameValues(HashMap<Integer, AttributeInfo> attributes1, HashMap<Integer, AttributeInfo> attributes2) {
+        if (attributes1 == null || attributes2 == null || !attributes1.keySet().equals(attributes2.keySet())) {
+            return false;
+        }
+        for (Map.Entry<Integer, AttributeInfo> entry : attributes1.entrySet()) {
+            AttributeInfo other = attributes2.get(entry.getKey());
+            if (!entry.getValue().getAttributeName().equals(other.getAttributeName()) || !Objects.equals(entry.getValue().getValue(), other.getValue())) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Classifier getClassifier() {
@@ -171,4 +246,20 @@ public class MLFilterEvaluator extends FilterEvaluator {
     public void setEvaluation(Evaluation evaluation) {
         this.evaluation = evaluation;
     }
+
+    /**
+     * The attributes of a candidate attribute on a single dataset, and the score that was calculated with the given
+     * dataset based attributes
+     */
+    private static class SavedCandidateAttributes {
+        private final HashMap<Integer, AttributeInfo> operatorAssignmentAttributes;
+        private final HashMap<Integer, AttributeInfo> datasetAttributes;
+        private final double score;
+
+        SavedCandidateAttributes(HashMap<Integer, AttributeInfo> operatorAssignmentAttributes, HashMap<Integer, AttributeInfo> datasetAttributes, double score) {
+            this.operatorAssignmentAttributes = operatorAssignmentAttributes;
+            this.datasetAttributes = datasetAttributes;
+            this.score = score;
+        }
+    }
 }
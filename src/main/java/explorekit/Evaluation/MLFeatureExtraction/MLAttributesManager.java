@@ -1,6 +1,7 @@
 package explorekit.Evaluation.MLFeatureExtraction;
 
 import com.sun.org.apache.xml.internal.resolver.readers.ExtendedXMLCatalogReader;
+import explorekit.Evaluation.EvaluationExecutor;
 import explorekit.Evaluation.WrapperEvaluation.WrapperEvaluator;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
@@ -321,11 +322,9 @@ public class MLAttributesManager {
             // 3) Generate the candidate attribute and generate its attributes
             nonUnaryOperatorAssignments.addAll(unaryOperatorAssignments);
 
-            //oaList.parallelStream().forEach(oa -> {
-            int counter = 0;
-            //for (OperatorAssignment oa : nonUnaryOperatorAssignments) {
             ReentrantLock wrapperResultsLock = new ReentrantLock();
-            nonUnaryOperatorAssignments.parallelStream().forEach(oa -> {
+            EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.MLAttributesGeneration, properties);
+            executor.forEach(nonUnaryOperatorAssignments, (oa, job) -> {
                 try {
                     OperatorsAssignmentsManager oam1 = new OperatorsAssignmentsManager(properties);
                     Dataset datasetReplica = dataset.replicateDataset();
@@ -341,7 +340,7 @@ public class MLAttributesManager {
                     OperatorAssignmentBasedAttributes oaba = new OperatorAssignmentBasedAttributes();
                     HashMap<Integer, AttributeInfo> candidateAttributes = oaba.getOperatorAssignmentBasedAttributes(dataset, oa, candidateAttribute, properties);
 
-                    datasetReplica.addColumn(candidateAttribute);
+                    datasetReplica.addColumn(OperatorsAssignmentsManager.materialize(candidateAttribute));
                     Evaluation evaluationResults1 = runClassifier(classifier, datasetReplica.generateSet(true), datasetReplica.generateSet(false), properties);
 
                     double auc = CalculateAUC(evaluationResults1, datasetReplica);
@@ -7,6 +7,7 @@ import explorekit.Evaluation.Evaluator;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
+import explorekit.metrics.MetricsRegistry;
 import explorekit.operators.OperatorAssignment;
 import explorekit.operators.OperatorsAssignmentsManager;
 import weka.classifiers.Classifier;
@@ -258,7 +259,7 @@ public abstract class WrapperEvaluator implements Evaluator {
         int counter = 0;
         for (Prediction prediction: evaluation.predictions()) {
             if ((counter%10000) == 0) {
-                if ((int) prediction.actual() != (Integer) actualTargetColumn.getValue(dataset.getIndicesOfTestInstances().get(counter))) {
+                if ((int) prediction.actual() != actualTargetColumn.getInt(dataset.getIndicesOfTestInstances().get(counter))) {
                     if (dataset.getTestDataMatrixWithDistinctVals() == null || dataset.getTestDataMatrixWithDistinctVals().length == 0) {
                         throw new Exception("the target class values do not match");
                     }
@@ -343,11 +344,16 @@ public abstract class WrapperEvaluator implements Evaluator {
         try {
             OperatorsAssignmentsManager oam = new OperatorsAssignmentsManager(properties);
             Classifier classifier = oam.getClassifier(classifierName);
+            MetricsRegistry metrics = MetricsRegistry.getDefault();
+            long startTime = System.nanoTime();
             classifier.buildClassifier(trainingSet);
+            metrics.recordTime("wrapper." + classifierName + ".buildClassifier", startTime);
             Evaluation evaluation;
 
+            startTime = System.nanoTime();
             evaluation = new Evaluation(trainingSet);
             evaluation.evaluateModel(classifier, testSet);
+            metrics.recordTime("wrapper." + classifierName + ".evaluateModel", startTime);
 
             return evaluation;
         }
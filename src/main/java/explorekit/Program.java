@@ -4,8 +4,6 @@ import explorekit.data.Dataset;
 import explorekit.data.Loader;
 import explorekit.search.FilterWrapperHeuristicSearch;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -15,6 +13,9 @@ import java.util.List;
  */
 public class Program {
     public static void main(String[] args) throws Exception {
+        //with the "resume" argument, every search continues from its last checkpoint (if there is one)
+        boolean resume = args.length > 0 && args[0].equals("resume");
+
         Loader loader = new Loader();
         List<String> datasets = new ArrayList<>();
 
@@ -34,17 +35,20 @@ public class Program {
 
         for (int i = 0; i < 1; i++) {
             for (String datasetPath : datasets) {
-                BufferedReader reader = new BufferedReader(new FileReader(datasetPath));
-
                 Dataset dataset;
                 if (!classAttributeIndices.containsKey(datasetPath)) {
-                    dataset = loader.readArff(reader, i, null, -1, 0.66);
+                    dataset = loader.readArffFile(datasetPath, i, null, -1, 0.66);
                 } else {
-                    dataset = loader.readArff(reader, i, null, classAttributeIndices.get(datasetPath), 0.66);
+                    dataset = loader.readArffFile(datasetPath, i, null, classAttributeIndices.get(datasetPath), 0.66);
                 }
 
                 FilterWrapperHeuristicSearch exp = new FilterWrapperHeuristicSearch(15);
-                exp.run(dataset, "_" + Integer.toString(i));
+                if (resume) {
+                    exp.resume(dataset, "_" + Integer.toString(i));
+                }
+                else {
+                    exp.run(dataset, "_" + Integer.toString(i));
+                }
             }
         }
     }
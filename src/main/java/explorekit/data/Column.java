@@ -10,6 +10,30 @@ public interface Column {
 
     Object getValue(int i);
 
+    /**
+     * Returns the value of the i-th row as a primitive double. Discrete values are widened, so no boxing
+     * takes place. Throws UnsupportedOperationException for column types that have no numeric representation
+     * @param i
+     * @return
+     */
+    double getDouble(int i);
+
+    /**
+     * Returns the value of the i-th row as a primitive int (the nominal index for discrete columns). Numeric values
+     * are truncated toward zero. Throws UnsupportedOperationException for column types that have no int representation
+     * @param i
+     * @return
+     */
+    int getInt(int i);
+
+    /**
+     * Returns the value of the i-th row as a primitive long (epoch milliseconds for date columns). Numeric values
+     * are truncated toward zero. Throws UnsupportedOperationException for column types that have no long representation
+     * @param i
+     * @return
+     */
+    long getLong(int i);
+
     void setValue(int i, Object obj);
 
     int getNumOfInstances();
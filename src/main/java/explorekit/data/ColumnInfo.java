@@ -3,12 +3,17 @@ package explorekit.data;
 import explorekit.operators.Operator;
 
 import java.io.Serializable;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by giladkatz on 12/02/2016.
  */
 public class ColumnInfo implements Serializable {
+    //the ids are assigned on the first request (see getId), starting from 1
+    private static final AtomicInteger nextId = new AtomicInteger(1);
 
     public ColumnInfo(Column column, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, Class<? extends Operator> operator, String name) {
         this.column = column;
@@ -19,6 +24,99 @@ public class ColumnInfo implements Serializable {
         this.isTargetClass = isTargetClass;
     }
 
+    /**
+     * Returns a unique id of the column. The id is assigned on the first request, so that only the columns that take
+     * part in the enumeration of the assignments (the columns of the datasets and their parents) receive ids and the
+     * ids remain small, rather than every short-lived candidate attribute
+     * @return
+     */
+    public int getId() {
+        if (id == 0) {
+            synchronized (this) {
+                if (id == 0) {
+                    id = nextId.getAndIncrement();
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the ids of the column and of its source and target columns (its parents). Two attributes overlap
+     * if their lineages intersect. The set is computed once and must not be modified
+     * @return
+     */
+    public BitSet getLineage() {
+        BitSet lineage = this.lineage;
+        if (lineage == null) {
+            lineage = new BitSet();
+            lineage.set(getId());
+            if (sourceColumns != null) {
+                for (ColumnInfo ci : sourceColumns) {
+                    lineage.set(ci.getId());
+                }
+            }
+            if (targetColumns != null) {
+                for (ColumnInfo ci : targetColumns) {
+                    lineage.set(ci.getId());
+                }
+            }
+            this.lineage = lineage;
+        }
+        return lineage;
+    }
+
+    /**
+     * Returns the ids of the column and of all its ancestors through the source columns (the sources, their sources
+     * and so on). The set is computed once and must not be modified
+     * @return
+     */
+    public BitSet getSourceAncestry() {
+        BitSet sourceAncestry = this.sourceAncestry;
+        if (sourceAncestry == null) {
+            sourceAncestry = new BitSet();
+            sourceAncestry.set(getId());
+            if (sourceColumns != null) {
+                for (ColumnInfo ci : sourceColumns) {
+                    sourceAncestry.or(ci.getSourceAncestry());
+                }
+            }
+            this.sourceAncestry = sourceAncestry;
+        }
+        return sourceAncestry;
+    }
+
+    /**
+     * Returns the discretized version of the column that was saved with the given key (see
+     * FilterEvaluator.discretizeColumns), or null if there is none. The discretizations are kept by the column itself,
+     * so they are released together with it and different columns never contend for a lock
+     * @param key identifies the discretization (the rows and the number of bins), compared with equals()
+     * @return
+     */
+    public Column getDiscretizedColumn(Object key) {
+        ConcurrentHashMap<Object, Column> discretizedColumns = this.discretizedColumns;
+        return discretizedColumns == null ? null : discretizedColumns.get(key);
+    }
+
+    /**
+     * Saves a discretized version of the column (see getDiscretizedColumn)
+     * @param key
+     * @param discretizedColumn
+     */
+    public void putDiscretizedColumn(Object key, Column discretizedColumn) {
+        ConcurrentHashMap<Object, Column> discretizedColumns = this.discretizedColumns;
+        if (discretizedColumns == null) {
+            synchronized (this) {
+                discretizedColumns = this.discretizedColumns;
+                if (discretizedColumns == null) {
+                    discretizedColumns = new ConcurrentHashMap<>();
+                    this.discretizedColumns = discretizedColumns;
+                }
+            }
+        }
+        discretizedColumns.put(key, discretizedColumn);
+    }
+
     public Column getColumn() {
         return column;
     }
@@ -27,6 +125,21 @@ public class ColumnInfo implements Serializable {
         this.column = column;
     }
 
+    /**
+     * Returns the attribute with its values stored in memory. If the column is a DerivedNumericColumn (computed on
+     * demand), a new object with the materialized column is returned (this object is not changed, since it may be
+     * held by the candidate column cache). Otherwise, the object itself is returned
+     * @return
+     */
+    public ColumnInfo materialize() {
+        if (!(column instanceof DerivedNumericColumn)) {
+            return this;
+        }
+        ColumnInfo materialized = new ColumnInfo(((DerivedNumericColumn) column).materialize(), sourceColumns, targetColumns, operator, name);
+        materialized.SetTargetClassValue(isTargetClass);
+        return materialized;
+    }
+
     public void SetTargetClassValue(boolean isTargetClass){
         this.isTargetClass = isTargetClass;
     }
@@ -53,4 +166,9 @@ public class ColumnInfo implements Serializable {
     private Class<? extends Operator> operator;
     private boolean isTargetClass = false;
     private String name;
+    //assigned and computed on the first request. The ids are not serialized, since they are only unique within the process
+    private transient volatile int id;
+    private transient volatile BitSet lineage;
+    private transient volatile BitSet sourceAncestry;
+    private transient volatile ConcurrentHashMap<Object, Column> discretizedColumns;
 }
@@ -0,0 +1,275 @@
+package explorekit.data;
+
+import explorekit.operators.Operator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A columnar, binary on-disk store for generated attributes. Every dataset has its own directory which contains
+ * an index file and one file per column. Each column file consists of a fixed header followed by the primitive
+ * values of the column:
+ *
+ *  magic (int) | version (short) | column type (byte) | number of instances (int) | number of possible values (int) |
+ *  lineage hash (16 bytes) | name length (int) | name (UTF-8) | values (double[] or int[])
+ *
+ * The lineage hash identifies the attribute: the dataset, the operator assignment that generated it and the rows
+ * that were used to generate it (see getLineageHash). Files are read back through a memory-mapped buffer.
+ */
+public class ColumnStore {
+
+    private static final int MAGIC = 0x454B434C;
+    private static final short VERSION = 1;
+    private static final String INDEX_FILE_NAME = "columns.idx";
+    private static final String COLUMN_FILE_SUFFIX = ".col";
+
+    private static final ConcurrentHashMap<String, ColumnStore> stores = new ConcurrentHashMap<>();
+
+    private final File directory;
+    private final File indexFile;
+    //lineage hash -> the name of the stored attribute
+    private final ConcurrentHashMap<String, String> index = new ConcurrentHashMap<>();
+
+    private ColumnStore(File directory) throws Exception {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new Exception("unable to create column store directory " + directory.getAbsolutePath());
+        }
+        this.indexFile = new File(directory, INDEX_FILE_NAME);
+        loadIndex();
+    }
+
+    /**
+     * Returns the store of the given dataset. The store is opened (and its index loaded) only once per process
+     * @param location the root directory of all the stores
+     * @param datasetName
+     * @return
+     * @throws Exception
+     */
+    public static ColumnStore getStore(String location, String datasetName) throws Exception {
+        File directory = new File(location, getHash(datasetName));
+        String key = directory.getAbsolutePath();
+        ColumnStore store = stores.get(key);
+        if (store == null) {
+            synchronized (stores) {
+                store = stores.get(key);
+                if (store == null) {
+                    store = new ColumnStore(directory);
+                    stores.put(key, store);
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Computes the lineage hash of an attribute. The hash depends on the dataset, the name of the operator assignment
+     * and the rows of the dataset (both training and all), since these are the rows used by processTrainingSet and generate
+     * @param dataset
+     * @param operatorAssignmentName
+     * @return
+     * @throws Exception
+     */
+    public static String getLineageHash(Dataset dataset, String operatorAssignmentName) throws Exception {
+        return getHash(dataset.getName() + "|" + operatorAssignmentName + "|" + dataset.getNumOfInstancesPerColumn() + "|" +
+                Long.toHexString(dataset.getIndicesOfTrainingInstances().getFingerprint()) + "|" +
+                Long.toHexString(dataset.getIndices().getFingerprint()));
+    }
+
+    /**
+     * Returns true if a column with the given lineage was written to the store
+     * @param lineageHash
+     * @return
+     */
+    public boolean contains(String lineageHash) {
+        return index.containsKey(lineageHash);
+    }
+
+    /**
+     * Reads a column from the store. Returns null if the column does not exist or if it does not match the expected
+     * lineage and size
+     * @param lineageHash
+     * @param numOfInstances the expected size of the column
+     * @param sourceColumns
+     * @param targetColumns
+     * @param operator
+     * @return
+     * @throws Exception
+     */
+    public ColumnInfo read(String lineageHash, int numOfInstances, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns,
+                           Class<? extends Operator> operator) throws Exception {
+        if (!contains(lineageHash)) {
+            return null;
+        }
+        File file = new File(directory, lineageHash + COLUMN_FILE_SUFFIX);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                System.out.println("invalid column file: " + file.getAbsolutePath());
+                return null;
+            }
+            Column.columnType type = Column.columnType.values()[buffer.get()];
+            int storedNumOfInstances = buffer.getInt();
+            int numOfPossibleValues = buffer.getInt();
+            byte[] lineage = new byte[16];
+            buffer.get(lineage);
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+
+            if (storedNumOfInstances != numOfInstances || !toHex(lineage).equals(lineageHash)) {
+                return null;
+            }
+
+            Column column;
+            switch (type) {
+                case Numeric:
+                    NumericColumn numericColumn = new NumericColumn(numOfInstances);
+                    buffer.asDoubleBuffer().get(numericColumn.getDoubleValues());
+                    column = numericColumn;
+                    break;
+                case Discrete:
+                    DiscreteColumn discreteColumn = new DiscreteColumn(numOfInstances, numOfPossibleValues);
+                    buffer.asIntBuffer().get(discreteColumn.getIntValues());
+                    column = discreteColumn;
+                    break;
+                default:
+                    return null;
+            }
+            return new ColumnInfo(column, sourceColumns, targetColumns, operator, new String(name, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Writes a column to the store and registers it in the index. Only numeric and discrete columns (the output
+     * types of the operators) are supported - other columns are ignored.
+     * @param lineageHash
+     * @param ci
+     * @throws Exception
+     */
+    public void write(String lineageHash, ColumnInfo ci) throws Exception {
+        if (ci == null || contains(lineageHash)) {
+            return;
+        }
+        Column column = ci.getColumn();
+        int valueSize;
+        int numOfPossibleValues = 0;
+        switch (column.getType()) {
+            case Numeric:
+                valueSize = Double.BYTES;
+                break;
+            case Discrete:
+                valueSize = Integer.BYTES;
+                numOfPossibleValues = ((DiscreteColumn) column).getNumOfPossibleValues();
+                break;
+            default:
+                return;
+        }
+
+        byte[] name = ci.getName().getBytes(StandardCharsets.UTF_8);
+        int headerSize = 4 + 2 + 1 + 4 + 4 + 16 + 4 + name.length;
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + valueSize * column.getNumOfInstances()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.put((byte) column.getType().ordinal());
+        buffer.putInt(column.getNumOfInstances());
+        buffer.putInt(numOfPossibleValues);
+        buffer.put(fromHex(lineageHash));
+        buffer.putInt(name.length);
+        buffer.put(name);
+        if (column.getType() == Column.columnType.Numeric) {
+            //derived columns return a materialized copy of their values
+            buffer.asDoubleBuffer().put((double[]) column.getValues());
+        }
+        else {
+            buffer.asIntBuffer().put(((DiscreteColumn) column).getIntValues());
+        }
+        buffer.position(0);
+
+        //the column is written to a temporary file which is then renamed, so readers never see partial files
+        File file = new File(directory, lineageHash + COLUMN_FILE_SUFFIX);
+        File tempFile = File.createTempFile(lineageHash, ".tmp", directory);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        appendToIndex(lineageHash, ci.getName());
+    }
+
+    /**
+     * Returns the number of columns in the store
+     * @return
+     */
+    public int getNumOfStoredColumns() {
+        return index.size();
+    }
+
+    private synchronized void appendToIndex(String lineageHash, String columnName) throws Exception {
+        if (index.containsKey(lineageHash)) {
+            return;
+        }
+        byte[] line = (lineageHash + "\t" + columnName.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.position(channel.size());
+            channel.write(ByteBuffer.wrap(line));
+        }
+        index.put(lineageHash, columnName);
+    }
+
+    private void loadIndex() throws Exception {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    index.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+        }
+    }
+
+    private static String getHash(String name) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        md.update(name.getBytes(StandardCharsets.UTF_8));
+        return toHex(md.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i=0; i<bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,48 @@
+package explorekit.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only snapshot of the columns of a dataset that can be extended with "overlay" columns without
+ * copying the underlying list. Replicas of a dataset (one per candidate attribute, per fold) share the
+ * columns of the dataset they were created from, and only the columns added to the replica are stored here.
+ *
+ * The snapshot relies on the fact that columns are only ever appended to a dataset - the first baseSize
+ * items of the base list never change, so later additions to the base are simply not visible to the view.
+ */
+class ColumnsView extends AbstractList<ColumnInfo> {
+    private final List<ColumnInfo> base;
+    private final int baseSize;
+    private final List<ColumnInfo> overlay = new ArrayList<>(1);
+
+    ColumnsView(List<ColumnInfo> base) {
+        this.base = base;
+        this.baseSize = base.size();
+    }
+
+    @Override
+    public ColumnInfo get(int index) {
+        if (index < baseSize) {
+            return base.get(index);
+        }
+        return overlay.get(index - baseSize);
+    }
+
+    @Override
+    public int size() {
+        return baseSize + overlay.size();
+    }
+
+    /**
+     * Adds an overlay column. The column is visible only through this view and not through the base list
+     * @param ci
+     * @return
+     */
+    @Override
+    public boolean add(ColumnInfo ci) {
+        modCount++;
+        return overlay.add(ci);
+    }
+}
@@ -5,8 +5,8 @@ import weka.core.Attribute;
 import weka.core.DenseInstance;
 import weka.core.Instances;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by giladkatz on 11/02/2016.
@@ -16,10 +16,10 @@ public class Dataset {
     private int numOfInstancesPerColumn;
 
     private List<Fold> folds;
-    private List<Integer> indices;
-    private List<Integer> indicesOfTrainingFolds;
-    private List<Integer> indicesOfTestFolds;
-    private List<Integer>[] trainingIndicesByClass;
+    private RowIndices indices;
+    private RowIndices indicesOfTrainingFolds;
+    private RowIndices indicesOfTestFolds;
+    private RowIndices[] trainingIndicesByClass;
 
     private int[] numOfTrainingInstancesPerClass;
     private int[] numOfTestInstancesPerClass;
@@ -34,18 +34,36 @@ public class Dataset {
     private List<ColumnInfo> distinctValueCompliantColumns = new ArrayList<>();
     private HashMap<List<String>, List<Integer>> trainFoldDistinctValMappings;
     private HashMap<List<String>, List<Integer>> testFoldDistinctValMappings;
-    private List<Integer> trainFoldsDistinctValRepresentatives;
-    private List<Integer> testFoldsDistinctValRepresentatives;
+    //the group of every row by its values in the distinct value columns (null if there are no such columns)
+    private DistinctValueGroups distinctValueGroups;
+    private RowIndices trainFoldsDistinctValRepresentatives;
+    private RowIndices testFoldsDistinctValRepresentatives;
 
     //Defines the maximal number of distinct values a discrete attribute can have in order to be included in the ARFF file
     private int maxNumOFDiscreteValuesForInstancesObject;
 
+    //the dataset this object was replicated from (by replicateDataset). Its cached Weka attributes and values are used
+    //for the columns the two datasets have in common
+    private Dataset instancesCacheSource;
+    //the cache holds a row-major copy of the training and test values, so it is only created when a replica asks for
+    //it, it is softly referenced (released under memory pressure) and it is dropped whenever a column is added
+    private SoftReference<WekaInstancesCache> wekaInstancesCache;
+
     /**
      * Used in all the operations which require a random variable. A fixed seed enables us to recreate experiments.
      */
     private int randomSeed;
 
     Dataset(List<ColumnInfo> columns, List<Fold> folds, int targetClassIdx, String name, int numOfInstancesPerColumn, List<ColumnInfo> distinctValColumns, int randomSeed, int maxNumOfValsPerDiscreteAttribtue) throws Exception {
+        this(columns, folds, targetClassIdx, name, numOfInstancesPerColumn, distinctValColumns, randomSeed, maxNumOfValsPerDiscreteAttribtue, null);
+    }
+
+    /**
+     * @param distinctValueGroups the groups of the distinct value columns, if they were already computed for the same
+     *                            columns. If null, they are computed
+     */
+    private Dataset(List<ColumnInfo> columns, List<Fold> folds, int targetClassIdx, String name, int numOfInstancesPerColumn, List<ColumnInfo> distinctValColumns,
+                    int randomSeed, int maxNumOfValsPerDiscreteAttribtue, DistinctValueGroups distinctValueGroups) throws Exception {
         this.randomSeed = randomSeed;
         this.columns = columns;
         this.numOfInstancesPerColumn = numOfInstancesPerColumn;
@@ -57,13 +75,16 @@ public class Dataset {
             this.distinctValColumns = distinctValColumns;
             trainFoldDistinctValMappings = new HashMap<>();
             testFoldDistinctValMappings = new HashMap<>();
+            if (distinctValColumns.size() > 0) {
+                this.distinctValueGroups = distinctValueGroups != null ? distinctValueGroups : new DistinctValueGroups(distinctValColumns, numOfInstancesPerColumn);
+            }
         }
 
 
-        this.indices = new ArrayList<>();
-        this.indicesOfTrainingFolds = new ArrayList<>();
-        this.indicesOfTestFolds = new ArrayList<>();
-        this.trainingIndicesByClass = new List[folds.get(0).getInstancesClassDistribution().length];
+        this.indices = new RowIndices();
+        this.indicesOfTrainingFolds = new RowIndices();
+        this.indicesOfTestFolds = new RowIndices();
+        this.trainingIndicesByClass = new RowIndices[folds.get(0).getInstancesClassDistribution().length];
 
         this.numOfTrainingInstancesPerClass = new int[folds.get(0).getInstancesClassDistribution().length];
         this.numOfTestInstancesPerClass = new int[folds.get(0).getInstancesClassDistribution().length];
@@ -80,7 +101,7 @@ public class Dataset {
 
                 for (int i=0; i<folds.get(0).getInstancesClassDistribution().length; i++) {
                     if (this.trainingIndicesByClass[i] == null) {
-                        this.trainingIndicesByClass[i] = new ArrayList<>();
+                        this.trainingIndicesByClass[i] = new RowIndices();
                     }
                     this.trainingIndicesByClass[i].addAll(fold.getIndicesPerClass(i));
                 }
@@ -101,25 +122,25 @@ public class Dataset {
         }
 
         //Now that we are done processing the indices, we select one "representative" for each distinct value
-        trainFoldsDistinctValRepresentatives = new ArrayList<>();
+        trainFoldsDistinctValRepresentatives = new RowIndices();
         for (List<String> key : trainFoldDistinctValMappings.keySet()) {
             int index = trainFoldDistinctValMappings.get(key).get(0);
             trainFoldsDistinctValRepresentatives.add(index);
         }
-        testFoldsDistinctValRepresentatives = new ArrayList<>();
+        testFoldsDistinctValRepresentatives = new RowIndices();
         for (List<String> key : testFoldDistinctValMappings.keySet()) {
             int index = testFoldDistinctValMappings.get(key).get(0);
             testFoldsDistinctValRepresentatives.add(index);
         }
 
         //finally, we sort the indices so that they will correspond with the order of the values in the columns
-        Collections.sort(this.indices);
-        Collections.sort(this.indicesOfTrainingFolds);
-        Collections.sort(this.indicesOfTestFolds);
-        Collections.sort(trainFoldsDistinctValRepresentatives);
-        Collections.sort(testFoldsDistinctValRepresentatives);
+        this.indices.sort();
+        this.indicesOfTrainingFolds.sort();
+        this.indicesOfTestFolds.sort();
+        trainFoldsDistinctValRepresentatives.sort();
+        testFoldsDistinctValRepresentatives.sort();
         for (int i=0; i<this.trainingIndicesByClass.length; i++) {
-            Collections.sort(this.trainingIndicesByClass[i]);
+            this.trainingIndicesByClass[i].sort();
         }
 
         for (ColumnInfo ci : columns) {
@@ -147,14 +168,14 @@ public class Dataset {
         Fold newTestFold = new Fold(numOfTrainingInstancesPerClass.length, true);
         if (testSet.getDistinctValueColumns() == null || testSet.getDistinctValueColumns().size() == 0) {
             for (int i = 0; i < testSet.numOfTrainingRows + testSet.numOfTestRows; i++) {
-                newTestFold.addInstance(this.numOfTrainingRows + this.numOfTestRows + i, (Integer) testSet.getTargetClassColumn().getColumn().getValue(i));
+                newTestFold.addInstance(this.numOfTrainingRows + this.numOfTestRows + i, testSet.getTargetClassColumn().getColumn().getInt(i));
             }
         }
         else {
             for (Fold testSetFold : testSet.folds) {
                 for (List<String> sources : testSetFold.getDistinctValMappings().keySet()) {
                     int firstItemIndexInBatch = testSetFold.getDistinctValMappings().get(sources).get(0);
-                    int groupClass = (Integer) testSet.getTargetClassColumn().getColumn().getValue(firstItemIndexInBatch);
+                    int groupClass = testSet.getTargetClassColumn().getColumn().getInt(firstItemIndexInBatch);
                     List<Integer> newIndices = new ArrayList<>();
                     for (int val : testSetFold.getDistinctValMappings().get(sources)) {
                         newIndices.add(val + numOfRowsInBaseDataset);
@@ -212,25 +233,34 @@ public class Dataset {
                     break;
                 case Date:
                     DateColumn dateReplacementColumn = new DateColumn(numOfInstancesPerColumn, ((DateColumn)currentColumn).getDateFomat());
-                    populateJoinedColumnValues(dateReplacementColumn, currentColumn, testSetColumn);
+                    //the epoch milliseconds are copied directly, without creating Date objects
+                    System.arraycopy(((DateColumn)currentColumn).getLongValues(), 0, dateReplacementColumn.getLongValues(), 0, numOfTrainingRows);
+                    System.arraycopy(((DateColumn)testSetColumn).getLongValues(), 0, dateReplacementColumn.getLongValues(), numOfTrainingRows, numOfTestRows);
                     columns.get(i).setColumn(dateReplacementColumn);
                     break;
                 case String:
-                    StringColumn stringReplacementColumn = new StringColumn(numOfInstancesPerColumn);
-                    populateJoinedColumnValues(stringReplacementColumn, currentColumn, testSetColumn);
+                    //the joined column shares the dictionary of the training column, so the training codes are copied as they are
+                    StringColumn stringReplacementColumn = new StringColumn(numOfInstancesPerColumn, ((StringColumn)currentColumn).getDictionary());
+                    System.arraycopy(((StringColumn)currentColumn).getIntValues(), 0, stringReplacementColumn.getIntValues(), 0, numOfTrainingRows);
+                    for (int j=0; j<numOfTestRows; j++) {
+                        stringReplacementColumn.setValue(numOfTrainingRows + j, testSetColumn.getValue(j));
+                    }
                     columns.get(i).setColumn(stringReplacementColumn);
                     break;
                 default:
                     throw new Exception("unidentified column type");
             }
         }
+
+        //the rows of the test set are grouped together with the existing rows
+        if (distinctValueGroups != null) {
+            distinctValueGroups = new DistinctValueGroups(distinctValColumns, numOfInstancesPerColumn);
+        }
     }
 
     private void AttachExternalDatasetDistinctValues(Dataset testSet) {
         trainFoldDistinctValMappings.clear();
         testFoldDistinctValMappings.clear();
-        trainFoldsDistinctValRepresentatives.clear();
-        testFoldsDistinctValRepresentatives.clear();
 
         for (Fold fold: folds) {
             //Add all the distint values of the fold to the dataset object
@@ -243,20 +273,18 @@ public class Dataset {
         }
 
         //Now that we are done processing the indices, we select one "representative" for each distinct value
-        trainFoldsDistinctValRepresentatives.clear();
-        testFoldsDistinctValRepresentatives.clear();
-        trainFoldsDistinctValRepresentatives = new ArrayList<>();
+        trainFoldsDistinctValRepresentatives = new RowIndices();
         for (List<String> key : trainFoldDistinctValMappings.keySet()) {
             int index = trainFoldDistinctValMappings.get(key).get(0);
             trainFoldsDistinctValRepresentatives.add(index);
         }
-        testFoldsDistinctValRepresentatives = new ArrayList<>();
+        testFoldsDistinctValRepresentatives = new RowIndices();
         for (List<String> key : testFoldDistinctValMappings.keySet()) {
             int index = testFoldDistinctValMappings.get(key).get(0);
             testFoldsDistinctValRepresentatives.add(index);
         }
-
-
+        trainFoldsDistinctValRepresentatives.sort();
+        testFoldsDistinctValRepresentatives.sort();
     }
 
     private void populateJoinedColumnValues(Column newColumn, Column currentColumn, Column testSetColumn) {
@@ -285,7 +313,7 @@ public class Dataset {
      * Gets the indeices of the instances assigned to the training folds
      * @return
      */
-    public List<Integer> getIndicesOfTrainingInstances() {
+    public RowIndices getIndicesOfTrainingInstances() {
         return indicesOfTrainingFolds;
     }
 
@@ -293,7 +321,7 @@ public class Dataset {
      * Gets the idices of the instances assigned to the test folds
      * @return
      */
-    public List<Integer> getIndicesOfTestInstances() {
+    public RowIndices getIndicesOfTestInstances() {
         return indicesOfTestFolds;
     }
 
@@ -301,7 +329,7 @@ public class Dataset {
      * Returns the indices of the samples allocated to this dataset
      * @return
      */
-    public List<Integer> getIndices() {
+    public RowIndices getIndices() {
         return indices;
     }
 
@@ -361,7 +389,7 @@ public class Dataset {
         return numOfTestInstancesPerClass;
     }
 
-    public List<Integer>[] getTrainingIndicesByClass() {
+    public RowIndices[] getTrainingIndicesByClass() {
         return this.trainingIndicesByClass;
     }
 
@@ -400,6 +428,8 @@ public class Dataset {
 
     public void addColumn(ColumnInfo column) {
         this.columns.add(column);
+        //the cached values no longer cover all the columns, and the replicas created from now on will not use them
+        releaseWekaInstancesCache();
     }
 
     /**
@@ -456,6 +486,14 @@ public class Dataset {
         return this.distinctValColumns;
     }
 
+    /**
+     * Returns the group of every row by its values in the distinct value columns, or null if there are no distinct value columns
+     * @return
+     */
+    public DistinctValueGroups getDistinctValueGroups() {
+        return this.distinctValueGroups;
+    }
+
 
     /**
      * Samples a predefined number of samples from the dataset (while maintaining the ratio)
@@ -477,7 +515,7 @@ public class Dataset {
 
         //Now we extract the subset for each class
         Random rnd = new Random(randomSeed);
-        List<Integer> subsetIndicesList = new ArrayList<>();
+        RowIndices subsetIndicesList = new RowIndices(numOfSamples);
         for (int i=0; i<numOfRequiredIntancesPerClass.length; i++) {
             int assignedItemsFromClass = 0;
             while (assignedItemsFromClass < numOfRequiredIntancesPerClass[i]) {
@@ -490,19 +528,7 @@ public class Dataset {
             }
         }
 
-        //get all the attributes that need to be included in the set
-        ArrayList<Attribute> attributes = new ArrayList<>();
-        getAttributesListForClassifier(attributes);
-        Instances finalSet = new Instances("trainingSet", attributes, 0);
-        double[][] dataMatrix = getDataMatrixByIndices(subsetIndicesList);
-        for (int i=0; i<dataMatrix[0].length; i++) {
-            double[] arr = new double[dataMatrix.length];
-            for (int j=0; j<dataMatrix.length; j++) {
-                arr[j] = dataMatrix[j][i];
-            }
-            DenseInstance di = new DenseInstance(1.0, arr);
-            finalSet.add(i, di);
-        }
+        Instances finalSet = createInstances(true, subsetIndicesList.toArray(), null);
         finalSet.setClassIndex(targetColumnIndex-getNumberOfDateStringAndDistinctColumns());
 
         return finalSet;
@@ -515,80 +541,162 @@ public class Dataset {
      * @throws Exception
      */
     public Instances generateSet(boolean getTrainingSet) throws Exception {
-        ArrayList<Attribute> attributes = new ArrayList<>();
+        int[] rows = getRowsForClassifier(getTrainingSet);
+
+        //replicas use the attributes and values of the dataset they were created from for the columns they have in common
+        WekaInstancesCache cache = null;
+        if (instancesCacheSource != null) {
+            cache = instancesCacheSource.getWekaInstancesCache(columns);
+            if (cache != null && !Arrays.equals(cache.getRows(getTrainingSet), rows)) {
+                cache = null;
+            }
+        }
 
-        //get all the attributes that need to be included in the set
-        getAttributesListForClassifier(attributes);
+        Instances finalSet = createInstances(getTrainingSet, rows, cache);
+        finalSet.setClassIndex(targetColumnIndex-getNumberOfDateStringAndDistinctColumnsBeforeTargetClass());
+
+        return finalSet;
+    }
 
-        //Create an empty set of instances and populate with the instances
-        double[][] dataMatrix;
-        Instances finalSet;
-        if (getTrainingSet) {
-            finalSet = new Instances("trainingSet", attributes, 0);
-            dataMatrix = getTrainingDataMatrix();
+    /**
+     * Creates an Instances object with the given rows (in the given order), without setting the class index
+     * @param getTrainingSet whether the rows are the training set (or a sample of it) or the test set
+     * @param rows
+     * @param cache if not null, the attributes and values of the first columns of the dataset are taken from it
+     * @return
+     * @throws Exception
+     */
+    private Instances createInstances(boolean getTrainingSet, int[] rows, WekaInstancesCache cache) throws Exception {
+        int numOfCachedColumns = cache == null ? 0 : cache.getNumOfColumns();
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        if (cache != null) {
+            attributes.addAll(cache.getAttributes());
         }
-        else {
-            finalSet = new Instances("testSet", attributes, 0);
-            dataMatrix = getTestDataMatrix();
+        int numOfCachedAttributes = attributes.size();
+        List<Column> addedColumns = new ArrayList<>();
+        for (int i=numOfCachedColumns; i<columns.size(); i++) {
+            Attribute att = createAttributeForClassifier(i);
+            if (att != null) {
+                attributes.add(att);
+                addedColumns.add(columns.get(i).getColumn());
+            }
         }
 
-        for (int i=0; i<dataMatrix[0].length; i++) {
-            double[] arr = new double[dataMatrix.length];
-            for (int j=0; j<dataMatrix.length; j++) {
-                arr[j] = dataMatrix[j][i];
+        Instances finalSet = new Instances(getTrainingSet ? "trainingSet" : "testSet", attributes, rows.length);
+        double[][] cachedValues = cache == null ? null : cache.getValues(getTrainingSet);
+        for (int i=0; i<rows.length; i++) {
+            //a new array is needed for every row, since Weka does not copy the values when it adds the instance
+            double[] arr = new double[attributes.size()];
+            if (cachedValues != null) {
+                System.arraycopy(cachedValues[i], 0, arr, 0, numOfCachedAttributes);
             }
-            DenseInstance di = new DenseInstance(1.0, arr);
-            finalSet.add(i, di);
+            for (int j=0; j<addedColumns.size(); j++) {
+                arr[numOfCachedAttributes + j] = addedColumns.get(j).getDouble(rows[i]);
+            }
+            finalSet.add(new DenseInstance(1.0, arr));
         }
-        finalSet.setClassIndex(targetColumnIndex-getNumberOfDateStringAndDistinctColumnsBeforeTargetClass());
-
         return finalSet;
     }
 
     /**
-     * Iterates over all the columns of the dataset object and returns those that can be
-     * included in the Instances object that will be fed to Weka (i.e. excluding the Date
-     * and String columns)
-     * @param attributes
+     * Returns the cached Weka attributes and values of the current columns of the dataset for a replica, creating them
+     * if needed. Returns null (without creating the cache) if the columns of the dataset are not the first columns of
+     * the replica
+     * @param replicaColumns the columns of the replica
+     * @return
      * @throws Exception
      */
-    private void getAttributesListForClassifier(ArrayList<Attribute> attributes) throws Exception {
-        for (int i =0; i< columns.size(); i++) {
-            ColumnInfo currentColumn = columns.get(i);
-
-            //The dataset will not include the distinct value columns, if they exist
-            if (this.distinctValColumns.contains(currentColumn)) {
-                continue;
+    private synchronized WekaInstancesCache getWekaInstancesCache(List<ColumnInfo> replicaColumns) throws Exception {
+        if (replicaColumns.size() < columns.size()) {
+            return null;
+        }
+        for (int i=0; i<columns.size(); i++) {
+            if (replicaColumns.get(i).getColumn() != columns.get(i).getColumn()) {
+                return null;
             }
-
-            Attribute att = null;
-            switch(currentColumn.getColumn().getType())
-            {
-                case Numeric:
-                    att = new Attribute(Integer.toString(i),i);
-                    break;
-                case Discrete:
-                    List<String> values = new ArrayList<>();
-                    int numOfDiscreteValues = ((DiscreteColumn)currentColumn.getColumn()).getNumOfPossibleValues();
-                    //if the number of distinct values exceeds the maximal amount, skip it
-                    if (numOfDiscreteValues > this.maxNumOFDiscreteValuesForInstancesObject) {
-                        break;
-                    }
-                    for (int j=0; j<numOfDiscreteValues; j++) { values.add(Integer.toString(j)); }
-                    att = new Attribute(Integer.toString(i), values, i);
-                    break;
-                case String:
-                    //Most classifiers can't handle Strings. Currently we don't include them in the dataset
-                    break;
-                case Date:
-                    //Currently we don't include them in the dataset. We don't have a way of handling "raw" dates
-                    break;
-                default:
-                    throw new Exception("unsupported column type");
+        }
+        WekaInstancesCache cache = wekaInstancesCache == null ? null : wekaInstancesCache.get();
+        if (cache == null || cache.getNumOfColumns() != columns.size() || !cache.isPrefixOf(columns)) {
+            List<Column> allColumns = new ArrayList<>();
+            List<Column> includedColumns = new ArrayList<>();
+            ArrayList<Attribute> attributes = new ArrayList<>();
+            for (int i=0; i<columns.size(); i++) {
+                allColumns.add(columns.get(i).getColumn());
+                Attribute att = createAttributeForClassifier(i);
+                if (att != null) {
+                    attributes.add(att);
+                    includedColumns.add(columns.get(i).getColumn());
+                }
             }
-            if (att != null) {
-                attributes.add(att);
+            cache = new WekaInstancesCache(allColumns, includedColumns, attributes, getRowsForClassifier(true), getRowsForClassifier(false));
+            wekaInstancesCache = new SoftReference<>(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Drops the cached Weka attributes and values of the dataset (see getWekaInstancesCache). They are created again
+     * if a replica of the dataset needs them
+     */
+    public synchronized void releaseWekaInstancesCache() {
+        wekaInstancesCache = null;
+    }
+
+    /**
+     * Returns the rows of the training or test set, in the order in which they are placed in the Instances object.
+     * If the dataset has distinct value columns, a single representative is returned for each distinct value combination
+     * @param getTrainingSet
+     * @return
+     */
+    private int[] getRowsForClassifier(boolean getTrainingSet) {
+        HashMap<List<String>, List<Integer>> distinctValMappings = getTrainingSet ? trainFoldDistinctValMappings : testFoldDistinctValMappings;
+        if (distinctValMappings != null && distinctValMappings.size() > 0) {
+            int[] rows = new int[distinctValMappings.size()];
+            int rowCounter = 0;
+            for (List<Integer> rowsOfValue : distinctValMappings.values()) {
+                rows[rowCounter++] = rowsOfValue.get(0);
             }
+            return rows;
+        }
+        return getTrainingSet ? indicesOfTrainingFolds.toArray() : indicesOfTestFolds.toArray();
+    }
+
+    /**
+     * Returns the Weka attribute of the column, or null if the column is not included in the Instances object that
+     * will be fed to Weka (Date and String columns, distinct value columns and discrete columns with too many values)
+     * @param columnIndex
+     * @return
+     * @throws Exception
+     */
+    private Attribute createAttributeForClassifier(int columnIndex) throws Exception {
+        ColumnInfo currentColumn = columns.get(columnIndex);
+
+        //The dataset will not include the distinct value columns, if they exist
+        if (this.distinctValColumns.contains(currentColumn)) {
+            return null;
+        }
+
+        switch(currentColumn.getColumn().getType())
+        {
+            case Numeric:
+                return new Attribute(Integer.toString(columnIndex),columnIndex);
+            case Discrete:
+                List<String> values = new ArrayList<>();
+                int numOfDiscreteValues = ((DiscreteColumn)currentColumn.getColumn()).getNumOfPossibleValues();
+                //if the number of distinct values exceeds the maximal amount, skip it
+                if (numOfDiscreteValues > this.maxNumOFDiscreteValuesForInstancesObject) {
+                    return null;
+                }
+                for (int j=0; j<numOfDiscreteValues; j++) { values.add(Integer.toString(j)); }
+                return new Attribute(Integer.toString(columnIndex), values, columnIndex);
+            case String:
+                //Most classifiers can't handle Strings. Currently we don't include them in the dataset
+                return null;
+            case Date:
+                //Currently we don't include them in the dataset. We don't have a way of handling "raw" dates
+                return null;
+            default:
+                throw new Exception("unsupported column type");
         }
     }
 
@@ -638,7 +746,7 @@ public class Dataset {
      * @param indicesList
      * @return
      */
-    public double[][] getDataMatrixByIndices(List<Integer> indicesList) {
+    public double[][] getDataMatrixByIndices(RowIndices indicesList) {
         //we distinct val column(s) is not included in the matrix
         double[][] data = new double[columns.size() - (this.distinctValColumns.size() + getNumberOfDateStringAndDistinctColumns())][indicesList.size()];
         int skippedColumnsCounter = 0;
@@ -649,14 +757,11 @@ public class Dataset {
                 continue;
             }
             int rowCounter = 0;
-            boolean isNumericColumn = columns.get(col).getColumn().getType().equals(Column.columnType.Numeric);
+            Column column = columns.get(col).getColumn();
 
-            for (int row : indicesList) {
-                if (isNumericColumn) {
-                    data[col-skippedColumnsCounter][rowCounter] = (Double) columns.get(col).getColumn().getValue(row); }
-                else {
-                    data[col-skippedColumnsCounter][rowCounter] = (Integer) columns.get(col).getColumn().getValue(row);
-                }
+            for (int rowIdx = 0; rowIdx < indicesList.size(); rowIdx++) {
+                int row = indicesList.get(rowIdx);
+                data[col-skippedColumnsCounter][rowCounter] = column.getDouble(row);
                 rowCounter++;
             }
         }
@@ -680,14 +785,11 @@ public class Dataset {
                 continue;
             }
             int rowCounter = 0;
-            boolean isNumericColumn = columns.get(col).getColumn().getType().equals(Column.columnType.Numeric);
+            Column column = columns.get(col).getColumn();
 
-            for (int row : indicesOfTrainingFolds) {
-                if (isNumericColumn) {
-                    data[col-skippedColumnsCounter][rowCounter] = (Double) columns.get(col).getColumn().getValue(row); }
-                else {
-                    data[col-skippedColumnsCounter][rowCounter] = (Integer) columns.get(col).getColumn().getValue(row);
-                }
+            for (int rowIdx = 0; rowIdx < indicesOfTrainingFolds.size(); rowIdx++) {
+                int row = indicesOfTrainingFolds.get(rowIdx);
+                data[col-skippedColumnsCounter][rowCounter] = column.getDouble(row);
                 rowCounter++;
             }
         }
@@ -710,14 +812,10 @@ public class Dataset {
                 continue;
             }
             int rowCounter = 0;
-            boolean isNumericColumn = columns.get(col).getColumn().getType().equals(Column.columnType.Numeric);
-            for (int row : indicesOfTestFolds) {
-                if (isNumericColumn) {
-                    data[col-skippedColumnsCounter][rowCounter] = (Double) columns.get(col).getColumn().getValue(row);
-                }
-                else {
-                    data[col-skippedColumnsCounter][rowCounter] = (Integer) columns.get(col).getColumn().getValue(row);
-                }
+            Column column = columns.get(col).getColumn();
+            for (int rowIdx = 0; rowIdx < indicesOfTestFolds.size(); rowIdx++) {
+                int row = indicesOfTestFolds.get(rowIdx);
+                data[col-skippedColumnsCounter][rowCounter] = column.getDouble(row);
                 rowCounter++;
             }
         }
@@ -739,16 +837,12 @@ public class Dataset {
                 continue;
             }
             int rowCounter = 0;
-            boolean isNumericColumn = columns.get(col).getColumn().getType().equals(Column.columnType.Numeric);
+            Column column = columns.get(col).getColumn();
 
             for (List<String> key : trainFoldDistinctValMappings.keySet()) {
                 //now we take a single representative from this group
                 int index = trainFoldDistinctValMappings.get(key).get(0);
-                if (isNumericColumn) {
-                    data[col-skippedColumnsCounter][rowCounter] = (Double) columns.get(col).getColumn().getValue(index); }
-                else {
-                    data[col-skippedColumnsCounter][rowCounter] = (Integer) columns.get(col).getColumn().getValue(index);
-                }
+                data[col-skippedColumnsCounter][rowCounter] = column.getDouble(index);
                 rowCounter++;
             }
         }
@@ -801,15 +895,11 @@ public class Dataset {
                 continue;
             }
             int rowCounter = 0;
-            boolean isNumericColumn = columns.get(col).getColumn().getType().equals(Column.columnType.Numeric);
+            Column column = columns.get(col).getColumn();
             for (List<String> key : testFoldDistinctValMappings.keySet()) {
                 //now we take a single representative from this group
                 int index = testFoldDistinctValMappings.get(key).get(0);
-                if (isNumericColumn) {
-                    data[col-skippedColumnsCounter][rowCounter] = (Double) columns.get(col).getColumn().getValue(index); }
-                else {
-                    data[col-skippedColumnsCounter][rowCounter] = (Integer) columns.get(col).getColumn().getValue(index);
-                }
+                data[col-skippedColumnsCounter][rowCounter] = column.getDouble(index);
                 rowCounter++;
             }
         }
@@ -845,7 +935,7 @@ public class Dataset {
                 newFoldsList.add(newFold);
             }
             //now that we have the folds, we can generate the Dataset object
-            Dataset subDataset = new Dataset(this.columns, newFoldsList,this.targetColumnIndex, this.name, this.numOfInstancesPerColumn, this.distinctValColumns, this.randomSeed, this.maxNumOFDiscreteValuesForInstancesObject);
+            Dataset subDataset = new Dataset(this.columns, newFoldsList,this.targetColumnIndex, this.name, this.numOfInstancesPerColumn, this.distinctValColumns, this.randomSeed, this.maxNumOFDiscreteValuesForInstancesObject, this.distinctValueGroups);
             trainingDatasets.add(subDataset);
         }
 
@@ -865,24 +955,11 @@ public class Dataset {
         }
 
         try {
-            HashMap<Object, Object> distinctValsDict = new HashMap<>();
-            HashMap<Object, Object> valuesMap = new HashMap<>();
-            for (int i = 0; i < indices.size(); i++) {
-                int j = indices.get(i);
-                List<Object> sourceValues = distinctValColumns.stream().map(c -> c.getColumn().getValue(j)).collect(Collectors.toList());
-                if (!distinctValsDict.containsKey(sourceValues)) {
-                    distinctValsDict.put(sourceValues, ci.getColumn().getValue(j));
-                } else {
-                    if (!distinctValsDict.get(sourceValues).equals(ci.getColumn().getValue(j))) {
-                        return false;
-                    }
-                }
-            }
+            return distinctValueGroups == null || distinctValueGroups.isSingleValuedWithinGroups(ci.getColumn(), indices);
         }
         catch (Exception ex) {
             throw new Exception("Error in isColumnDistinctValuesCompatibe");
         }
-        return true;
     }
 
     /**
@@ -919,6 +996,7 @@ public class Dataset {
         dataset.trainingIndicesByClass = this.trainingIndicesByClass;
         dataset.trainFoldDistinctValMappings = this.trainFoldDistinctValMappings;
         dataset.testFoldDistinctValMappings = this.testFoldDistinctValMappings;
+        dataset.distinctValueGroups = this.distinctValueGroups;
         dataset.trainFoldsDistinctValRepresentatives = this.trainFoldsDistinctValRepresentatives;
         dataset.testFoldsDistinctValRepresentatives = this.testFoldsDistinctValRepresentatives;
         dataset.distinctValueCompliantColumns = this.distinctValueCompliantColumns;
@@ -928,19 +1006,17 @@ public class Dataset {
     }
 
     /**
-     * Creates an exact replica of the dataset, except for the fact that it creates a new List of columns
+     * Creates an exact replica of the dataset, except for the fact that it creates a new view of the columns
      * instead of referencing to the existing list. This enables the addition of columns to this object without
-     * adding them to the original.
+     * adding them to the original (and without copying the columns list).
      * @return
      */
     public Dataset replicateDataset() {
         Dataset dataset = new Dataset();
 
-        //We need to create a new columns object and just reference the same objects
-        dataset.columns = new ArrayList<>();
-        for (ColumnInfo ci: this.columns) {
-            dataset.columns.add(ci);
-        }
+        //The replica shares the existing columns through a view. Columns added to the replica are not visible to this object
+        dataset.columns = new ColumnsView(this.columns);
+        dataset.instancesCacheSource = this;
 
         dataset.numOfInstancesPerColumn = this.numOfInstancesPerColumn;
         dataset.indices = this.indices;
@@ -957,6 +1033,7 @@ public class Dataset {
         dataset.trainingIndicesByClass = this.trainingIndicesByClass;
         dataset.trainFoldDistinctValMappings = this.trainFoldDistinctValMappings;
         dataset.testFoldDistinctValMappings = this.testFoldDistinctValMappings;
+        dataset.distinctValueGroups = this.distinctValueGroups;
         dataset.trainFoldsDistinctValRepresentatives = this.trainFoldsDistinctValRepresentatives;
         dataset.testFoldsDistinctValRepresentatives = this.testFoldsDistinctValRepresentatives;
         dataset.distinctValueCompliantColumns = this.distinctValueCompliantColumns;
@@ -975,7 +1052,7 @@ public class Dataset {
             newFoldsList.add(subFold);
         });
 
-        Dataset dataset = new Dataset(this.columns,newFoldsList,this.targetColumnIndex,this.name+"_subfold",this.numOfInstancesPerColumn,this.distinctValColumns,randomSeed,this.maxNumOFDiscreteValuesForInstancesObject);
+        Dataset dataset = new Dataset(this.columns,newFoldsList,this.targetColumnIndex,this.name+"_subfold",this.numOfInstancesPerColumn,this.distinctValColumns,randomSeed,this.maxNumOFDiscreteValuesForInstancesObject,this.distinctValueGroups);
         return dataset;
     }
 
@@ -1003,6 +1080,7 @@ public class Dataset {
         dataset.trainingIndicesByClass = this.trainingIndicesByClass;
         dataset.trainFoldDistinctValMappings = this.trainFoldDistinctValMappings;
         dataset.testFoldDistinctValMappings = this.testFoldDistinctValMappings;
+        dataset.distinctValueGroups = this.distinctValueGroups;
         dataset.trainFoldsDistinctValRepresentatives = this.trainFoldsDistinctValRepresentatives;
         dataset.testFoldsDistinctValRepresentatives = this.testFoldsDistinctValRepresentatives;
         dataset.distinctValueCompliantColumns = this.distinctValueCompliantColumns;
@@ -1024,7 +1102,7 @@ public class Dataset {
      * Returns a single indice for each distinct values combination in the training folds
      * @return
      */
-    public List<Integer> getTrainFoldsDistinctValRepresentatives() {
+    public RowIndices getTrainFoldsDistinctValRepresentatives() {
         return trainFoldsDistinctValRepresentatives;
     }
 
@@ -1032,7 +1110,7 @@ public class Dataset {
      * Returns a single indice for each distinct values combination in the test folds
      * @return
      */
-    public List<Integer> getTestFoldsDistinctValRepresentatives() {
+    public RowIndices getTestFoldsDistinctValRepresentatives() {
         return testFoldsDistinctValRepresentatives;
     }
 
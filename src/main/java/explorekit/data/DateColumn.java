@@ -1,26 +1,25 @@
 package explorekit.data;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
-import java.util.TreeMap;
 
 /**
+ * The values are kept as epoch milliseconds. Since this type of columns is used for sliding window attribute generation,
+ * we also need to be able to go over the rows by their time. This is done with a permutation of the row indices which
+ * is sorted by time (rows with the same time are ordered by their index). The permutation is built only when it is
+ * first requested and is discarded whenever a value is changed.
+ *
  * Created by giladkatz on 02/04/2016.
  */
 public class DateColumn implements Column,Serializable {
-    private Date[] values;
+    private long[] values;
     String dateFomat;
 
-    /**
-     * This map is required as this type of columns is used for sliding window attribute generation.
-     * Since this is the case, we need to be able to sort by it.
-     */
-    private TreeMap<Date, List<Integer>> indicesByDate = new TreeMap<>();
+    private transient volatile int[] sortedIndices;
 
     public DateColumn(int size, String dateFomat) {
-        values = new Date[size];
+        values = new long[size];
         this.dateFomat = dateFomat;
     }
 
@@ -30,17 +29,33 @@ public class DateColumn implements Column,Serializable {
 
     @Override
     public Object getValue(int i) {
+        return new Date(values[i]);
+    }
+
+    @Override
+    public double getDouble(int i) { throw new UnsupportedOperationException("Date columns are only accessible as epoch milliseconds"); }
+
+    @Override
+    public int getInt(int i) { throw new UnsupportedOperationException("Date columns are only accessible as epoch milliseconds"); }
+
+    @Override
+    public long getLong(int i) {
         return values[i];
     }
 
     @Override
     public void setValue(int i, Object obj) {
-        Date val = (Date)obj;
-        values[i] = val;
-        if (!indicesByDate.containsKey(val)) {
-            indicesByDate.put(val, new ArrayList<>());
-        }
-        indicesByDate.get(val).add(i);
+        setValue(i, ((Date)obj).getTime());
+    }
+
+    /**
+     * Sets the value of the row without creating a Date object
+     * @param i
+     * @param time epoch milliseconds
+     */
+    public void setValue(int i, long time) {
+        values[i] = time;
+        sortedIndices = null;
     }
 
     @Override
@@ -53,9 +68,99 @@ public class DateColumn implements Column,Serializable {
         return columnType.Date;
     }
 
-    public TreeMap<Date, List<Integer>> getIndicesByDate() {
-        return this.indicesByDate;
+    /**
+     * Returns the indices of all the rows of the column, sorted by time. The returned array must not be modified
+     * @return
+     */
+    public int[] getSortedIndices() {
+        int[] indices = sortedIndices;
+        if (indices == null) {
+            synchronized (this) {
+                indices = sortedIndices;
+                if (indices == null) {
+                    indices = sortIndicesByTime();
+                    sortedIndices = indices;
+                }
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the position in getSortedIndices() of the first row whose time is equal to or later than the given time
+     * (or the number of rows if there is no such row)
+     * @param time epoch milliseconds
+     * @return
+     */
+    public int getFirstPositionAtOrAfter(long time) {
+        int[] indices = getSortedIndices();
+        int low = 0;
+        int high = indices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[indices[mid]] < time) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the indices of the rows whose time is in [fromTime, toTime), sorted by time
+     * @param fromTime epoch milliseconds (inclusive)
+     * @param toTime epoch milliseconds (exclusive)
+     * @return
+     */
+    public int[] getIndicesInRange(long fromTime, long toTime) {
+        if (toTime <= fromTime) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(getSortedIndices(), getFirstPositionAtOrAfter(fromTime), getFirstPositionAtOrAfter(toTime));
     }
 
     public Object getValues() {return values;}
+
+    /**
+     * Returns the backing array of the column (not a copy). Values written directly into the array are not reflected
+     * in an already built sorted index, so this should only be used to populate a new column
+     * @return
+     */
+    public long[] getLongValues() {return values;}
+
+    /**
+     * A stable merge sort of the row indices by their values, which avoids boxing the indices
+     * @return
+     */
+    private int[] sortIndicesByTime() {
+        int[] indices = new int[values.length];
+        for (int i=0; i<indices.length; i++) {
+            indices[i] = i;
+        }
+        int[] buffer = new int[indices.length];
+        for (int width=1; width<indices.length; width*=2) {
+            for (int start=0; start<indices.length; start+=2*width) {
+                int mid = Math.min(start + width, indices.length);
+                int end = Math.min(start + 2*width, indices.length);
+                int left = start;
+                int right = mid;
+                int k = start;
+                while (left < mid && right < end) {
+                    buffer[k++] = values[indices[right]] < values[indices[left]] ? indices[right++] : indices[left++];
+                }
+                while (left < mid) {
+                    buffer[k++] = indices[left++];
+                }
+                while (right < end) {
+                    buffer[k++] = indices[right++];
+                }
+            }
+            int[] temp = indices;
+            indices = buffer;
+            buffer = temp;
+        }
+        return indices;
+    }
 }
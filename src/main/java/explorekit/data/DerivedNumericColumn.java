@@ -0,0 +1,86 @@
+package explorekit.data;
+
+/**
+ * A numeric column whose values are computed on demand from other columns (e.g. Add(colA, colB) or
+ * StandardScore(colX)) instead of being stored. The value of a row of the dataset the column was generated for is
+ * computed by the row function whenever it is read, and the other rows are 0 (like the rows a generated NumericColumn
+ * does not set). Candidate attributes are mostly read once or twice by the filter evaluators and then discarded, so
+ * they don't need a full-length array of their own. Before the attribute is added to a dataset for the wrapper
+ * evaluation or to the final set of attributes, it is materialized into a NumericColumn (see ColumnInfo.materialize).
+ *
+ * The column is read-only.
+ */
+public class DerivedNumericColumn implements Column {
+
+    /**
+     * Computes the value of a row of the column
+     */
+    public interface RowFunction {
+        double apply(int row);
+    }
+
+    private final int numOfInstances;
+    private final RowIndices rows;
+    private final RowFunction function;
+
+    /**
+     * @param numOfInstances the length of the column
+     * @param rows the rows for which the values are computed (the indices of the dataset)
+     * @param function
+     */
+    public DerivedNumericColumn(int numOfInstances, RowIndices rows, RowFunction function) {
+        this.numOfInstances = numOfInstances;
+        this.rows = rows;
+        this.function = function;
+    }
+
+    public Object getValue(int i) {
+        return getDouble(i);
+    }
+
+    public double getDouble(int i) {
+        return rows.contains(i) ? function.apply(i) : 0;
+    }
+
+    /**
+     * Returns the value truncated toward zero, like NumericColumn.getInt
+     * @param i
+     * @return
+     */
+    public int getInt(int i) { return (int)getDouble(i); }
+
+    public long getLong(int i) { return (long)getDouble(i); }
+
+    public void setValue(int i, Object obj) {
+        throw new UnsupportedOperationException("derived columns are read-only, the column needs to be materialized first");
+    }
+
+    public columnType getType() {return columnType.Numeric;}
+
+    public int getNumOfInstances() {
+        return numOfInstances;
+    }
+
+    /**
+     * Returns the values of the column in a new array, which is not kept by the column
+     * @return
+     */
+    public Object getValues() {
+        return materialize().getDoubleValues();
+    }
+
+    /**
+     * Computes the values of all the rows into a new NumericColumn
+     * @return
+     */
+    public NumericColumn materialize() {
+        NumericColumn column = new NumericColumn(numOfInstances);
+        double[] values = column.getDoubleValues();
+        int[] indices = rows.getArray();
+        for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+            int j = indices[i];
+            values[j] = function.apply(j);
+        }
+        return column;
+    }
+}
@@ -18,10 +18,20 @@ public class DiscreteColumn implements Column,Serializable {
 
     public Object getValue(int i) { return values[i]; }
 
+    public double getDouble(int i) { return values[i]; }
+
+    public int getInt(int i) { return values[i]; }
+
+    public long getLong(int i) { return values[i]; }
+
     public void setValue(int i, Object obj) {
         values[i] = (Integer)obj;
     }
 
+    public void setValue(int i, int v) {
+        values[i] = v;
+    }
+
     public columnType getType() {return columnType.Discrete;}
 
     public int getNumOfInstances() {
@@ -34,4 +44,10 @@ public class DiscreteColumn implements Column,Serializable {
 
     public Object getValues() {return values;}
 
+    /**
+     * Returns the backing array of the column (not a copy), so callers can scan it without boxing
+     * @return
+     */
+    public int[] getIntValues() {return values;}
+
 }
@@ -0,0 +1,97 @@
+package explorekit.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Assigns every row of a dataset with distinct value columns a dense group id, where the rows of a group are those
+ * that have the same values in all the distinct value columns. The index is built once (when the dataset is created)
+ * and is shared by all the replicas of the dataset, so checking whether a column adheres to the distinct value
+ * requirement (every group has a single value in the column) is a single primitive pass over the rows.
+ */
+public class DistinctValueGroups {
+    private final int[] groupOfRow;
+    private final int numOfGroups;
+
+    /**
+     * @param distinctValColumns
+     * @param numOfRows the number of rows in the columns
+     */
+    public DistinctValueGroups(List<ColumnInfo> distinctValColumns, int numOfRows) {
+        groupOfRow = new int[numOfRows];
+        if (distinctValColumns.stream().allMatch(c -> c.getColumn().getType() == Column.columnType.Discrete || c.getColumn().getType() == Column.columnType.String)) {
+            //the values of discrete and string columns are int codes, so the rows are grouped by the codes
+            GroupKeyEncoder encoder = new GroupKeyEncoder(distinctValColumns);
+            for (int i=0; i<numOfRows; i++) {
+                groupOfRow[i] = encoder.encode(i);
+            }
+            numOfGroups = encoder.getNumOfGroups();
+        }
+        else {
+            HashMap<List<Object>, Integer> groups = new HashMap<>();
+            for (int i=0; i<numOfRows; i++) {
+                final int j = i;
+                List<Object> key = new ArrayList<>(distinctValColumns.size());
+                distinctValColumns.forEach(c -> key.add(c.getColumn().getValue(j)));
+                Integer group = groups.get(key);
+                if (group == null) {
+                    group = groups.size();
+                    groups.put(key, group);
+                }
+                groupOfRow[i] = group;
+            }
+            numOfGroups = groups.size();
+        }
+    }
+
+    public int getGroup(int row) {
+        return groupOfRow[row];
+    }
+
+    public int getNumOfGroups() {
+        return numOfGroups;
+    }
+
+    /**
+     * Returns true if all the given rows of every group have the same value in the column
+     * @param column
+     * @param rows
+     * @return
+     */
+    public boolean isSingleValuedWithinGroups(Column column, RowIndices rows) {
+        long[] firstValues = new long[numOfGroups];
+        BitSet seenGroups = new BitSet(numOfGroups);
+        for (int i=0; i<rows.size(); i++) {
+            int row = rows.get(i);
+            int group = groupOfRow[row];
+            long value = getComparableValue(column, row);
+            if (!seenGroups.get(group)) {
+                seenGroups.set(group);
+                firstValues[group] = value;
+            }
+            else if (firstValues[group] != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a long which is equal for two rows if and only if their values are equal (as defined by equals() of the values)
+     * @param column
+     * @param row
+     * @return
+     */
+    private static long getComparableValue(Column column, int row) {
+        switch (column.getType()) {
+            case Numeric:
+                return Double.doubleToLongBits(column.getDouble(row));
+            case Date:
+                return column.getLong(row);
+            default:
+                return column.getInt(row);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package explorekit.data;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
@@ -11,20 +13,20 @@ import java.util.stream.IntStream;
  * Created by giladkatz on 16/02/2016.
  */
 public class Fold {
-    private List<Integer> indices;
+    private RowIndices indices;
     private int[] numInstancesPerClass;
-    private List<Integer>[] indicesByClass;
+    private RowIndices[] indicesByClass;
     private int numOfInstancesInFold = 0;
     private boolean isTestFold;
     private HashMap<List<String>, List<Integer>> distinctValMappings = new HashMap<>();
 
     public Fold(int numOfClasses, boolean isTestFold) {
-        this.indices = new ArrayList<>();
+        this.indices = new RowIndices();
         this.numInstancesPerClass = new int[numOfClasses];
-        this.indicesByClass = new List[numOfClasses];
+        this.indicesByClass = new RowIndices[numOfClasses];
         for (int i=0; i<numOfClasses; i++) {
             this.numInstancesPerClass[i] = 0;
-            this.indicesByClass[i] = new ArrayList<>();
+            this.indicesByClass[i] = new RowIndices();
         }
         this.isTestFold = isTestFold;
     }
@@ -48,11 +50,13 @@ public class Fold {
         Random random = new Random(randomSeed);
         for (int i=0; i<numInstancesPerClass.length;i++) {
             if (this.distinctValMappings.size() == 0) {
-                List<Integer> selectedIndicesPerClass = new ArrayList<>();
-                while (selectedIndicesPerClass.size() < requiredNumOfSamplesPerClass[i]) {
+                BitSet selectedIndicesPerClass = new BitSet();
+                int numOfSelectedIndices = 0;
+                while (numOfSelectedIndices < requiredNumOfSamplesPerClass[i]) {
                     int instanceIndex = indicesByClass[i].get(random.nextInt(indicesByClass[i].size()));
-                    if (!selectedIndicesPerClass.contains(instanceIndex)) {
-                        selectedIndicesPerClass.add(instanceIndex);
+                    if (!selectedIndicesPerClass.get(instanceIndex)) {
+                        selectedIndicesPerClass.set(instanceIndex);
+                        numOfSelectedIndices++;
                         subFold.addInstance(instanceIndex, i);
                     }
                 }
@@ -63,7 +67,7 @@ public class Fold {
                     keySetValues[counter] = key;
                     counter++;
                 }
-                List<List<String>> selectedIndicesPerClass = new ArrayList<>();
+                Set<List<String>> selectedIndicesPerClass = new HashSet<>();
                 while (selectedIndicesPerClass.size() < requiredNumOfSamplesPerClass[i]) {
                     List<String> distictValKey = keySetValues[random.nextInt(keySetValues.length)];
                     if (!selectedIndicesPerClass.contains(distictValKey) && indicesByClass[i].contains(distinctValMappings.get(distictValKey).get(0))) {
@@ -154,15 +158,15 @@ public class Fold {
      * @param classIdx
      * @return
      */
-    public List<Integer> getIndicesPerClass(int classIdx) {
+    public RowIndices getIndicesPerClass(int classIdx) {
         return this.indicesByClass[classIdx];
     }
 
-    public List<Integer>[] getIndicesPerClass() {
+    public RowIndices[] getIndicesPerClass() {
         return this.indicesByClass;
     }
 
-    public void setIndicesPerClass(List<Integer>[] indicesByClass) {
+    public void setIndicesPerClass(RowIndices[] indicesByClass) {
         this.indicesByClass = indicesByClass;
     }
 
@@ -199,7 +203,7 @@ public class Fold {
      * Returns all the indices in the fold
      * @return
      */
-    public List<Integer> getIndices() {
+    public RowIndices getIndices() {
         return indices;
     }
 
@@ -207,7 +211,7 @@ public class Fold {
      * Sets the indices of the fold
      * @param indices
      */
-    public void setIndices(List<Integer> indices) {
+    public void setIndices(RowIndices indices) {
         this.indices = indices;
     }
 
@@ -0,0 +1,258 @@
+package explorekit.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps the combination of values that a row has in one or more columns to a dense group id (0, 1, 2...), in the
+ * order in which the combinations are first encountered. This replaces the List<Integer> keys that were built for
+ * every row when grouping rows by multiple columns, and allows the per-group data to be kept in primitive arrays.
+ *
+ * The values are read through getInt(). When the number of possible values of every column is known (discrete
+ * columns) the values are combined into a single mixed-radix code, which is mapped to a group id through a direct
+ * lookup table (if the number of possible codes is small) or through a primitive hash map. Every column has one more
+ * digit than its number of possible values, which is reserved for missing or out of range values (e.g. -1).
+ * Otherwise (or if the code does not fit into a long) the columns are densified one after the other: the group id of
+ * the first k columns is combined with the value of column k+1 and mapped into the group id of the first k+1 columns.
+ * In both cases, all the values of a column that are outside of its possible values fall into the same group.
+ */
+public class GroupKeyEncoder {
+    //mixed-radix codes smaller than this are mapped through a direct lookup table
+    private static final int MAX_DIRECT_TABLE_SIZE = 1 << 16;
+
+    private final Column[] columns;
+    private final int[] cardinalities;
+    private final long[] strides;
+    private long maxNumOfGroups = Long.MAX_VALUE;
+    private int numOfGroups = 0;
+
+    //only one of the following is used, depending on the columns
+    private int[] directTable;
+    private LongIntHashMap codeMap;
+    private LongIntHashMap[] chainedMaps;
+
+    public GroupKeyEncoder(List<ColumnInfo> columnInfos) {
+        int numOfColumns = columnInfos.size();
+        columns = new Column[numOfColumns];
+        cardinalities = new int[numOfColumns];
+        strides = new long[numOfColumns];
+
+        boolean allCardinalitiesKnown = true;
+        for (int i=0; i<numOfColumns; i++) {
+            columns[i] = columnInfos.get(i).getColumn();
+            cardinalities[i] = getCardinality(columns[i]);
+            allCardinalitiesKnown &= cardinalities[i] >= 0;
+        }
+
+        //compute the strides of the mixed-radix code (the last column changes fastest), stopping on overflow
+        long numOfCodes = 1;
+        boolean overflow = !allCardinalitiesKnown;
+        for (int i=numOfColumns-1; i>=0 && !overflow; i--) {
+            strides[i] = numOfCodes;
+            //the additional value is the reserved bucket of the column
+            long radix = cardinalities[i] + 1L;
+            if (numOfCodes > Long.MAX_VALUE / radix) {
+                overflow = true;
+            }
+            else {
+                numOfCodes *= radix;
+            }
+        }
+
+        if (!overflow && numOfCodes <= MAX_DIRECT_TABLE_SIZE) {
+            directTable = new int[(int) numOfCodes];
+            Arrays.fill(directTable, -1);
+            maxNumOfGroups = numOfCodes;
+        }
+        else if (!overflow || numOfColumns == 1) {
+            //a single column of unknown cardinality is simply keyed by its value
+            strides[numOfColumns-1] = 1;
+            codeMap = new LongIntHashMap();
+            if (!overflow) {
+                maxNumOfGroups = numOfCodes;
+            }
+        }
+        else {
+            chainedMaps = new LongIntHashMap[numOfColumns];
+            for (int i=0; i<numOfColumns; i++) {
+                chainedMaps[i] = new LongIntHashMap();
+            }
+        }
+    }
+
+    /**
+     * Returns the group id of the row. If the combination of values was not encountered before, a new group is created
+     * @param row
+     * @return
+     */
+    public int encode(int row) {
+        if (directTable != null) {
+            int code = (int) getCode(row);
+            int group = directTable[code];
+            if (group == -1) {
+                group = numOfGroups++;
+                directTable[code] = group;
+            }
+            return group;
+        }
+        if (codeMap != null) {
+            int group = codeMap.getOrAdd(getCode(row), numOfGroups);
+            if (group == numOfGroups) {
+                numOfGroups++;
+            }
+            return group;
+        }
+        //the values of the first column are densified too, so that every value (including -1) is a valid key
+        int group = 0;
+        for (int i=0; i<columns.length; i++) {
+            LongIntHashMap map = chainedMaps[i];
+            group = map.getOrAdd(combine(group, getValue(i, row)), map.size());
+        }
+        numOfGroups = chainedMaps[columns.length-1].size();
+        return group;
+    }
+
+    /**
+     * Returns the group id of the row, or -1 if its combination of values was not encountered by encode()
+     * @param row
+     * @return
+     */
+    public int lookup(int row) {
+        if (directTable != null) {
+            return directTable[(int) getCode(row)];
+        }
+        if (codeMap != null) {
+            return codeMap.get(getCode(row));
+        }
+        int group = 0;
+        for (int i=0; i<columns.length && group != -1; i++) {
+            group = chainedMaps[i].get(combine(group, getValue(i, row)));
+        }
+        return group;
+    }
+
+    /**
+     * The number of groups created so far
+     * @return
+     */
+    public int getNumOfGroups() {
+        return numOfGroups;
+    }
+
+    /**
+     * An upper bound on the number of groups (the number of possible combinations of values, if it is known)
+     * @return
+     */
+    public long getMaxNumOfGroups() {
+        return maxNumOfGroups;
+    }
+
+    private long getCode(int row) {
+        long code = 0;
+        for (int i=0; i<columns.length; i++) {
+            code += getValue(i, row) * strides[i];
+        }
+        return code;
+    }
+
+    /**
+     * Returns the value of the row in the i-th column. A value outside of the possible values of the column (e.g. a
+     * missing value) is replaced by the reserved bucket of the column, which is the number of possible values
+     * @param i
+     * @param row
+     * @return
+     */
+    private int getValue(int i, int row) {
+        int value = columns[i].getInt(row);
+        if (cardinalities[i] >= 0 && (value < 0 || value >= cardinalities[i])) {
+            return cardinalities[i];
+        }
+        return value;
+    }
+
+    private static long combine(int group, int value) {
+        return ((long) group << 32) | (value & 0xffffffffL);
+    }
+
+    private static int getCardinality(Column column) {
+        if (column.getType() == Column.columnType.Discrete) {
+            return ((DiscreteColumn) column).getNumOfPossibleValues();
+        }
+        return -1;
+    }
+
+    /**
+     * An open-addressing map from long keys to non-negative int values
+     */
+    private static class LongIntHashMap {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int size = 0;
+
+        LongIntHashMap() {
+            Arrays.fill(values, -1);
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != -1) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the value of the key, or inserts the key with the given value if it does not exist
+         */
+        int getOrAdd(long key, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (values[slot] != -1) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            int mask = keys.length - 1;
+            for (int i=0; i<oldKeys.length; i++) {
+                if (oldValues[i] != -1) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (values[slot] != -1) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -42,45 +42,119 @@ public class Loader {
             System.out.println("num of instances:  " + data.numInstances());
 
             //Begin by iterating over the columns and generating the corresponding objects
-            List<ColumnInfo> columns = processHeader(structure, data.numInstances(),classAttIndex);
+            List<ColumnInfo> columns = processHeader(structure, data.numInstances());
 
             //now we process the data itself and populate the columns
             processData(data, columns);
 
-            //Next, we generate the folds
-            //We only need the target attribute column to determine the folds (in case we use stratified sampling)
-            int targetClassColumnIndex = classAttIndex;
-            if (classAttIndex == -1) {
-                targetClassColumnIndex = columns.size()-1;
-            }
-            List<Fold> folds;
-            if (distinctValIndices == null) {
-                folds = GenerateFolds(columns.get(targetClassColumnIndex), randomSeed, trainingSetPercentageOfDataset);
-            }
-            else {
-                folds = GenerateFoldsWithDistinctValues(columns.get(targetClassColumnIndex), randomSeed, trainingSetPercentageOfDataset,distinctValIndices,columns);
-            }
+            return createDataset(columns, structure.relationName(), data.numInstances(), randomSeed, distinctValIndices,
+                    classAttIndex, trainingSetPercentageOfDataset, properties);
+        } catch (Exception e) {
+            Throwables.propagate(e);
+        }
 
-            List<ColumnInfo> distinctValColumnInfos = new ArrayList<>();
-            if (distinctValIndices != null) {
-                for (int distinctColumnIndex : distinctValIndices) {
-                    distinctValColumnInfos.add(columns.get(distinctColumnIndex));
-                }
-            }
 
-            //Fially, we can create the Dataset object
-            Dataset dataset = new Dataset(columns, folds, targetClassColumnIndex, structure.relationName() + "_" + Integer.toString(randomSeed),
-                    data.numInstances(), distinctValColumnInfos, randomSeed, Integer.parseInt(properties.getProperty("maxNumberOfDiscreteValuesForInclusionInSet")));
+        return  null;
+    }
+
+    /**
+     * Loads an ARFF file without going through Weka's Instances object. The file is memory-mapped and parsed in
+     * parallel chunks directly into the columns, so the peak memory is roughly the size of the columns themselves.
+     * The created Dataset is identical to the one created by readArff (sparse ARFF files are not supported)
+     * @param filePath
+     * @param randomSeed
+     * @param distinctValIndices
+     * @param classAttIndex
+     * @param trainingSetPercentageOfDataset
+     * @return
+     * @throws Exception
+     */
+    public Dataset readArffFile(String filePath, int randomSeed, List<Integer> distinctValIndices, int classAttIndex, double trainingSetPercentageOfDataset) throws Exception {
+        Properties properties = new Properties();
+        InputStream input = this.getClass().getClassLoader().getResourceAsStream("config.properties");
+        properties.load(input);
+
+        MappedFileParser parser = new MappedFileParser(filePath, Integer.parseInt(properties.getProperty("numOfThreads")));
+        parser.parseArff();
 
+        System.out.println("num of attributes:  " + parser.getColumns().size());
+        System.out.println("num of instances:  " + parser.getNumOfInstances());
 
+        return createDataset(parser.getColumns(), parser.getRelationName(), parser.getNumOfInstances(), randomSeed, distinctValIndices,
+                classAttIndex, trainingSetPercentageOfDataset, properties);
+    }
 
-            return dataset;
-        } catch (Exception e) {
-            Throwables.propagate(e);
+    /**
+     * Loads a CSV file whose first line contains the names of the columns. The file is parsed in the same way as
+     * in readArffFile. Since CSV files have no header, the types of the columns are inferred from their values:
+     * columns in which all the values are numbers are numeric, the class column and columns with up to
+     * maxNumberOfDiscreteValuesForInclusionInSet distinct values are discrete and the rest are string columns.
+     * The name of the dataset is the name of the file
+     * @param filePath
+     * @param randomSeed
+     * @param distinctValIndices
+     * @param classAttIndex
+     * @param trainingSetPercentageOfDataset
+     * @return
+     * @throws Exception
+     */
+    public Dataset readCsvFile(String filePath, int randomSeed, List<Integer> distinctValIndices, int classAttIndex, double trainingSetPercentageOfDataset) throws Exception {
+        Properties properties = new Properties();
+        InputStream input = this.getClass().getClassLoader().getResourceAsStream("config.properties");
+        properties.load(input);
+
+        MappedFileParser parser = new MappedFileParser(filePath, Integer.parseInt(properties.getProperty("numOfThreads")));
+        parser.parseCsv(classAttIndex, Integer.parseInt(properties.getProperty("maxNumberOfDiscreteValuesForInclusionInSet")));
+
+        System.out.println("num of attributes:  " + parser.getColumns().size());
+        System.out.println("num of instances:  " + parser.getNumOfInstances());
+
+        return createDataset(parser.getColumns(), parser.getRelationName(), parser.getNumOfInstances(), randomSeed, distinctValIndices,
+                classAttIndex, trainingSetPercentageOfDataset, properties);
+    }
+
+    /**
+     * Creates the Dataset object from the loaded columns: marks the target class column, assigns the instances to
+     * the folds (proportionally by class) and sets the distinct values columns
+     * @param columns
+     * @param relationName
+     * @param numOfInstances
+     * @param randomSeed
+     * @param distinctValIndices
+     * @param classAttIndex
+     * @param trainingSetPercentageOfDataset
+     * @param properties
+     * @return
+     * @throws Exception
+     */
+    private Dataset createDataset(List<ColumnInfo> columns, String relationName, int numOfInstances, int randomSeed, List<Integer> distinctValIndices,
+                                  int classAttIndex, double trainingSetPercentageOfDataset, Properties properties) throws Exception {
+        //We only need the target attribute column to determine the folds (in case we use stratified sampling)
+        int targetClassColumnIndex = classAttIndex;
+        if (classAttIndex == -1) {
+            targetClassColumnIndex = columns.size()-1;
         }
+        columns.get(targetClassColumnIndex).SetTargetClassValue(true);
 
+        //Next, we generate the folds
+        List<Fold> folds;
+        if (distinctValIndices == null) {
+            folds = GenerateFolds(columns.get(targetClassColumnIndex), randomSeed, trainingSetPercentageOfDataset);
+        }
+        else {
+            folds = GenerateFoldsWithDistinctValues(columns.get(targetClassColumnIndex), randomSeed, trainingSetPercentageOfDataset,distinctValIndices,columns);
+        }
 
-        return  null;
+        List<ColumnInfo> distinctValColumnInfos = new ArrayList<>();
+        if (distinctValIndices != null) {
+            for (int distinctColumnIndex : distinctValIndices) {
+                distinctValColumnInfos.add(columns.get(distinctColumnIndex));
+            }
+        }
+
+        //Fially, we can create the Dataset object
+        return new Dataset(columns, folds, targetClassColumnIndex, relationName + "_" + Integer.toString(randomSeed),
+                numOfInstances, distinctValColumnInfos, randomSeed, Integer.parseInt(properties.getProperty("maxNumberOfDiscreteValuesForInclusionInSet")));
     }
 
     /**
@@ -126,9 +200,9 @@ public class Loader {
         int numOfClasses = ((DiscreteColumn)targetColumnInfo.getColumn()).getNumOfPossibleValues();
 
         //Store the indices of the instances, partitioned by their class
-        ArrayList<ArrayList<Integer>> itemIndicesByClass = new ArrayList<ArrayList<Integer>>();
+        RowIndices[] itemIndicesByClass = new RowIndices[numOfClasses];
         for (int i = 0; i < numOfClasses; i++) {
-            itemIndicesByClass.add(new ArrayList<Integer>());
+            itemIndicesByClass[i] = new RowIndices();
         }
 
         //one item index refers to all the indices of the other items of the same value
@@ -137,38 +211,56 @@ public class Loader {
         for (int colIdx : distinctValIndices) {
             distinctValColumns.add(columns.get(colIdx));
         }
-        for (int i =0; i<targetColumnInfo.getColumn().getNumOfInstances(); i++) {
-            final int j = i;
-            List<String> sourceValues = distinctValColumns.stream().map(c -> c.getColumn().getValue(j).toString()).collect(Collectors.toList());
-            if (!distinctValMappings.containsKey(sourceValues)) {
-                distinctValMappings.put(sourceValues, new ArrayList<>());
+        if (distinctValColumns.stream().allMatch(c -> c.getColumn().getType() == Column.columnType.Discrete || c.getColumn().getType() == Column.columnType.String)) {
+            //the values of discrete and string columns are int codes, so the rows are grouped by their codes and the key of a group is only created for its first row
+            GroupKeyEncoder encoder = new GroupKeyEncoder(distinctValColumns);
+            List<List<Integer>> indicesPerGroup = new ArrayList<>();
+            for (int i =0; i<targetColumnInfo.getColumn().getNumOfInstances(); i++) {
+                int group = encoder.encode(i);
+                if (group == indicesPerGroup.size()) {
+                    final int j = i;
+                    List<String> sourceValues = distinctValColumns.stream().map(c -> c.getColumn().getValue(j).toString()).collect(Collectors.toList());
+                    List<Integer> groupIndices = new ArrayList<>();
+                    distinctValMappings.put(sourceValues, groupIndices);
+                    indicesPerGroup.add(groupIndices);
+                }
+                indicesPerGroup.get(group).add(i);
+            }
+        }
+        else {
+            for (int i =0; i<targetColumnInfo.getColumn().getNumOfInstances(); i++) {
+                final int j = i;
+                List<String> sourceValues = distinctValColumns.stream().map(c -> c.getColumn().getValue(j).toString()).collect(Collectors.toList());
+                if (!distinctValMappings.containsKey(sourceValues)) {
+                    distinctValMappings.put(sourceValues, new ArrayList<>());
+                }
+                distinctValMappings.get(sourceValues).add(i);
             }
-            distinctValMappings.get(sourceValues).add(i);
         }
 
         //Now we have the lines grouped by their distinct values. We now need to select a single represetative
 
         for (List<String> val : distinctValMappings.keySet()) {
             int firstItemIndex = distinctValMappings.get(val).get(0);
-            int instanceClass = (Integer) targetColumnInfo.getColumn().getValue(firstItemIndex);
-            itemIndicesByClass.get(instanceClass).add(firstItemIndex);
+            int instanceClass = targetColumnInfo.getColumn().getInt(firstItemIndex);
+            itemIndicesByClass[instanceClass].add(firstItemIndex);
         }
 
         //Now we calculate the number of instances from each class we want to assign to fold
         int numOfFolds = Integer.parseInt(properties.getProperty("numOfFolds"));
         double[] maxNumOfInstancesPerTrainingClassPerFold = new double[numOfClasses];
         double[] maxNumOfInstancesPerTestClassPerFold = new double[numOfClasses];
-        for (int i=0; i< itemIndicesByClass.size(); i++)
+        for (int i=0; i< itemIndicesByClass.length; i++)
         {
             //If the training set overall size (in percentages) is predefined, use it. Otherwise, just create equal folds
             if (trainingSetPercentage == -1) {
-                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass.get(i).size()/numOfFolds;
-                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass.get(i).size()/numOfFolds;
+                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass[i].size()/numOfFolds;
+                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass[i].size()/numOfFolds;
             }
             else {
                 //The total number of instances, multipllied by the training percentage and then divided by the number of the TRAINING folds
-                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass.get(i).size() * trainingSetPercentage /(numOfFolds-1);
-                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass.get(i).size() - maxNumOfInstancesPerTrainingClassPerFold[i];
+                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass[i].size() * trainingSetPercentage /(numOfFolds-1);
+                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass[i].size() - maxNumOfInstancesPerTrainingClassPerFold[i];
             }
 
         }
@@ -188,28 +280,30 @@ public class Loader {
         //for (int i=0; i < targetColumnInfo.getColumn().getNumOfInstances(); i++) {
         for (List<String> key: distinctValMappings.keySet()) {
             int i = distinctValMappings.get(key).get(0);
-            int instanceClass = (Integer)targetColumnInfo.getColumn().getValue(i);
+            int instanceClass = targetColumnInfo.getColumn().getInt(i);
 
             boolean foundAssignment = false;
-            List<String> exploredIndices = new ArrayList<>();
+            boolean[] exploredIndices = new boolean[numOfFolds];
+            int numOfExploredIndices = 0;
             while (!foundAssignment) {
                 //We now randomly sample a fold and see whether the instance can be assigned to it. If not, sample again
                 int foldIdx = rnd.nextInt(numOfFolds);
-                if (!exploredIndices.contains(Integer.toString(foldIdx))) {
-                    exploredIndices.add(Integer.toString(foldIdx));
+                if (!exploredIndices[foldIdx]) {
+                    exploredIndices[foldIdx] = true;
+                    numOfExploredIndices++;
                 }
 
                 //Now see if the instance can be assigned to the fold
                 Fold fold = folds.get(foldIdx);
                 if (!fold.isTestFold()) {
-                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTrainingClassPerFold[instanceClass] || exploredIndices.size() == numOfFolds) {
+                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTrainingClassPerFold[instanceClass] || numOfExploredIndices == numOfFolds) {
                         //now that we found a match, instead of inserting one element, insert all of them
                         fold.addDistinctValuesBatch(key, distinctValMappings.get(key), instanceClass);
                         foundAssignment = true;
                     }
                 }
                 else {
-                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTestClassPerFold[instanceClass] || exploredIndices.size() == numOfFolds) {
+                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTestClassPerFold[instanceClass] || numOfExploredIndices == numOfFolds) {
                         //now that we found a match, instead of inserting one element, insert all of them
                         fold.addDistinctValuesBatch(key, distinctValMappings.get(key), instanceClass);
                         foundAssignment = true;
@@ -243,31 +337,31 @@ public class Loader {
         int numOfClasses = ((DiscreteColumn)targetColumnInfo.getColumn()).getNumOfPossibleValues();
 
         //Store the indices of the instances, partitioned by their class
-        ArrayList<ArrayList<Integer>> itemIndicesByClass = new ArrayList<ArrayList<Integer>>();
+        RowIndices[] itemIndicesByClass = new RowIndices[numOfClasses];
         for (int i = 0; i < numOfClasses; i++) {
-            itemIndicesByClass.add(new ArrayList<Integer>());
+            itemIndicesByClass[i] = new RowIndices();
         }
 
         for (int i = 0; i < targetColumnInfo.getColumn().getNumOfInstances(); i++) {
-            int instanceClass = (Integer) targetColumnInfo.getColumn().getValue(i);
-            itemIndicesByClass.get(instanceClass).add(i);
+            int instanceClass = targetColumnInfo.getColumn().getInt(i);
+            itemIndicesByClass[instanceClass].add(i);
         }
 
         //Now we calculate the number of instances from each class we want to assign to fold
         int numOfFolds = Integer.parseInt(properties.getProperty("numOfFolds"));
         double[] maxNumOfInstancesPerTrainingClassPerFold = new double[numOfClasses];
         double[] maxNumOfInstancesPerTestClassPerFold = new double[numOfClasses];
-        for (int i=0; i< itemIndicesByClass.size(); i++)
+        for (int i=0; i< itemIndicesByClass.length; i++)
         {
             //If the training set overall size (in percentages) is predefined, use it. Otherwise, just create equal folds
             if (trainingSetPercentage == -1) {
-                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass.get(i).size()/numOfFolds;
-                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass.get(i).size()/numOfFolds;
+                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass[i].size()/numOfFolds;
+                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass[i].size()/numOfFolds;
             }
             else {
                 //The total number of instances, multipllied by the training percentage and then divided by the number of the TRAINING folds
-                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass.get(i).size() * trainingSetPercentage /(numOfFolds-1);
-                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass.get(i).size() - maxNumOfInstancesPerTrainingClassPerFold[i];
+                maxNumOfInstancesPerTrainingClassPerFold[i] = itemIndicesByClass[i].size() * trainingSetPercentage /(numOfFolds-1);
+                maxNumOfInstancesPerTestClassPerFold[i] = itemIndicesByClass[i].size() - maxNumOfInstancesPerTrainingClassPerFold[i];
             }
 
         }
@@ -285,27 +379,29 @@ public class Loader {
         }
 
         for (int i=0; i < targetColumnInfo.getColumn().getNumOfInstances(); i++) {
-            int instanceClass = (Integer)targetColumnInfo.getColumn().getValue(i);
+            int instanceClass = targetColumnInfo.getColumn().getInt(i);
 
             boolean foundAssignment = false;
-            List<String> exploredIndices = new ArrayList<>();
+            boolean[] exploredIndices = new boolean[numOfFolds];
+            int numOfExploredIndices = 0;
             while (!foundAssignment) {
                 //We now randomly sample a fold and see whether the instance can be assigned to it. If not, sample again
                 int foldIdx = rnd.nextInt(numOfFolds);
-                if (!exploredIndices.contains(Integer.toString(foldIdx))) {
-                    exploredIndices.add(Integer.toString(foldIdx));
+                if (!exploredIndices[foldIdx]) {
+                    exploredIndices[foldIdx] = true;
+                    numOfExploredIndices++;
                 }
 
                 //Now see if the instance can be assigned to the fold
                 Fold fold = folds.get(foldIdx);
                 if (!fold.isTestFold()) {
-                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTrainingClassPerFold[instanceClass] || exploredIndices.size() == numOfFolds) {
+                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTrainingClassPerFold[instanceClass] || numOfExploredIndices == numOfFolds) {
                         fold.addInstance(i, instanceClass);
                         foundAssignment = true;
                     }
                 }
                 else {
-                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTestClassPerFold[instanceClass] || exploredIndices.size() == numOfFolds) {
+                    if (fold.getNumOfInstancesPerClass(instanceClass) < maxNumOfInstancesPerTestClassPerFold[instanceClass] || numOfExploredIndices == numOfFolds) {
                         fold.addInstance(i, instanceClass);
                         foundAssignment = true;
                     }
@@ -338,6 +434,14 @@ public class Loader {
     private void processData(Instances structure, List<ColumnInfo> columns) throws Exception {
         Enumeration<Instance> instances = structure.enumerateInstances();
         int elementsCounter = 0;
+        //weka stores every distinct value of a string attribute once, so the code of each value is only looked up once
+        int[][] stringCodes = new int[structure.numAttributes()][];
+        for (int i=0; i<structure.numAttributes(); i++) {
+            if (columns.get(i).getColumn().getType() == Column.columnType.String) {
+                stringCodes[i] = new int[structure.attribute(i).numValues()];
+                Arrays.fill(stringCodes[i], -1);
+            }
+        }
         while (instances.hasMoreElements()) {
             Instance instance = instances.nextElement();
             for (int i=0; i<structure.numAttributes(); i++) {
@@ -358,8 +462,16 @@ public class Loader {
                         currentColumn.getColumn().setValue(elementsCounter, dateVal);
                         break;
                     case String:
-                        String stringVal = instance.toString(i);
-                        currentColumn.getColumn().setValue(elementsCounter, stringVal);
+                        StringColumn stringColumn = (StringColumn)currentColumn.getColumn();
+                        if (instance.isMissing(i)) {
+                            stringColumn.setValue(elementsCounter, instance.toString(i));
+                            break;
+                        }
+                        int wekaIndex = (int)instance.value(i);
+                        if (stringCodes[i][wekaIndex] == -1) {
+                            stringCodes[i][wekaIndex] = stringColumn.getDictionary().getCode(instance.toString(i));
+                        }
+                        stringColumn.setCode(elementsCounter, stringCodes[i][wekaIndex]);
                         break;
                     default:
                         throw new Exception("unsupported column type");
@@ -376,7 +488,7 @@ public class Loader {
      * @return A list of columns, initiated with their relevant types
      * @throws Exception
      */
-    private List<ColumnInfo> processHeader(Instances structure, int numOfInstances, int classAttributeIndex) throws Exception {
+    private List<ColumnInfo> processHeader(Instances structure, int numOfInstances) throws Exception {
         List<ColumnInfo> columns = new ArrayList<ColumnInfo>();
         Enumeration attributes = structure.enumerateAttributes();
         while (attributes.hasMoreElements()) {
@@ -418,15 +530,6 @@ public class Loader {
             }
         }
 
-        //finally, we set the last column to be the target class
-        ColumnInfo classColumn;
-        if (classAttributeIndex == -1) {
-            classColumn = columns.get(columns.size() - 1);
-        }
-        else {
-            classColumn = columns.get(classAttributeIndex);
-        }
-        classColumn.SetTargetClassValue(true);
         return columns;
     }
 
@@ -0,0 +1,772 @@
+package explorekit.data;
+
+import com.google.common.base.Throwables;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Parses ARFF and CSV files directly into the primitive arrays of the columns, without materializing the file
+ * as a Weka Instances object first. The data section of the file is memory-mapped in chunks (which are split
+ * at line boundaries) and the chunks are processed in parallel in two passes: the first pass counts the rows
+ * of every chunk (and for CSV files also infers the types of the columns), and the second pass parses the
+ * values of each chunk directly into its range of rows.
+ */
+class MappedFileParser {
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private final File file;
+    private final int numOfThreads;
+    private boolean isArff;
+    private int maxNumOfNominalValues = Integer.MAX_VALUE;
+
+    private String relationName;
+    private final List<Attribute> attributes = new ArrayList<>();
+    private long dataStart;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int numOfInstances;
+    private List<ColumnInfo> columns;
+
+    MappedFileParser(String filePath, int numOfThreads) {
+        this.file = new File(filePath);
+        this.numOfThreads = Math.max(numOfThreads, 1);
+    }
+
+    /**
+     * Parses an ARFF file. Sparse ARFF files are not supported
+     * @throws Exception
+     */
+    void parseArff() throws Exception {
+        isArff = true;
+        readArffHeader();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            splitIntoChunks(channel);
+            processChunks(chunk -> chunk.countRows(false));
+            createColumns();
+            parseValues();
+        }
+    }
+
+    /**
+     * Parses a CSV file whose first line contains the names of the columns. Columns whose (non missing) values
+     * are all numbers become numeric columns, the class column and the other columns with up to maxNumOfNominalValues
+     * values become discrete columns and the remaining columns become string columns
+     * @param classAttributeIndex the index of the class column (-1 for the last column)
+     * @param maxNumOfNominalValues
+     * @throws Exception
+     */
+    void parseCsv(int classAttributeIndex, int maxNumOfNominalValues) throws Exception {
+        isArff = false;
+        this.maxNumOfNominalValues = maxNumOfNominalValues;
+        readCsvHeader();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            splitIntoChunks(channel);
+            processChunks(chunk -> chunk.countRows(true));
+            inferCsvTypes(classAttributeIndex == -1 ? attributes.size() - 1 : classAttributeIndex, maxNumOfNominalValues);
+            createColumns();
+            parseValues();
+        }
+    }
+
+    String getRelationName() {
+        return relationName;
+    }
+
+    int getNumOfInstances() {
+        return numOfInstances;
+    }
+
+    List<ColumnInfo> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Reads the header of the ARFF file (everything up to and including the @data line)
+     * @throws Exception
+     */
+    private void readArffHeader() throws Exception {
+        try (CountingLineReader reader = new CountingLineReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("%")) {
+                    continue;
+                }
+                String lowerCaseLine = line.toLowerCase();
+                if (lowerCaseLine.startsWith("@relation")) {
+                    relationName = unquote(line.substring("@relation".length()).trim());
+                }
+                else if (lowerCaseLine.startsWith("@attribute")) {
+                    attributes.add(parseAttributeDefinition(line.substring("@attribute".length()).trim()));
+                }
+                else if (lowerCaseLine.startsWith("@data")) {
+                    dataStart = reader.getOffset();
+                    return;
+                }
+            }
+        }
+        throw new Exception("no @data section in " + file.getAbsolutePath());
+    }
+
+    private Attribute parseAttributeDefinition(String definition) throws Exception {
+        //the name of the attribute may be quoted and contain spaces
+        int nameEnd;
+        if (definition.charAt(0) == '\'' || definition.charAt(0) == '"') {
+            nameEnd = definition.indexOf(definition.charAt(0), 1) + 1;
+        }
+        else {
+            nameEnd = 0;
+            while (nameEnd < definition.length() && !Character.isWhitespace(definition.charAt(nameEnd))) {
+                nameEnd++;
+            }
+        }
+        if (nameEnd <= 0 || nameEnd >= definition.length()) {
+            throw new Exception("invalid attribute definition: " + definition);
+        }
+        Attribute attribute = new Attribute(unquote(definition.substring(0, nameEnd)));
+        String type = definition.substring(nameEnd).trim();
+        String lowerCaseType = type.toLowerCase();
+
+        if (type.startsWith("{")) {
+            attribute.type = Column.columnType.Discrete;
+            for (String value : splitFields(type.substring(1, type.lastIndexOf('}')))) {
+                attribute.addNominalValue(value);
+            }
+        }
+        else if (lowerCaseType.equals("numeric") || lowerCaseType.equals("real") || lowerCaseType.equals("integer")) {
+            attribute.type = Column.columnType.Numeric;
+        }
+        else if (lowerCaseType.equals("string")) {
+            attribute.type = Column.columnType.String;
+        }
+        else if (lowerCaseType.startsWith("date")) {
+            attribute.type = Column.columnType.Date;
+            String dateFormat = unquote(type.substring("date".length()).trim());
+            attribute.dateFormat = dateFormat.isEmpty() ? DEFAULT_DATE_FORMAT : dateFormat;
+        }
+        else {
+            System.out.println("unsupported column type");
+            throw new Exception("unsupported column type");
+        }
+        return attribute;
+    }
+
+    /**
+     * Reads the first line of the CSV file, which contains the names of the columns
+     * @throws Exception
+     */
+    private void readCsvHeader() throws Exception {
+        String fileName = file.getName();
+        relationName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        try (CountingLineReader reader = new CountingLineReader(file)) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new Exception("empty file " + file.getAbsolutePath());
+            }
+            for (String name : splitFields(line)) {
+                attributes.add(new Attribute(name));
+            }
+            dataStart = reader.getOffset();
+        }
+    }
+
+    /**
+     * Sets the types of the CSV columns according to the values collected in the first pass
+     * @param classAttributeIndex
+     * @param maxNumOfNominalValues
+     * @throws Exception
+     */
+    private void inferCsvTypes(int classAttributeIndex, int maxNumOfNominalValues) throws Exception {
+        for (int i=0; i<attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+            boolean isNumeric = true;
+            boolean tooManyValues = false;
+            TreeSet<String> values = new TreeSet<>();
+            for (Chunk chunk : chunks) {
+                isNumeric &= !chunk.nonNumericValueFound[i];
+                tooManyValues |= chunk.tooManyValues[i];
+                if (!tooManyValues) {
+                    values.addAll(chunk.distinctValues.get(i));
+                    tooManyValues = values.size() > maxNumOfNominalValues;
+                }
+            }
+
+            if (i == classAttributeIndex) {
+                if (tooManyValues) {
+                    throw new Exception("the class column " + attribute.name + " has more than " + maxNumOfNominalValues + " values");
+                }
+                attribute.type = Column.columnType.Discrete;
+            }
+            else if (isNumeric) {
+                attribute.type = Column.columnType.Numeric;
+            }
+            else if (tooManyValues) {
+                attribute.type = Column.columnType.String;
+            }
+            else {
+                attribute.type = Column.columnType.Discrete;
+            }
+
+            if (attribute.type == Column.columnType.Discrete) {
+                for (String value : values) {
+                    attribute.addNominalValue(value);
+                }
+            }
+        }
+        for (Chunk chunk : chunks) {
+            chunk.distinctValues = null;
+        }
+    }
+
+    /**
+     * Splits the data section of the file into chunks that end at line boundaries
+     * @param channel
+     * @throws Exception
+     */
+    private void splitIntoChunks(FileChannel channel) throws Exception {
+        long fileSize = channel.size();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, (fileSize - dataStart) / (numOfThreads * 4L) + 1));
+        long start = dataStart;
+        while (start < fileSize) {
+            long end = getEndOfLine(channel, Math.min(fileSize, start + chunkSize) - 1);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new Exception("line too long in " + file.getAbsolutePath());
+            }
+            chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            start = end;
+        }
+    }
+
+    /**
+     * Returns the position right after the first line break at or after the given position
+     * @param channel
+     * @param position
+     * @return
+     * @throws Exception
+     */
+    private long getEndOfLine(FileChannel channel, long position) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (true) {
+            buffer.clear();
+            int numOfBytesRead = channel.read(buffer, position);
+            if (numOfBytesRead <= 0) {
+                return channel.size();
+            }
+            for (int i=0; i<numOfBytesRead; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += numOfBytesRead;
+        }
+    }
+
+    private void processChunks(ChunkTask task) {
+        IntStream.range(0, chunks.size()).parallel().forEach(i -> {
+            try {
+                task.process(chunks.get(i));
+            }
+            catch (Exception e) {
+                Throwables.propagate(e);
+            }
+        });
+    }
+
+    /**
+     * Creates the columns once the number of rows is known, and assigns every chunk its first row
+     */
+    private void createColumns() {
+        numOfInstances = 0;
+        for (Chunk chunk : chunks) {
+            chunk.firstRow = numOfInstances;
+            numOfInstances += chunk.numOfRows;
+        }
+
+        columns = new ArrayList<>();
+        for (Attribute attribute : attributes) {
+            Column column;
+            switch (attribute.type) {
+                case Numeric:
+                    column = new NumericColumn(numOfInstances);
+                    break;
+                case Discrete:
+                    column = new DiscreteColumn(numOfInstances, attribute.nominalValues.size());
+                    break;
+                case String:
+                    column = new StringColumn(numOfInstances);
+                    break;
+                default:
+                    column = new DateColumn(numOfInstances, attribute.dateFormat);
+                    break;
+            }
+            columns.add(new ColumnInfo(column, null, null, null, attribute.name));
+        }
+    }
+
+    /**
+     * The second pass: every chunk parses its values into its own range of rows. The values of the string columns are
+     * first encoded with a dictionary of the chunk, and the codes are then replaced (chunk by chunk, so the codes are
+     * assigned in the order of the rows) with the codes of the dictionary of the column
+     * @throws Exception
+     */
+    private void parseValues() throws Exception {
+        processChunks(Chunk::parseRows);
+
+        for (int i=0; i<attributes.size(); i++) {
+            if (attributes.get(i).type != Column.columnType.String) {
+                continue;
+            }
+            StringColumn column = (StringColumn) columns.get(i).getColumn();
+            int[] codes = column.getIntValues();
+            for (Chunk chunk : chunks) {
+                StringDictionary chunkDictionary = chunk.stringDictionaries[i];
+                int[] columnCodes = new int[chunkDictionary.size()];
+                for (int code=0; code<columnCodes.length; code++) {
+                    columnCodes[code] = column.getDictionary().getCode(chunkDictionary.getValue(code));
+                }
+                for (int row=chunk.firstRow; row<chunk.firstRow+chunk.numOfRows; row++) {
+                    if (codes[row] != -1) {
+                        codes[row] = columnCodes[codes[row]];
+                    }
+                }
+                chunk.stringDictionaries[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Splits a line of the header into its comma-separated (and possibly quoted) values
+     * @param line
+     * @return
+     */
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        int i = 0;
+        while (i <= line.length()) {
+            while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            if (i < line.length() && (line.charAt(i) == '\'' || line.charAt(i) == '"')) {
+                char quote = line.charAt(i);
+                i++;
+                while (i < line.length() && line.charAt(i) != quote) {
+                    if (line.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+            }
+            while (i < line.length() && line.charAt(i) != ',') {
+                i++;
+            }
+            fields.add(unquote(line.substring(start, i).trim()));
+            i++;
+        }
+        return fields;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"') && value.charAt(value.length() - 1) == value.charAt(0)) {
+            return value.substring(1, value.length() - 1).replace("\\" + value.charAt(0), String.valueOf(value.charAt(0)));
+        }
+        return value;
+    }
+
+    private interface ChunkTask {
+        void process(Chunk chunk) throws Exception;
+    }
+
+    /**
+     * The definition of a single column, as declared in the ARFF header or as inferred from the CSV values
+     */
+    private static class Attribute {
+        private final String name;
+        private Column.columnType type;
+        private final List<String> nominalValues = new ArrayList<>();
+        private final HashMap<String, Integer> nominalValueIndices = new HashMap<>();
+        private String dateFormat;
+
+        Attribute(String name) {
+            this.name = name;
+        }
+
+        void addNominalValue(String value) {
+            nominalValueIndices.put(value, nominalValues.size());
+            nominalValues.add(value);
+        }
+    }
+
+    /**
+     * A memory-mapped range of the data section of the file. A chunk always contains whole lines
+     */
+    private class Chunk {
+        private final MappedByteBuffer buffer;
+        private int numOfRows;
+        private int firstRow;
+
+        //the start and end positions of the values of the current line (without the quotes)
+        private final int[] fieldStarts = new int[attributes.size()];
+        private final int[] fieldEnds = new int[attributes.size()];
+        private final byte[] quotes = new byte[attributes.size()];
+
+        //the dictionaries of the values of the string columns in the chunk (null for the other columns)
+        private StringDictionary[] stringDictionaries;
+
+        //used only when inferring the types of CSV columns
+        private boolean[] nonNumericValueFound;
+        private boolean[] tooManyValues;
+        private List<HashSet<String>> distinctValues;
+
+        Chunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * The first pass. Counts the rows of the chunk and, if required, collects the information needed to
+         * infer the types of the columns
+         * @param inferTypes
+         * @throws Exception
+         */
+        void countRows(boolean inferTypes) throws Exception {
+            if (inferTypes) {
+                nonNumericValueFound = new boolean[attributes.size()];
+                tooManyValues = new boolean[attributes.size()];
+                distinctValues = new ArrayList<>();
+                for (int i=0; i<attributes.size(); i++) {
+                    distinctValues.add(new HashSet<>());
+                }
+            }
+
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                int lineEnd = getLineEnd(position, limit);
+                if (isDataLine(position, lineEnd)) {
+                    if (inferTypes) {
+                        tokenizeLine(position, getTrimmedLineEnd(position, lineEnd));
+                        for (int i=0; i<attributes.size(); i++) {
+                            if (isMissing(i)) {
+                                continue;
+                            }
+                            if (!nonNumericValueFound[i]) {
+                                nonNumericValueFound[i] = !isNumber(fieldStarts[i], fieldEnds[i]);
+                            }
+                            if (!tooManyValues[i]) {
+                                HashSet<String> values = distinctValues.get(i);
+                                values.add(getString(i));
+                                //once a column has too many values it can no longer be discrete, so there is no point in collecting more
+                                tooManyValues[i] = values.size() > maxNumOfNominalValues;
+                            }
+                        }
+                    }
+                    numOfRows++;
+                }
+                position = lineEnd + 1;
+            }
+        }
+
+        /**
+         * The second pass. Parses the values of the rows of the chunk into the columns
+         * @throws Exception
+         */
+        void parseRows() throws Exception {
+            //SimpleDateFormat is not thread-safe, so every chunk has its own instances
+            SimpleDateFormat[] dateFormats = new SimpleDateFormat[attributes.size()];
+            stringDictionaries = new StringDictionary[attributes.size()];
+            for (int i=0; i<attributes.size(); i++) {
+                if (attributes.get(i).type == Column.columnType.Date) {
+                    dateFormats[i] = new SimpleDateFormat(attributes.get(i).dateFormat);
+                }
+                if (attributes.get(i).type == Column.columnType.String) {
+                    stringDictionaries[i] = new StringDictionary();
+                }
+            }
+
+            int row = firstRow;
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                int lineEnd = getLineEnd(position, limit);
+                if (isDataLine(position, lineEnd)) {
+                    tokenizeLine(position, getTrimmedLineEnd(position, lineEnd));
+                    for (int i=0; i<attributes.size(); i++) {
+                        Attribute attribute = attributes.get(i);
+                        Column column = columns.get(i).getColumn();
+                        switch (attribute.type) {
+                            case Numeric:
+                                ((NumericColumn) column).getDoubleValues()[row] = isMissing(i) ? Double.NaN : parseDouble(fieldStarts[i], fieldEnds[i]);
+                                break;
+                            case Discrete:
+                                //missing nominal values are assigned the first value (as the Weka based loader does)
+                                int valueIndex = 0;
+                                if (!isMissing(i)) {
+                                    String value = getString(i);
+                                    Integer index = attribute.nominalValueIndices.get(value);
+                                    if (index == null) {
+                                        throw new Exception("undeclared value " + value + " in column " + attribute.name);
+                                    }
+                                    valueIndex = index;
+                                }
+                                ((DiscreteColumn) column).setValue(row, valueIndex);
+                                break;
+                            case Date:
+                                if (isMissing(i)) {
+                                    throw new Exception("missing date value in column " + attribute.name);
+                                }
+                                ((DateColumn) column).getLongValues()[row] = dateFormats[i].parse(getString(i)).getTime();
+                                break;
+                            case String:
+                                ((StringColumn) column).setCode(row, stringDictionaries[i].getCode(getString(i)));
+                                break;
+                            default:
+                                throw new Exception("unsupported column type");
+                        }
+                    }
+                    row++;
+                }
+                position = lineEnd + 1;
+            }
+        }
+
+        private int getLineEnd(int position, int limit) {
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            return position;
+        }
+
+        private int getTrimmedLineEnd(int lineStart, int lineEnd) {
+            while (lineEnd > lineStart && (buffer.get(lineEnd - 1) == '\r' || buffer.get(lineEnd - 1) == ' ' || buffer.get(lineEnd - 1) == '\t')) {
+                lineEnd--;
+            }
+            return lineEnd;
+        }
+
+        /**
+         * Returns false for empty lines and (in ARFF files) for comments
+         * @param lineStart
+         * @param lineEnd
+         * @return
+         * @throws Exception
+         */
+        private boolean isDataLine(int lineStart, int lineEnd) throws Exception {
+            for (int i=lineStart; i<lineEnd; i++) {
+                byte b = buffer.get(i);
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    continue;
+                }
+                if (isArff && b == '%') {
+                    return false;
+                }
+                if (isArff && b == '{') {
+                    throw new Exception("sparse ARFF files are not supported");
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Finds the boundaries of the values of the line. Values may be quoted with single or double quotes, in which
+         * case the quotes are not part of the value
+         * @param lineStart
+         * @param lineEnd
+         * @throws Exception
+         */
+        private void tokenizeLine(int lineStart, int lineEnd) throws Exception {
+            int position = lineStart;
+            int fieldIndex = 0;
+            while (position <= lineEnd) {
+                if (fieldIndex == attributes.size()) {
+                    throw new Exception("too many values in line: " + getString(lineStart, lineEnd));
+                }
+                while (position < lineEnd && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+                    position++;
+                }
+                byte first = position < lineEnd ? buffer.get(position) : 0;
+                if (first == '\'' || first == '"') {
+                    int start = ++position;
+                    while (position < lineEnd) {
+                        byte b = buffer.get(position);
+                        if (b == '\\' || (b == first && position + 1 < lineEnd && buffer.get(position + 1) == first)) {
+                            //an escaped character (backslash in ARFF files, a doubled quote in CSV files)
+                            position++;
+                        }
+                        else if (b == first) {
+                            break;
+                        }
+                        position++;
+                    }
+                    fieldStarts[fieldIndex] = start;
+                    fieldEnds[fieldIndex] = Math.min(position, lineEnd);
+                    quotes[fieldIndex] = first;
+                    while (position < lineEnd && buffer.get(position) != ',') {
+                        position++;
+                    }
+                }
+                else {
+                    int start = position;
+                    while (position < lineEnd && buffer.get(position) != ',') {
+                        position++;
+                    }
+                    int end = position;
+                    while (end > start && (buffer.get(end - 1) == ' ' || buffer.get(end - 1) == '\t')) {
+                        end--;
+                    }
+                    fieldStarts[fieldIndex] = start;
+                    fieldEnds[fieldIndex] = end;
+                    quotes[fieldIndex] = 0;
+                }
+                fieldIndex++;
+                position++;
+            }
+            if (fieldIndex != attributes.size()) {
+                throw new Exception("wrong number of values in line: " + getString(lineStart, lineEnd));
+            }
+        }
+
+        /**
+         * A value is missing if it is an unquoted question mark (or, in CSV files, an empty unquoted value)
+         * @param fieldIndex
+         * @return
+         */
+        private boolean isMissing(int fieldIndex) {
+            if (quotes[fieldIndex] != 0) {
+                return false;
+            }
+            int length = fieldEnds[fieldIndex] - fieldStarts[fieldIndex];
+            return (length == 1 && buffer.get(fieldStarts[fieldIndex]) == '?') || (length == 0 && !isArff);
+        }
+
+        private boolean isNumber(int start, int end) {
+            byte first = buffer.get(start);
+            if (first != '-' && first != '+' && first != '.' && (first < '0' || first > '9')) {
+                return false;
+            }
+            try {
+                parseDouble(start, end);
+                return true;
+            }
+            catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Parses a number without creating a String. Plain decimal numbers with up to 15 digits are computed
+         * directly (a single division of two exactly represented values, so the result is identical to
+         * Double.parseDouble) and everything else (exponents, long numbers, NaN etc.) is left to Double.parseDouble
+         * @param start
+         * @param end
+         * @return
+         */
+        private double parseDouble(int start, int end) {
+            int position = start;
+            boolean isNegative = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                isNegative = buffer.get(position) == '-';
+                position++;
+            }
+            long mantissa = 0;
+            int numOfDigits = 0;
+            int numOfFractionDigits = 0;
+            boolean decimalPointFound = false;
+            for (; position < end; position++) {
+                byte b = buffer.get(position);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    numOfDigits++;
+                    if (decimalPointFound) {
+                        numOfFractionDigits++;
+                    }
+                }
+                else if (b == '.' && !decimalPointFound) {
+                    decimalPointFound = true;
+                }
+                else {
+                    break;
+                }
+            }
+            if (position < end || numOfDigits == 0 || numOfDigits > 15) {
+                return Double.parseDouble(getString(start, end));
+            }
+            double value = mantissa / POWERS_OF_TEN[numOfFractionDigits];
+            return isNegative ? -value : value;
+        }
+
+        private String getString(int fieldIndex) {
+            String value = getString(fieldStarts[fieldIndex], fieldEnds[fieldIndex]);
+            if (quotes[fieldIndex] != 0) {
+                String quote = String.valueOf((char) quotes[fieldIndex]);
+                value = value.replace(quote + quote, quote);
+                if (value.indexOf('\\') >= 0) {
+                    value = value.replaceAll("\\\\(.)", "$1");
+                }
+            }
+            return value;
+        }
+
+        private String getString(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i=start; i<end; i++) {
+                bytes[i - start] = buffer.get(i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads the lines of the header while keeping track of the number of bytes consumed, so that the data
+     * section can be mapped from the right offset
+     */
+    private static class CountingLineReader implements AutoCloseable {
+        private final InputStream input;
+        private long offset = 0;
+
+        CountingLineReader(File file) throws Exception {
+            this.input = new BufferedInputStream(new FileInputStream(file));
+        }
+
+        String readLine() throws Exception {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = input.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    break;
+                }
+                line.write(b);
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            String value = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
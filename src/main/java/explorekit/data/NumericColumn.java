@@ -16,6 +16,23 @@ public class NumericColumn implements Column,Serializable {
         return values[i];
     }
 
+    public double getDouble(int i) { return values[i]; }
+
+    /**
+     * Returns the value truncated toward zero (the fractional part is dropped, as in a cast). Numeric columns hold
+     * doubles, so this is only exact for columns whose values are whole numbers (e.g. a numeric target class)
+     * @param i
+     * @return
+     */
+    public int getInt(int i) { return (int)values[i]; }
+
+    /**
+     * Returns the value truncated toward zero, like getInt
+     * @param i
+     * @return
+     */
+    public long getLong(int i) { return (long)values[i]; }
+
     public void setValue(int i, Object obj) {
         values[i] = (Double)obj;
     }
@@ -31,4 +48,10 @@ public class NumericColumn implements Column,Serializable {
     }
 
     public Object getValues() {return values;}
+
+    /**
+     * Returns the backing array of the column (not a copy), so callers can scan it without boxing
+     * @return
+     */
+    public double[] getDoubleValues() {return values;}
 }
@@ -0,0 +1,167 @@
+package explorekit.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A compact list of row indices, used by the folds and the datasets to define which rows they contain.
+ * The indices are kept in a primitive int array (used for iteration) and in a BitSet (used for membership
+ * tests), so no boxing takes place and contains() is O(1).
+ */
+public class RowIndices {
+    private int[] indices;
+    private int size = 0;
+    private BitSet membership = new BitSet();
+    //cached content hash and fingerprint, reset whenever the indices change
+    private int hash = 0;
+    private long fingerprint = 0;
+
+    public RowIndices() {
+        this(16);
+    }
+
+    public RowIndices(int initialCapacity) {
+        indices = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Adds a row index to the end of the list
+     * @param index
+     */
+    public void add(int index) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        indices[size++] = index;
+        membership.set(index);
+        hash = 0;
+        fingerprint = 0;
+    }
+
+    /**
+     * Adds all the indices of another object to the end of the list
+     * @param other
+     */
+    public void addAll(RowIndices other) {
+        if (size + other.size > indices.length) {
+            indices = Arrays.copyOf(indices, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.indices, 0, indices, size, other.size);
+        size += other.size;
+        membership.or(other.membership);
+        hash = 0;
+        fingerprint = 0;
+    }
+
+    /**
+     * Returns the i-th index in the list
+     * @param i
+     * @return
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return indices[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the row is contained in the list
+     * @param index
+     * @return
+     */
+    public boolean contains(int index) {
+        return index >= 0 && membership.get(index);
+    }
+
+    /**
+     * Sorts the indices in ascending order (so they will correspond with the order of the values in the columns)
+     */
+    public void sort() {
+        Arrays.sort(indices, 0, size);
+        hash = 0;
+        fingerprint = 0;
+    }
+
+    /**
+     * Returns a copy of the indices as an array whose length equals the number of indices
+     * @return
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(indices, size);
+    }
+
+    /**
+     * Returns the array in which the indices are stored, without copying it. Only the first size() elements are
+     * indices, and the array must not be modified
+     * @return
+     */
+    public int[] getArray() {
+        return indices;
+    }
+
+    /**
+     * Two objects are equal if they contain the same indices in the same order. This allows datasets that were
+     * created separately from the same folds (e.g. the sub-folds of a dataset and of its replica) to be matched
+     * @param o
+     * @return
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RowIndices)) {
+            return false;
+        }
+        RowIndices other = (RowIndices) o;
+        if (size != other.size || hashCode() != other.hashCode()) {
+            return false;
+        }
+        for (int i=0; i<size; i++) {
+            if (indices[i] != other.indices[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 1;
+            for (int i=0; i<size; i++) {
+                h = 31 * h + indices[i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a 64 bit fingerprint of the indices (and their order). Unlike hashCode(), the fingerprint is meant
+     * to identify a set of rows across runs, so it is used as part of the lineage of persisted columns
+     * @return
+     */
+    public long getFingerprint() {
+        long f = fingerprint;
+        if (f == 0) {
+            f = 0xcbf29ce484222325L ^ size;
+            for (int i=0; i<size; i++) {
+                f ^= indices[i];
+                f *= 0x100000001b3L;
+                f ^= (f >>> 29);
+            }
+            if (f == 0) {
+                f = 1;
+            }
+            fingerprint = f;
+        }
+        return f;
+    }
+}
@@ -1,34 +1,83 @@
 package explorekit.data;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
+ * The values are dictionary-encoded: the column holds the code of the value of every row, and the strings themselves
+ * are kept (once) in a StringDictionary. getInt() returns the code, so the column can be grouped like a discrete column.
+ * Missing (null) values have the code -1.
+ *
  * Created by giladkatz on 07/04/2016.
  */
 public class StringColumn implements Column,Serializable {
-    private String[] values;
-    private int numOfPossibleValues;
+    private int[] codes;
+    private StringDictionary dictionary;
 
     public StringColumn (int size) {
-        values = new String[size];
+        this(size, new StringDictionary());
     }
 
-    public Object getValue(int i) { return values[i]; }
+    /**
+     * @param size
+     * @param dictionary the dictionary of the values, which may be shared with other columns
+     */
+    public StringColumn (int size, StringDictionary dictionary) {
+        codes = new int[size];
+        Arrays.fill(codes, -1);
+        this.dictionary = dictionary;
+    }
+
+    public Object getValue(int i) { return codes[i] == -1 ? null : dictionary.getValue(codes[i]); }
+
+    public double getDouble(int i) { throw new UnsupportedOperationException("String columns have no numeric representation"); }
+
+    /**
+     * Returns the dictionary code of the value of the row
+     * @param i
+     * @return
+     */
+    public int getInt(int i) { return codes[i]; }
+
+    public long getLong(int i) { throw new UnsupportedOperationException("String columns have no numeric representation"); }
 
     public void setValue(int i, Object obj) {
-        values[i] = (String)obj;
+        codes[i] = obj == null ? -1 : dictionary.getCode((String)obj);
+    }
+
+    /**
+     * Sets the value of the row by its code in the dictionary of the column
+     * @param i
+     * @param code
+     */
+    public void setCode(int i, int code) {
+        codes[i] = code;
     }
 
     public Column.columnType getType() {return Column.columnType.String;}
 
     public int getNumOfInstances() {
-        return values.length;
+        return codes.length;
     }
 
+    /**
+     * The number of distinct values in the dictionary of the column
+     * @return
+     */
     public int getNumOfPossibleValues() {
-        return this.numOfPossibleValues;
+        return dictionary.size();
     }
 
-    public Object getValues() {return values;}
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public Object getValues() {return codes;}
+
+    /**
+     * Returns the backing array of the codes (not a copy), so callers can scan it without looking up the strings
+     * @return
+     */
+    public int[] getIntValues() {return codes;}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package explorekit.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps every distinct string to a dense int code (0, 1, 2...), in the order in which the strings are first added.
+ * StringColumns store the codes of their values, so every distinct value is held (and hashed) only once, and rows can
+ * be compared and grouped by their codes. A dictionary can be shared by several columns (for example the training
+ * and test parts of the same column), in which case equal values have equal codes in all of them.
+ */
+public class StringDictionary implements Serializable {
+    //serialized as part of the StringColumns that use it
+    private static final long serialVersionUID = 1L;
+
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the code of the value, adding the value to the dictionary if it is not already there
+     * @param value
+     * @return
+     */
+    public synchronized int getCode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of the value, or -1 if the value is not in the dictionary
+     * @param value
+     * @return
+     */
+    public synchronized int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public synchronized String getValue(int code) {
+        return values.get(code);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
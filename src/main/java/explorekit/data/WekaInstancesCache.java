@@ -0,0 +1,103 @@
+package explorekit.data;
+
+import weka.core.Attribute;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of the Weka Instances of a dataset that its replicas have in common: the Weka attributes of its columns
+ * and the values of these columns in the training and test rows. The values are kept row-major (one array per row,
+ * in the order of the attributes), so the Instances of a replica with an additional (candidate) column are created
+ * by copying the cached row and appending the value of the new column, instead of reading every column of every row.
+ *
+ * The attribute objects are shared by all the Instances created from the cache. Since the cached attributes always
+ * occupy the same positions, the indices Weka assigns to them are the same for all of them.
+ *
+ * The values are a second copy of the included columns in the training and test rows (8 bytes per value, plus an
+ * array per row), created on the first request of each set. The dataset holds the cache through a SoftReference and
+ * drops it whenever a column is added (see Dataset.getWekaInstancesCache).
+ */
+class WekaInstancesCache {
+    private final List<Column> columns;
+    private final List<Column> includedColumns;
+    private final ArrayList<Attribute> attributes;
+    private final int[] trainingRows;
+    private final int[] testRows;
+    private double[][] trainingValues;
+    private double[][] testValues;
+
+    /**
+     * @param columns all the columns of the dataset (in their order in the dataset)
+     * @param includedColumns the columns that are included in the Instances, in the order of the attributes
+     * @param attributes the attributes of the included columns
+     * @param trainingRows the rows of the training set, in the order of the training Instances
+     * @param testRows the rows of the test set, in the order of the test Instances
+     */
+    WekaInstancesCache(List<Column> columns, List<Column> includedColumns, ArrayList<Attribute> attributes, int[] trainingRows, int[] testRows) {
+        this.columns = columns;
+        this.includedColumns = includedColumns;
+        this.attributes = attributes;
+        this.trainingRows = trainingRows;
+        this.testRows = testRows;
+    }
+
+    /**
+     * Returns true if the cache was created for the first columns of the given list (the same Column objects)
+     * @param columnInfos
+     * @return
+     */
+    boolean isPrefixOf(List<ColumnInfo> columnInfos) {
+        if (columnInfos.size() < columns.size()) {
+            return false;
+        }
+        for (int i=0; i<columns.size(); i++) {
+            if (columnInfos.get(i).getColumn() != columns.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int getNumOfColumns() {
+        return columns.size();
+    }
+
+    List<Attribute> getAttributes() {
+        return attributes;
+    }
+
+    int[] getRows(boolean getTrainingSet) {
+        return getTrainingSet ? trainingRows : testRows;
+    }
+
+    /**
+     * Returns the values of the included columns, one array per row. The arrays must not be modified
+     * @param getTrainingSet
+     * @return
+     */
+    synchronized double[][] getValues(boolean getTrainingSet) {
+        if (getTrainingSet) {
+            if (trainingValues == null) {
+                trainingValues = extractValues(trainingRows);
+            }
+            return trainingValues;
+        }
+        if (testValues == null) {
+            testValues = extractValues(testRows);
+        }
+        return testValues;
+    }
+
+    private double[][] extractValues(int[] rows) {
+        double[][] values = new double[rows.length][includedColumns.size()];
+        //going over the columns in the outer loop reads every column sequentially
+        for (int j=0; j<includedColumns.size(); j++) {
+            Column column = includedColumns.get(j);
+            for (int i=0; i<rows.length; i++) {
+                values[i][j] = column.getDouble(rows[i]);
+            }
+        }
+        return values;
+    }
+}
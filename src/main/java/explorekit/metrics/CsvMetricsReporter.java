@@ -0,0 +1,33 @@
+package explorekit.metrics;
+
+import java.io.FileWriter;
+import java.util.Map;
+
+/**
+ * Writes the metrics of every iteration to [directory]/[runName]_metrics.csv, one line per metric (iteration,
+ * timestamp, metric, value), so that metrics that first appear in later iterations do not change the columns of the
+ * file. The file is created again at the beginning of the search (iteration 0), and the following iterations are
+ * appended to it
+ */
+public class CsvMetricsReporter implements MetricsReporter {
+    private final String directory;
+
+    public CsvMetricsReporter(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void report(String runName, int iteration, MetricsSnapshot snapshot) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        if (iteration == 0) {
+            lines.append("Iteration,Timestamp,Metric,Value\n");
+        }
+        for (Map.Entry<String, Double> entry : snapshot.getValues().entrySet()) {
+            lines.append(iteration).append(",").append(snapshot.getTimestamp()).append(",")
+                    .append(entry.getKey()).append(",").append(entry.getValue()).append("\n");
+        }
+        try (FileWriter writer = new FileWriter(MetricsRegistry.getFilePath(directory, runName, "_metrics.csv"), iteration > 0)) {
+            writer.write(lines.toString());
+        }
+    }
+}
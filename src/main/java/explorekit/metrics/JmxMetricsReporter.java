@@ -0,0 +1,64 @@
+package explorekit.metrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Exposes the values of the metrics at the end of the last iteration through JMX (e.g. for jconsole or a JMX
+ * exporter), as the MXBean explorekit:type=SearchMetrics. The MXBean is registered on the first report and
+ * unregistered when the reporter is closed
+ */
+public class JmxMetricsReporter implements MetricsReporter, SearchMetricsMXBean {
+    private static final String OBJECT_NAME = "explorekit:type=SearchMetrics";
+
+    private volatile String runName = "";
+    private volatile int iteration = -1;
+    private volatile Map<String, Double> metrics = Collections.emptyMap();
+    private ObjectName objectName;
+
+    @Override
+    public synchronized void report(String runName, int iteration, MetricsSnapshot snapshot) throws Exception {
+        this.runName = runName;
+        this.iteration = iteration;
+        this.metrics = Collections.unmodifiableMap(snapshot.getValues());
+        if (objectName == null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            //a reporter of a previous search that was not closed is replaced
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            objectName = null;
+        }
+    }
+
+    @Override
+    public String getRunName() {
+        return runName;
+    }
+
+    @Override
+    public int getIteration() {
+        return iteration;
+    }
+
+    @Override
+    public Map<String, Double> getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,37 @@
+package explorekit.metrics;
+
+import org.json.simple.JSONObject;
+
+import java.io.FileWriter;
+import java.util.Map;
+
+/**
+ * Writes the metrics of every iteration as a line of JSON to [directory]/[runName]_metrics.json. The file is created
+ * again at the beginning of the search (iteration 0), and the following iterations are appended to it
+ */
+public class JsonMetricsReporter implements MetricsReporter {
+    private final String directory;
+
+    public JsonMetricsReporter(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void report(String runName, int iteration, MetricsSnapshot snapshot) throws Exception {
+        JSONObject metrics = new JSONObject();
+        for (Map.Entry<String, Double> entry : snapshot.getValues().entrySet()) {
+            metrics.put(entry.getKey(), entry.getValue());
+        }
+        JSONObject line = new JSONObject();
+        line.put("run", runName);
+        line.put("iteration", iteration);
+        line.put("timestamp", snapshot.getTimestamp());
+        line.put("metrics", metrics);
+
+        try (FileWriter writer = new FileWriter(MetricsRegistry.getFilePath(directory, runName, "_metrics.json"), iteration > 0)) {
+            writer.write(line.toJSONString());
+            writer.write("\n");
+        }
+    }
+}
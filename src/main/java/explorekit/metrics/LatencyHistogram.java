@@ -0,0 +1,99 @@
+package explorekit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations (in nanoseconds) that can be updated by many threads at once without locking. The
+ * durations are counted in buckets whose boundaries are powers of two (bucket i contains the durations in
+ * [2^(i-1), 2^i) nanoseconds), so the percentiles are estimated within a factor of two, while the count, the total
+ * and the maximum are exact.
+ */
+public class LatencyHistogram {
+    private static final int NUM_OF_BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(NUM_OF_BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long currentMax = maxNanos.get();
+        while (nanos > currentMax && !maxNanos.compareAndSet(currentMax, nanos)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the current values of the histogram. The values are not read atomically, so a snapshot taken while
+     * durations are recorded may miss some of them in some of the values
+     * @return
+     */
+    public Snapshot getSnapshot() {
+        long[] bucketCounts = new long[NUM_OF_BUCKETS];
+        for (int i=0; i<NUM_OF_BUCKETS; i++) {
+            bucketCounts[i] = buckets.get(i);
+        }
+        return new Snapshot(count.sum(), totalNanos.sum(), maxNanos.get(), bucketCounts);
+    }
+
+    public static class Snapshot {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] bucketCounts;
+
+        Snapshot(long count, long totalNanos, long maxNanos, long[] bucketCounts) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.bucketCounts = bucketCounts;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Returns an estimate of the percentile: the upper boundary of the bucket that contains it (but never more
+         * than the maximal duration)
+         * @param percentile between 0 and 1
+         * @return
+         */
+        public long getPercentileNanos(double percentile) {
+            long numOfDurationsCounted = 0;
+            long bucketCount = 0;
+            for (int i=0; i<bucketCounts.length; i++) {
+                bucketCount += bucketCounts[i];
+            }
+            long rank = (long) Math.ceil(percentile * bucketCount);
+            for (int i=0; i<bucketCounts.length; i++) {
+                numOfDurationsCounted += bucketCounts[i];
+                if (numOfDurationsCounted >= rank && numOfDurationsCounted > 0) {
+                    long upperBoundary = (i >= 63) ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upperBoundary, maxNanos);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package explorekit.metrics;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the timing and throughput metrics of the search: histograms of durations (e.g. the generation of
+ * attributes per operator type, the filter and wrapper evaluation of a candidate), counters (e.g. the number of
+ * candidates evaluated) and gauges (e.g. the number of candidates evaluated per second in the last iteration).
+ * All the functions can be called from any thread.
+ *
+ * The names of the metrics are dot-separated, starting with the component that records them: "search." for the
+ * phases of the search, "operator.[type]." for the operators, "filter.[evaluator]." for the filter evaluators and
+ * "wrapper.[classifier]." for the wrapper evaluation.
+ *
+ * The metrics are recorded in a single registry (getDefault()), which is reset when a search begins. At the end of
+ * every iteration the search passes the values of the metrics to the reporters, which are defined by the
+ * metricsReporters property (a comma-separated list of json, csv, prometheus and jmx). The files of the reporters are
+ * written to the metricsDirectory property, or to resultsFilePath if it is not defined.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> gauges = new ConcurrentHashMap<>();
+    private final List<MetricsReporter> reporters = new CopyOnWriteArrayList<>();
+
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+    public LatencyHistogram getHistogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Records the time that passed since the given start time (obtained by System.nanoTime())
+     * @param name
+     * @param startTimeNanos
+     */
+    public void recordTime(String name, long startTimeNanos) {
+        getHistogram(name).record(System.nanoTime() - startTimeNanos);
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long value) {
+        counters.computeIfAbsent(name, n -> new LongAdder()).add(value);
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public void setGauge(String name, double value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Removes all the recorded values (the reporters are not removed)
+     */
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+        gauges.clear();
+    }
+
+    public MetricsSnapshot getSnapshot() {
+        SortedMap<String, LatencyHistogram.Snapshot> histogramsSnapshot = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            histogramsSnapshot.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        SortedMap<String, Long> countersSnapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            countersSnapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), histogramsSnapshot, countersSnapshot, new TreeMap<>(gauges));
+    }
+
+    public void addReporter(MetricsReporter reporter) {
+        reporters.add(reporter);
+    }
+
+    /**
+     * Creates the reporters defined in the properties (see the description of the class)
+     * @param properties
+     * @throws Exception
+     */
+    public void addReporters(Properties properties) throws Exception {
+        String reporterNames = properties.getProperty("metricsReporters", "");
+        String directory = properties.getProperty("metricsDirectory", properties.getProperty("resultsFilePath"));
+        for (String reporterName : reporterNames.split(",")) {
+            switch (reporterName.trim()) {
+                case "":
+                    break;
+                case "json":
+                    addReporter(new JsonMetricsReporter(directory));
+                    break;
+                case "csv":
+                    addReporter(new CsvMetricsReporter(directory));
+                    break;
+                case "prometheus":
+                    addReporter(new PrometheusTextFileReporter(directory));
+                    break;
+                case "jmx":
+                    addReporter(new JmxMetricsReporter());
+                    break;
+                default:
+                    throw new Exception("Unidentified metrics reporter: " + reporterName);
+            }
+        }
+    }
+
+    /**
+     * Passes the current values of the metrics to all the reporters. A failure of a reporter does not stop the search
+     * @param runName
+     * @param iteration
+     */
+    public void report(String runName, int iteration) {
+        MetricsSnapshot snapshot = getSnapshot();
+        for (MetricsReporter reporter : reporters) {
+            try {
+                reporter.report(runName, iteration, snapshot);
+            }
+            catch (Exception ex) {
+                System.out.println("failed to report the metrics: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes and removes all the reporters
+     */
+    public void closeReporters() {
+        for (MetricsReporter reporter : reporters) {
+            try {
+                reporter.close();
+            }
+            catch (Exception ex) {
+                System.out.println("failed to close the metrics reporter: " + ex.getMessage());
+            }
+        }
+        reporters.clear();
+    }
+
+    static String getFilePath(String directory, String runName, String suffix) {
+        return Paths.get(directory, runName + suffix).toString();
+    }
+}
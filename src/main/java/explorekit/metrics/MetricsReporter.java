@@ -0,0 +1,20 @@
+package explorekit.metrics;
+
+/**
+ * Receives the values of the metrics at the end of every iteration of the search
+ */
+public interface MetricsReporter {
+    /**
+     * @param runName the name of the dataset and the run information of the search
+     * @param iteration the iteration that ended (0 for the initialization of the search)
+     * @param snapshot
+     * @throws Exception
+     */
+    void report(String runName, int iteration, MetricsSnapshot snapshot) throws Exception;
+
+    /**
+     * Called when the search is over
+     * @throws Exception
+     */
+    default void close() throws Exception {}
+}
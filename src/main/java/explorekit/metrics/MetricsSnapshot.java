@@ -0,0 +1,64 @@
+package explorekit.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The values of all the metrics of a registry at a point in time, sorted by the names of the metrics
+ */
+public class MetricsSnapshot {
+    private final long timestamp;
+    private final SortedMap<String, LatencyHistogram.Snapshot> histograms;
+    private final SortedMap<String, Long> counters;
+    private final SortedMap<String, Double> gauges;
+
+    MetricsSnapshot(long timestamp, SortedMap<String, LatencyHistogram.Snapshot> histograms, SortedMap<String, Long> counters,
+                    SortedMap<String, Double> gauges) {
+        this.timestamp = timestamp;
+        this.histograms = Collections.unmodifiableSortedMap(histograms);
+        this.counters = Collections.unmodifiableSortedMap(counters);
+        this.gauges = Collections.unmodifiableSortedMap(gauges);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public SortedMap<String, LatencyHistogram.Snapshot> getHistograms() {
+        return histograms;
+    }
+
+    public SortedMap<String, Long> getCounters() {
+        return counters;
+    }
+
+    public SortedMap<String, Double> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * Returns all the values as a single map. Every histogram is represented by its count, its total time in seconds
+     * and its mean, median, 90th percentile, 99th percentile and maximum in milliseconds (e.g. "operator.Binary.generate.p99Millis")
+     * @return
+     */
+    public Map<String, Double> getValues() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+            LatencyHistogram.Snapshot histogram = entry.getValue();
+            values.put(entry.getKey() + ".count", (double) histogram.getCount());
+            values.put(entry.getKey() + ".totalSeconds", histogram.getTotalNanos() / 1e9);
+            values.put(entry.getKey() + ".meanMillis", histogram.getMeanNanos() / 1e6);
+            values.put(entry.getKey() + ".p50Millis", histogram.getPercentileNanos(0.5) / 1e6);
+            values.put(entry.getKey() + ".p90Millis", histogram.getPercentileNanos(0.9) / 1e6);
+            values.put(entry.getKey() + ".p99Millis", histogram.getPercentileNanos(0.99) / 1e6);
+            values.put(entry.getKey() + ".maxMillis", histogram.getMaxNanos() / 1e6);
+        }
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            values.put(entry.getKey(), (double) entry.getValue());
+        }
+        values.putAll(gauges);
+        return values;
+    }
+}
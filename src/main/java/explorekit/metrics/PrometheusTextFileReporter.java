@@ -0,0 +1,72 @@
+package explorekit.metrics;
+
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Writes the current values of the metrics to [directory]/[runName].prom in the Prometheus text format, to be
+ * collected by the textfile collector of the node exporter. Histograms are written as summaries (in seconds),
+ * counters as counters and gauges as gauges, all with the name of the run as a label. The file is replaced atomically
+ * after every iteration, so the collector never reads a partial file
+ */
+public class PrometheusTextFileReporter implements MetricsReporter {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final String directory;
+
+    public PrometheusTextFileReporter(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void report(String runName, int iteration, MetricsSnapshot snapshot) throws Exception {
+        String runLabel = "run=\"" + runName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        StringBuilder text = new StringBuilder();
+
+        String iterationName = "explorekit_search_iteration";
+        text.append("# TYPE ").append(iterationName).append(" gauge\n");
+        text.append(iterationName).append("{").append(runLabel).append("} ").append(iteration).append("\n");
+
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : snapshot.getHistograms().entrySet()) {
+            String name = getMetricName(entry.getKey()) + "_seconds";
+            LatencyHistogram.Snapshot histogram = entry.getValue();
+            text.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                text.append(name).append("{").append(runLabel).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getPercentileNanos(quantile) / 1e9).append("\n");
+            }
+            text.append(name).append("_sum{").append(runLabel).append("} ").append(histogram.getTotalNanos() / 1e9).append("\n");
+            text.append(name).append("_count{").append(runLabel).append("} ").append(histogram.getCount()).append("\n");
+        }
+        for (Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+            String name = getMetricName(entry.getKey()) + "_total";
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append("{").append(runLabel).append("} ").append(entry.getValue()).append("\n");
+        }
+        for (Map.Entry<String, Double> entry : snapshot.getGauges().entrySet()) {
+            String name = getMetricName(entry.getKey());
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            text.append(name).append("{").append(runLabel).append("} ").append(entry.getValue()).append("\n");
+        }
+
+        Path file = Paths.get(MetricsRegistry.getFilePath(directory, runName, ".prom"));
+        Path temporaryFile = Paths.get(file.toString() + ".tmp");
+        try (FileWriter writer = new FileWriter(temporaryFile.toFile())) {
+            writer.write(text.toString());
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts the name of a metric to a valid Prometheus name (letters, digits and underscores)
+     * @param metricName
+     * @return
+     */
+    private static String getMetricName(String metricName) {
+        return "explorekit_" + metricName.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+}
@@ -0,0 +1,18 @@
+package explorekit.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of JmxMetricsReporter
+ */
+public interface SearchMetricsMXBean {
+    String getRunName();
+
+    int getIteration();
+
+    /**
+     * Returns the values of the metrics, as returned by MetricsSnapshot.getValues()
+     * @return
+     */
+    Map<String, Double> getMetrics();
+}
@@ -3,6 +3,8 @@ package explorekit.operators.BinaryOperators;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
+import explorekit.data.DerivedNumericColumn;
+import explorekit.data.NumericColumn;
 import explorekit.operators.Operator;
 
 import java.util.List;
@@ -35,6 +37,61 @@ public abstract class BinaryOperator extends Operator {
         return operatorType.Binary;
     }
 
+    /**
+     * The arithmetic operation of the operator (see BinaryOperatorKernels)
+     * @return
+     */
+    public abstract BinaryOperatorKernels.Operation getOperation();
+
+    /**
+     * Generates the attribute as a DerivedNumericColumn, whose values are computed when they are read
+     * @param dataset
+     * @param sourceColumns
+     * @param targetColumns
+     * @param enforceDistinctVal
+     * @return
+     */
+    @Override
+    public ColumnInfo generate(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, boolean enforceDistinctVal) {
+        DerivedNumericColumn column = new DerivedNumericColumn(dataset.getNumOfInstancesPerColumn(), dataset.getIndices(),
+                BinaryOperatorKernels.getRowFunction(getOperation(), BinaryOperatorKernels.getValues(sourceColumns.get(0).getColumn()),
+                        BinaryOperatorKernels.getValues(targetColumns.get(0).getColumn())));
+        return generate(dataset, sourceColumns, targetColumns, column, enforceDistinctVal);
+    }
+
+    /**
+     * Generates the attribute with its values computed in advance into a NumericColumn
+     * @param dataset
+     * @param sourceColumns
+     * @param targetColumns
+     * @param enforceDistinctVal
+     * @return
+     */
+    public ColumnInfo generateMaterialized(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, boolean enforceDistinctVal) {
+        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
+        BinaryOperatorKernels.apply(getOperation(), BinaryOperatorKernels.getValues(sourceColumns.get(0).getColumn()),
+                BinaryOperatorKernels.getValues(targetColumns.get(0).getColumn()), dataset.getIndices(), column.getDoubleValues());
+        return generate(dataset, sourceColumns, targetColumns, column, enforceDistinctVal);
+    }
+
+    /**
+     * Creates the generated attribute from a column whose values were already computed (e.g. by
+     * BinaryOperatorKernels.computeAll, together with the other operations on the same columns)
+     * @param dataset
+     * @param sourceColumns
+     * @param targetColumns
+     * @param column
+     * @param enforceDistinctVal
+     * @return
+     */
+    public ColumnInfo generate(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, Column column, boolean enforceDistinctVal) {
+        ColumnInfo newColumnInfo = new ColumnInfo(column, sourceColumns, targetColumns, this.getClass(), getOperation().name() + generateName(sourceColumns,targetColumns));
+        if (enforceDistinctVal && !super.isDistinctValEnforced(dataset,newColumnInfo)) {
+            return null;
+        }
+        return newColumnInfo;
+    }
+
     public String generateName(List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
         String string = "(";
         string = string.concat(sourceColumns.get(0).getName());
@@ -0,0 +1,219 @@
+package explorekit.operators.BinaryOperators;
+
+import explorekit.data.Column;
+import explorekit.data.DerivedNumericColumn;
+import explorekit.data.NumericColumn;
+import explorekit.data.RowIndices;
+
+/**
+ * The arithmetic of the binary operators, implemented as loops over the primitive arrays of the columns. The loops
+ * don't allocate, box or call through the Column interface, and when the rows cover the whole column (the complete
+ * dataset) they run over the arrays sequentially, so the JIT can unroll and vectorize them. Rows outside of the
+ * dataset are not written. Results that are NaN or infinite are replaced with 0 (as the operators always did).
+ * getRowFunction provides the same arithmetic for a single row, for derived columns.
+ */
+public final class BinaryOperatorKernels {
+
+    /**
+     * The arithmetic operations. The name of each operation is used as the prefix of the names of the generated columns
+     */
+    public enum Operation {Add, Subtract, Multiply, Divide}
+
+    private BinaryOperatorKernels() {}
+
+    /**
+     * Returns the values of a column as a double array. The array of a NumericColumn is returned as is (not copied)
+     * @param column
+     * @return
+     */
+    public static double[] getValues(Column column) {
+        if (column instanceof NumericColumn) {
+            return ((NumericColumn) column).getDoubleValues();
+        }
+        double[] values = new double[column.getNumOfInstances()];
+        for (int i=0; i<values.length; i++) {
+            values[i] = column.getDouble(i);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the result of the operation on the source and target values of the rows to the result array
+     * @param operation
+     * @param source
+     * @param target
+     * @param rows
+     * @param result
+     */
+    public static void apply(Operation operation, double[] source, double[] target, RowIndices rows, double[] result) {
+        switch (operation) {
+            case Add:
+                add(source, target, rows, result);
+                break;
+            case Subtract:
+                subtract(source, target, rows, result);
+                break;
+            case Multiply:
+                multiply(source, target, rows, result);
+                break;
+            case Divide:
+                divide(source, target, rows, result);
+                break;
+        }
+    }
+
+    /**
+     * Returns a function that computes the result of the operation for a single row, for columns that are computed on
+     * demand (see DerivedNumericColumn)
+     * @param operation
+     * @param source
+     * @param target
+     * @return
+     */
+    public static DerivedNumericColumn.RowFunction getRowFunction(Operation operation, double[] source, double[] target) {
+        switch (operation) {
+            case Add:
+                return row -> finiteOrZero(source[row] + target[row]);
+            case Subtract:
+                return row -> finiteOrZero(source[row] - target[row]);
+            case Multiply:
+                return row -> finiteOrZero(source[row] * target[row]);
+            default:
+                return row -> finiteOrZero(source[row] / target[row]);
+        }
+    }
+
+    public static void add(double[] source, double[] target, RowIndices rows, double[] result) {
+        if (coversAllRows(rows, result)) {
+            for (int j=0; j<result.length; j++) {
+                result[j] = finiteOrZero(source[j] + target[j]);
+            }
+        }
+        else {
+            int[] indices = rows.getArray();
+            for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+                int j = indices[i];
+                result[j] = finiteOrZero(source[j] + target[j]);
+            }
+        }
+    }
+
+    public static void subtract(double[] source, double[] target, RowIndices rows, double[] result) {
+        if (coversAllRows(rows, result)) {
+            for (int j=0; j<result.length; j++) {
+                result[j] = finiteOrZero(source[j] - target[j]);
+            }
+        }
+        else {
+            int[] indices = rows.getArray();
+            for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+                int j = indices[i];
+                result[j] = finiteOrZero(source[j] - target[j]);
+            }
+        }
+    }
+
+    public static void multiply(double[] source, double[] target, RowIndices rows, double[] result) {
+        if (coversAllRows(rows, result)) {
+            for (int j=0; j<result.length; j++) {
+                result[j] = finiteOrZero(source[j] * target[j]);
+            }
+        }
+        else {
+            int[] indices = rows.getArray();
+            for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+                int j = indices[i];
+                result[j] = finiteOrZero(source[j] * target[j]);
+            }
+        }
+    }
+
+    public static void divide(double[] source, double[] target, RowIndices rows, double[] result) {
+        if (coversAllRows(rows, result)) {
+            for (int j=0; j<result.length; j++) {
+                result[j] = finiteOrZero(source[j] / target[j]);
+            }
+        }
+        else {
+            int[] indices = rows.getArray();
+            for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+                int j = indices[i];
+                result[j] = finiteOrZero(source[j] / target[j]);
+            }
+        }
+    }
+
+    /**
+     * Computes the four operations for a pair of columns in a single pass over their values. Any of the result arrays
+     * may be null, in which case the operation is not computed (and if some of them are null, every requested
+     * operation is computed in a pass of its own)
+     * @param source
+     * @param target
+     * @param rows
+     * @param sum
+     * @param difference
+     * @param product
+     * @param quotient
+     */
+    public static void computeAll(double[] source, double[] target, RowIndices rows, double[] sum, double[] difference,
+                                  double[] product, double[] quotient) {
+        if (sum == null || difference == null || product == null || quotient == null) {
+            if (sum != null) {
+                add(source, target, rows, sum);
+            }
+            if (difference != null) {
+                subtract(source, target, rows, difference);
+            }
+            if (product != null) {
+                multiply(source, target, rows, product);
+            }
+            if (quotient != null) {
+                divide(source, target, rows, quotient);
+            }
+            return;
+        }
+        if (coversAllRows(rows, sum)) {
+            for (int j=0; j<sum.length; j++) {
+                double s = source[j];
+                double t = target[j];
+                sum[j] = finiteOrZero(s + t);
+                difference[j] = finiteOrZero(s - t);
+                product[j] = finiteOrZero(s * t);
+                quotient[j] = finiteOrZero(s / t);
+            }
+        }
+        else {
+            int[] indices = rows.getArray();
+            for (int i=0, numOfRows=rows.size(); i<numOfRows; i++) {
+                int j = indices[i];
+                double s = source[j];
+                double t = target[j];
+                sum[j] = finiteOrZero(s + t);
+                difference[j] = finiteOrZero(s - t);
+                product[j] = finiteOrZero(s * t);
+                quotient[j] = finiteOrZero(s / t);
+            }
+        }
+    }
+
+    /**
+     * The rows of a dataset are distinct, so if their number equals the length of the columns they contain every row
+     * (in some order), and the kernels can go over the arrays sequentially
+     * @param rows
+     * @param result
+     * @return
+     */
+    private static boolean coversAllRows(RowIndices rows, double[] result) {
+        return rows.size() == result.length;
+    }
+
+    /**
+     * Returns 0 if the value is NaN or infinite and the value otherwise. x - x is 0 only for finite values (it is NaN
+     * for both NaN and infinity), which avoids the two method calls and branches of isNaN and isInfinite
+     * @param value
+     * @return
+     */
+    private static double finiteOrZero(double value) {
+        return value - value == 0 ? value : 0;
+    }
+}
@@ -0,0 +1,182 @@
+package explorekit.operators;
+
+import explorekit.data.Column;
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.data.DerivedNumericColumn;
+import explorekit.data.RowIndices;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the columns generated for candidate attributes, so that the same OperatorAssignment is not generated
+ * again and again for the same fold configuration (the filter evaluation, the evaluation on the training sub-folds
+ * and the wrapper evaluation all require the same columns). The cache is bounded by the (estimated) memory
+ * footprint of the columns it holds and the least recently used columns are evicted first.
+ *
+ * A column is identified by the OperatorAssignment object that created it and by the rows of the dataset it
+ * was created for: the training rows (used by processTrainingSet) and all the rows (used by generate).
+ *
+ * Only columns that hold their values are cached. A derived column (see DerivedNumericColumn) keeps its source
+ * columns, the state of its operator and the rows of its dataset alive, which can't be estimated from the column
+ * itself, while generating it again costs little more than the processTrainingSet of its operator.
+ */
+public class CandidateColumnCache {
+
+    private final long maxSizeInBytes;
+    private long currentSizeInBytes = 0;
+    private final LinkedHashMap<CacheKey, ColumnInfo> columns = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSizeInMB the maximal (estimated) size of the columns held by the cache. A value of 0 disables it
+     */
+    public CandidateColumnCache(long maxSizeInMB) {
+        this.maxSizeInBytes = maxSizeInMB * 1024 * 1024;
+    }
+
+    /**
+     * Returns the cached column of the assignment, or null if it is not in the cache
+     * @param dataset
+     * @param oa
+     * @return
+     */
+    public ColumnInfo get(Dataset dataset, OperatorAssignment oa) {
+        if (maxSizeInBytes <= 0) {
+            return null;
+        }
+        ColumnInfo ci;
+        synchronized (this) {
+            ci = columns.get(new CacheKey(oa, dataset));
+        }
+        if (ci != null) {
+            hits.incrementAndGet();
+        }
+        else {
+            misses.incrementAndGet();
+        }
+        return ci;
+    }
+
+    /**
+     * Adds a generated column to the cache and evicts the least recently used columns if the size limit is exceeded.
+     * Derived columns are not cached
+     * @param dataset
+     * @param oa
+     * @param ci
+     */
+    public void put(Dataset dataset, OperatorAssignment oa, ColumnInfo ci) {
+        if (maxSizeInBytes <= 0 || ci == null || ci.getColumn() instanceof DerivedNumericColumn) {
+            return;
+        }
+        long columnSize = estimateSizeInBytes(ci);
+        if (columnSize > maxSizeInBytes) {
+            return;
+        }
+        synchronized (this) {
+            ColumnInfo previous = columns.put(new CacheKey(oa, dataset), ci);
+            if (previous != null) {
+                currentSizeInBytes -= estimateSizeInBytes(previous);
+            }
+            currentSizeInBytes += columnSize;
+
+            Iterator<Map.Entry<CacheKey, ColumnInfo>> iterator = columns.entrySet().iterator();
+            while (currentSizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+                Map.Entry<CacheKey, ColumnInfo> eldest = iterator.next();
+                currentSizeInBytes -= estimateSizeInBytes(eldest.getValue());
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all the columns from the cache (the counters are not reset)
+     */
+    public synchronized void clear() {
+        columns.clear();
+        currentSizeInBytes = 0;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized int getNumOfCachedColumns() {
+        return columns.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return currentSizeInBytes;
+    }
+
+    public String getStatistics() {
+        return "candidate column cache: " + getNumOfCachedColumns() + " columns (" + (getSizeInBytes() / (1024 * 1024)) +
+                "MB), hits: " + getHitCount() + ", misses: " + getMissCount() + ", evictions: " + getEvictionCount();
+    }
+
+    /**
+     * A rough estimate of the memory held by the column: the values array plus a fixed overhead
+     * @param ci
+     * @return
+     */
+    private static long estimateSizeInBytes(ColumnInfo ci) {
+        long overhead = 128;
+        Column column = ci.getColumn();
+        switch (column.getType()) {
+            case Numeric:
+            case Date:
+                return overhead + 8L * column.getNumOfInstances();
+            case Discrete:
+            case String:
+                return overhead + 4L * column.getNumOfInstances();
+            default:
+                return overhead + 8L * column.getNumOfInstances();
+        }
+    }
+
+    /**
+     * The assignment is compared by identity, while the rows are compared by their content
+     */
+    private static class CacheKey {
+        private final OperatorAssignment oa;
+        private final RowIndices trainingIndices;
+        private final RowIndices indices;
+        private final int hash;
+
+        CacheKey(OperatorAssignment oa, Dataset dataset) {
+            this.oa = oa;
+            this.trainingIndices = dataset.getIndicesOfTrainingInstances();
+            this.indices = dataset.getIndices();
+            this.hash = 31 * (31 * System.identityHashCode(oa) + trainingIndices.hashCode()) + indices.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return oa == other.oa && hash == other.hash && trainingIndices.equals(other.trainingIndices) && indices.equals(other.indices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
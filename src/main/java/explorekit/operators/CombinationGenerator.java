@@ -1,36 +1,54 @@
 package explorekit.operators;
-import java.math.BigInteger;
 
 
 /**
+ * Generates the combinations of r out of n items in lexicographic order. Every combination has a rank (its position
+ * in that order) and a generator covers a range of ranks: the first combination of the range is unranked directly
+ * and every following one is generated from its predecessor. The counts are longs and getNext() reuses the same
+ * array, so the iteration does not allocate (the returned array must not be modified). trySplit() divides the
+ * remaining combinations between two generators, so they can be consumed by parallel workers.
+ *
  * Created by giladkatz on 29/02/2016.
  */
 public class CombinationGenerator {
 
-    private int[] a;
-    private int n;
-    private int r;
-    private BigInteger numLeft;
-    private BigInteger total;
+    private final int[] a;
+    private final int n;
+    private final int r;
+    private long fromRank;
+    private final long toRank;
+    //the rank of the combination that the next call to getNext returns
+    private long nextRank;
+    //false if the next combination needs to be unranked (a does not hold its predecessor)
+    private boolean positioned;
 
     //------------
     // Constructor
     //------------
 
     public CombinationGenerator (int n, int r) {
+        this (n, r, 0, getNumOfCombinations (n, r));
+    }
+
+    //---------------------------------------------------------------
+    // Constructor for the combinations whose ranks are in [from, to)
+    //---------------------------------------------------------------
+
+    public CombinationGenerator (int n, int r, long fromRank, long toRank) {
         if (r > n) {
             throw new IllegalArgumentException ();
         }
         if (n < 1) {
             throw new IllegalArgumentException ();
         }
+        if (fromRank < 0 || fromRank > toRank || toRank > getNumOfCombinations (n, r)) {
+            throw new IllegalArgumentException ("invalid range of ranks [" + fromRank + ", " + toRank + ")");
+        }
         this.n = n;
         this.r = r;
+        this.fromRank = fromRank;
+        this.toRank = toRank;
         a = new int[r];
-        BigInteger nFact = getFactorial (n);
-        BigInteger rFact = getFactorial (r);
-        BigInteger nminusrFact = getFactorial (n - r);
-        total = nFact.divide (rFact.multiply (nminusrFact));
         reset ();
     }
 
@@ -39,18 +57,16 @@ public class CombinationGenerator {
     //------
 
     public void reset () {
-        for (int i = 0; i < a.length; i++) {
-            a[i] = i;
-        }
-        numLeft = new BigInteger (total.toString ());
+        nextRank = fromRank;
+        positioned = false;
     }
 
     //------------------------------------------------
     // Return number of combinations not yet generated
     //------------------------------------------------
 
-    public BigInteger getNumLeft () {
-        return numLeft;
+    public long getNumLeft () {
+        return toRank - nextRank;
     }
 
     //-----------------------------
@@ -58,27 +74,76 @@ public class CombinationGenerator {
     //-----------------------------
 
     public boolean hasMore () {
-        return numLeft.compareTo (BigInteger.ZERO) == 1;
+        return nextRank < toRank;
+    }
+
+    //---------------------------------------------------
+    // Return total number of combinations (in the range)
+    //---------------------------------------------------
+
+    public long getTotal () {
+        return toRank - fromRank;
+    }
+
+    //--------------------------------------------------------
+    // Return the rank of the combination getNext returns next
+    //--------------------------------------------------------
+
+    public long getNextRank () {
+        return nextRank;
     }
 
-    //------------------------------------
-    // Return total number of combinations
-    //------------------------------------
+    //------------------------------------------------
+    // Return the number of combinations of r out of n
+    //------------------------------------------------
+
+    public static long getNumOfCombinations (int n, int r) {
+        if (r < 0 || r > n) {
+            return 0;
+        }
+        int k = Math.min (r, n - r);
+        long combinations = 1;
+        for (int i = 1; i <= k; i++) {
+            //the product of i consecutive numbers is divisible by i!, so the division is exact
+            combinations = Math.multiplyExact (combinations, n - k + i) / i;
+        }
+        return combinations;
+    }
 
-    public BigInteger getTotal () {
-        return total;
+    //----------------------------------------------------------------------
+    // Write the combination of the given (lexicographic) rank to combination
+    //----------------------------------------------------------------------
+
+    public static void unrank (int n, int r, long rank, int[] combination) {
+        int item = 0;
+        for (int i = 0; i < r; i++) {
+            //the number of combinations that have item at position i (the rest are chosen from the items after it)
+            long count = getNumOfCombinations (n - item - 1, r - i - 1);
+            while (rank >= count) {
+                rank -= count;
+                item++;
+                count = getNumOfCombinations (n - item - 1, r - i - 1);
+            }
+            combination[i] = item;
+            item++;
+        }
     }
 
-    //------------------
-    // Compute factorial
-    //------------------
+    //---------------------------------------------------------------------
+    // Split off the first half of the remaining combinations (null if less
+    // than two remain). This generator continues with the second half
+    //---------------------------------------------------------------------
 
-    private static BigInteger getFactorial (int n) {
-        BigInteger fact = BigInteger.ONE;
-        for (int i = n; i > 1; i--) {
-            fact = fact.multiply (new BigInteger (Integer.toString (i)));
+    public CombinationGenerator trySplit () {
+        if (getNumLeft () < 2) {
+            return null;
         }
-        return fact;
+        long middle = nextRank + getNumLeft () / 2;
+        CombinationGenerator prefix = new CombinationGenerator (n, r, nextRank, middle);
+        fromRank = middle;
+        nextRank = middle;
+        positioned = false;
+        return prefix;
     }
 
     //--------------------------------------------------------
@@ -87,8 +152,10 @@ public class CombinationGenerator {
 
     public int[] getNext () {
 
-        if (numLeft.equals (total)) {
-            numLeft = numLeft.subtract (BigInteger.ONE);
+        if (!positioned) {
+            unrank (n, r, nextRank, a);
+            positioned = true;
+            nextRank++;
             return a;
         }
 
@@ -101,7 +168,7 @@ public class CombinationGenerator {
             a[j] = a[i] + j - i;
         }
 
-        numLeft = numLeft.subtract (BigInteger.ONE);
+        nextRank++;
         return a;
 
     }
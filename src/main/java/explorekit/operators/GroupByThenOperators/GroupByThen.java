@@ -1,33 +1,68 @@
 package explorekit.operators.GroupByThenOperators;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
+import explorekit.data.NumericColumn;
 import explorekit.operators.Operator;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Created by giladkatz on 12/02/2016.
  */
 public abstract class GroupByThen extends Operator {
-    protected ListMultimap<List<Integer>, Double> valuesPerKey = ArrayListMultimap.create();
+    protected GroupByThenAggregation aggregation;
+    //the value of the generated attribute for the rows of every group
+    protected double[] valuePerGroup;
+    //the value for rows whose source values don't appear in the training set
+    protected double missingValuesVal;
 
     public void processTrainingSet(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
-        for (int i =0; i<dataset.getNumOfTrainingDatasetRows(); i++) {
-            final int j = dataset.getIndicesOfTrainingInstances().get(i);
-            List<Integer> sourceValues = sourceColumns.stream().map(c -> (Integer) c.getColumn().getValue(j)).collect(Collectors.toList());
-            double targetValue = (double) targetColumns.get(0).getColumn().getValue(j);
-            if (Double.isNaN(targetValue) || Double.isInfinite(targetValue)) {
-                //don't do anything. If there are no other values, this will be taken care of by the "general" value
-            }
-            else {
-                valuesPerKey.put(sourceValues, targetValue);
+        processTrainingSet(new GroupByThenAggregation(dataset, sourceColumns, targetColumns.get(0)));
+    }
+
+    /**
+     * Uses an existing aggregation of the training set. Since all the GroupByThen operators are computed from the
+     * same statistics, the operators applied on the same source and target columns can share one aggregation
+     * @param aggregation
+     */
+    public void processTrainingSet(GroupByThenAggregation aggregation) {
+        this.aggregation = aggregation;
+        valuePerGroup = new double[aggregation.getNumOfGroups()];
+        for (int group=0; group<aggregation.getNumOfGroups(); group++) {
+            if (aggregation.getCount(group) > 0) {
+                valuePerGroup[group] = getGroupValue(group);
             }
         }
+        //now we compute the "missing values val" - the value for samples in the test set for which we don't have a values based on the training set
+        missingValuesVal = aggregation.getAverageOverGroups(valuePerGroup);
+    }
+
+    /**
+     * Returns the value of the generated attribute for the rows of the group, based on the statistics of the aggregation
+     * @param group
+     * @return
+     */
+    protected abstract double getGroupValue(int group);
+
+    /**
+     * Generates the values of the new attribute. The values are generated BOTH for the training and test folds
+     * (but the values are calculated based ONLY on the training set)
+     * @param dataset
+     * @return
+     */
+    protected NumericColumn generateValues(Dataset dataset) {
+        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
+        double[] values = column.getDoubleValues();
+
+        int numOfRows = dataset.getNumberOfRows();
+        for (int i=0; i<numOfRows; i++) {
+            int j = dataset.getIndices().get(i);
+            int group = aggregation.getGroup(j);
+            values[j] = (group == -1) ? missingValuesVal : valuePerGroup[group];
+        }
+        return column;
     }
 
     public boolean isApplicable(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
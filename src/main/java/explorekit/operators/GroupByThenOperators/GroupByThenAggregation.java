@@ -0,0 +1,133 @@
+package explorekit.operators.GroupByThenOperators;
+
+import explorekit.data.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The per-group statistics of a target column, where the groups are defined by the values of the source columns
+ * in the training rows of a dataset. All the statistics used by the GroupByThen operators (count, average, standard
+ * deviation, min and max) are computed in a single scan over the training rows and are kept in primitive arrays
+ * indexed by the group id assigned by a GroupKeyEncoder. The average and the standard deviation are computed with
+ * Welford's algorithm.
+ *
+ * Once created the object is not modified, so it can be used by multiple operators (and threads) at the same time.
+ */
+public class GroupByThenAggregation {
+    private final GroupKeyEncoder encoder;
+    private int numOfGroups;
+    private int[] counts;
+    private double[] means;
+    //the sum of the squared differences from the mean
+    private double[] m2s;
+    private double[] mins;
+    private double[] maxs;
+
+    public GroupByThenAggregation(Dataset dataset, List<ColumnInfo> sourceColumns, ColumnInfo targetColumnInfo) {
+        encoder = new GroupKeyEncoder(sourceColumns);
+        Column targetColumn = targetColumnInfo.getColumn();
+        RowIndices trainingIndices = dataset.getIndicesOfTrainingInstances();
+        int numOfTrainingRows = dataset.getNumOfTrainingDatasetRows();
+
+        allocate((int) Math.max(1, Math.min(encoder.getMaxNumOfGroups(), Math.min(numOfTrainingRows, 1024))));
+        for (int i=0; i<numOfTrainingRows; i++) {
+            int j = trainingIndices.get(i);
+            int group = encoder.encode(j);
+            if (group >= counts.length) {
+                allocate(Math.max(group + 1, counts.length * 2));
+            }
+            double value = targetColumn.getDouble(j);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                //don't do anything. If there are no other values, this will be taken care of by the "general" value
+                continue;
+            }
+            int count = ++counts[group];
+            double delta = value - means[group];
+            means[group] += delta / count;
+            m2s[group] += delta * (value - means[group]);
+            mins[group] = Math.min(mins[group], value);
+            maxs[group] = Math.max(maxs[group], value);
+        }
+        numOfGroups = encoder.getNumOfGroups();
+    }
+
+    /**
+     * Returns the group of the row, or -1 if the training set contains no (valid) target values for the source values of the row
+     * @param row
+     * @return
+     */
+    public int getGroup(int row) {
+        int group = encoder.lookup(row);
+        if (group == -1 || counts[group] == 0) {
+            return -1;
+        }
+        return group;
+    }
+
+    public int getNumOfGroups() {
+        return numOfGroups;
+    }
+
+    public int getCount(int group) {
+        return counts[group];
+    }
+
+    public double getAverage(int group) {
+        return means[group];
+    }
+
+    public double getStdev(int group) {
+        return Math.sqrt(m2s[group] / counts[group]);
+    }
+
+    public double getMin(int group) {
+        return mins[group];
+    }
+
+    public double getMax(int group) {
+        return maxs[group];
+    }
+
+    /**
+     * Returns the average of the given per-group values over the groups that have values. Used as the value for rows
+     * whose source values did not appear in the training set
+     * @param valuePerGroup
+     * @return
+     */
+    public double getAverageOverGroups(double[] valuePerGroup) {
+        double sum = 0;
+        int numOfGroupsWithValues = 0;
+        for (int group=0; group<numOfGroups; group++) {
+            if (counts[group] > 0) {
+                sum += valuePerGroup[group];
+                numOfGroupsWithValues++;
+            }
+        }
+        if (numOfGroupsWithValues == 0) {
+            throw new NoSuchElementException("No value present");
+        }
+        return sum / numOfGroupsWithValues;
+    }
+
+    private void allocate(int capacity) {
+        int oldCapacity = counts == null ? 0 : counts.length;
+        if (counts == null) {
+            counts = new int[capacity];
+            means = new double[capacity];
+            m2s = new double[capacity];
+            mins = new double[capacity];
+            maxs = new double[capacity];
+        }
+        else {
+            counts = Arrays.copyOf(counts, capacity);
+            means = Arrays.copyOf(means, capacity);
+            m2s = Arrays.copyOf(m2s, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+        }
+        Arrays.fill(mins, oldCapacity, capacity, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, oldCapacity, capacity, Double.NEGATIVE_INFINITY);
+    }
+}
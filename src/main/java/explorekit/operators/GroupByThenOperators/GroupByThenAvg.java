@@ -2,27 +2,15 @@ package explorekit.operators.GroupByThenOperators;
 
 import explorekit.data.*;
 
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Created by giladkatz on 12/02/2016.
  */
 public class GroupByThenAvg extends GroupByThen {
-    private Map<List<Integer>, Double> avgValuePerKey = new HashMap<>();
-    private double missingValuesVal;
 
-    public void processTrainingSet(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
-        super.processTrainingSet(dataset, sourceColumns, targetColumns);
-        for (Map.Entry<List<Integer>, Collection<Double>> kv : valuesPerKey.asMap().entrySet()) {
-            Collection<Double> values = kv.getValue();
-            avgValuePerKey.put(kv.getKey(), values.stream().mapToDouble(Double::doubleValue).average().getAsDouble());
-        }
-        //now we compute the "missing values val" - the value for samples in the test set for which we don't have a values based on the training set
-        missingValuesVal = avgValuePerKey.values().stream().mapToDouble(Double::doubleValue).average().getAsDouble();
+    protected double getGroupValue(int group) {
+        return aggregation.getAverage(group);
     }
 
     /**
@@ -34,20 +22,7 @@ public class GroupByThenAvg extends GroupByThen {
      * @return
      */
     public ColumnInfo generate(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, boolean enforceDistinctVal) {
-        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
-
-        int numOfRows = dataset.getNumberOfRows();
-
-        for (int i=0; i<numOfRows; i++) {
-            int j = dataset.getIndices().get(i);
-            List<Integer> sourceValues = sourceColumns.stream().map(c -> (Integer) c.getColumn().getValue(j)).collect(Collectors.toList());
-            if (!avgValuePerKey.containsKey(sourceValues)) {
-                column.setValue(j, missingValuesVal);
-            }
-            else {
-                column.setValue(j, avgValuePerKey.get(sourceValues));
-            }
-        }
+        NumericColumn column = generateValues(dataset);
 
         //now we generate the name of the new attribute
         String attString = generateName(sourceColumns, targetColumns);
@@ -6,34 +6,15 @@ import explorekit.data.Dataset;
 import explorekit.data.NumericColumn;
 import explorekit.operators.Operator;
 
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Created by giladkatz on 05/03/2016.
  */
 public class GroupByThenCount extends GroupByThen {
-    private Map<List<Integer>, Double> countValuePerKey = new HashMap<>();
-    private double missingValuesVal;
 
-    public void processTrainingSet(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
-        super.processTrainingSet(dataset, sourceColumns, targetColumns);
-        for (Map.Entry<List<Integer>, Collection<Double>> kv : valuesPerKey.asMap().entrySet()) {
-            Collection<Double> values = kv.getValue();
-            double val = (double)values.stream().mapToDouble(Double::doubleValue).count();
-            if (Double.isNaN(val) || Double.isInfinite(val)) {
-                countValuePerKey.put(kv.getKey(), 0.0);
-            }
-            else {
-                countValuePerKey.put(kv.getKey(), val);
-            }
-
-        }
-        //now we compute the "missing values val" - the value for samples in the test set for which we don't have a values based on the training set
-        missingValuesVal = countValuePerKey.values().stream().mapToDouble(Double::doubleValue).average().getAsDouble();
+    protected double getGroupValue(int group) {
+        return aggregation.getCount(group);
     }
 
     /**
@@ -45,20 +26,7 @@ public class GroupByThenCount extends GroupByThen {
      * @return
      */
     public ColumnInfo generate(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, boolean enforceDistinctVal) {
-        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
-
-        int numOfRows = dataset.getNumberOfRows();
-
-        for (int i=0; i<numOfRows; i++) {
-            int j = dataset.getIndices().get(i);
-            List<Integer> sourceValues = sourceColumns.stream().map(c -> (Integer) c.getColumn().getValue(j)).collect(Collectors.toList());
-            if (!countValuePerKey.containsKey(sourceValues)) {
-                column.setValue(j, missingValuesVal);
-            }
-            else {
-                column.setValue(j, countValuePerKey.get(sourceValues));
-            }
-        }
+        NumericColumn column = generateValues(dataset);
 
         //now we generate the name of the new attribute
         String attString = generateName(sourceColumns, targetColumns);
@@ -3,9 +3,7 @@ package explorekit.operators;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Created by giladkatz on 12/02/2016.
@@ -38,20 +36,6 @@ public abstract class Operator {
             return true;
         }
 
-        HashMap<Object, Object> distinctValsDict = new HashMap<>();
-        int numOfRows = dataset.getNumberOfRows();
-
-        for (int i = 0; i < numOfRows; i++) {
-            int j = dataset.getIndices().get(i);
-            List<Object> sourceValues = dataset.getDistinctValueColumns().stream().map(c -> c.getColumn().getValue(j)).collect(Collectors.toList());
-            if (!distinctValsDict.containsKey(sourceValues)) {
-                distinctValsDict.put(sourceValues, evaluatedColumn.getColumn().getValue(j));
-            } else {
-                if (!distinctValsDict.get(sourceValues).equals(evaluatedColumn.getColumn().getValue(j))) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return dataset.getDistinctValueGroups().isSingleValuedWithinGroups(evaluatedColumn.getColumn(), dataset.getIndices());
     }
 }
@@ -0,0 +1,275 @@
+package explorekit.operators;
+
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.operators.UnaryOperators.UnaryOperator;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the operator assignments of a dataset lazily, without materializing the combinations of source
+ * attributes or the assignments in advance (see OperatorsAssignmentsManager.streamOperatorAssignments).
+ *
+ * Every source combination has a rank: the combinations of each size (from the largest to 1) are ranked in
+ * lexicographic order, and the sizes follow each other. A spliterator covers a range of ranks, which is halved on
+ * every split, and generates its combinations one at a time with a CombinationGenerator (the first combination of a
+ * range is unranked, so a split does not require going over the combinations that precede it).
+ * Combinations are pruned (the attributes that must be included, the distinct value constraint) before their source
+ * list is allocated, and the targets that overlap with the sources are removed once per combination rather than
+ * once per operator. Lists and assignments are only allocated for assignments that are applicable.
+ *
+ * The spliterator enumerates either the primary assignments or the assignments with a secondary (unary) operator,
+ * in the order in which getOperatorAssignments always returned them.
+ */
+class OperatorAssignmentSpliterator implements Spliterator<OperatorAssignment> {
+
+    /**
+     * What all the spliterators of an enumeration share. It is not modified after its creation
+     */
+    static class Enumeration {
+        private final Dataset dataset;
+        private final List<ColumnInfo> attributes;
+        //null if there is no restriction. The columns don't override equals(), so they are compared by identity
+        private final Set<ColumnInfo> attributesToInclude;
+        private final List<Operator> operators;
+        //the names of the unary operators that can be applied to the output of every operator (by the operator's index)
+        private final List<List<String>> secondaryOperatorNames = new ArrayList<>();
+        private final boolean applyDistinctValueConstraint;
+        //the ids of the columns that satisfy the distinct value constraint (see ColumnInfo.getId)
+        private final BitSet distinctValueCompliantColumnIds;
+        //the combination sizes (in the order of the enumeration) and the rank of the first combination of every size
+        private final int[] combinationSizes;
+        private final long[] firstRanks;
+        private final long numOfCombinations;
+
+        Enumeration(Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators, int maxCombinationSize) throws Exception {
+            this.dataset = dataset;
+            this.attributes = dataset.getAllColumns(false);
+            this.operators = operators;
+            if (attributesToInclude != null && attributesToInclude.size() > 0) {
+                this.attributesToInclude = Collections.newSetFromMap(new IdentityHashMap<>());
+                this.attributesToInclude.addAll(attributesToInclude);
+            }
+            else {
+                this.attributesToInclude = null;
+            }
+
+            boolean areNonUniaryOperatorsBeingUsed = operators.size() > 0 && !operators.get(0).getType().equals(Operator.operatorType.Unary);
+            applyDistinctValueConstraint = areNonUniaryOperatorsBeingUsed && dataset.getDistinctValueColumns() != null && dataset.getDistinctValueColumns().size() > 0;
+            distinctValueCompliantColumnIds = applyDistinctValueConstraint ? OperatorsAssignmentsManager.getIds(dataset.getDistinctValueCompliantColumns()) : null;
+
+            List<Operator> unaryOperators = null;
+            for (Operator operator : operators) {
+                List<String> names = new ArrayList<>();
+                if (operator.getType() != Operator.operatorType.Unary) {
+                    if (unaryOperators == null) {
+                        unaryOperators = OperatorsAssignmentsManager.getUnaryOperatorsList();
+                    }
+                    for (Operator unaryOperator : unaryOperators) {
+                        if (((UnaryOperator) unaryOperator).requiredInputType().equals(operator.getOutputType())) {
+                            names.add(unaryOperator.getName());
+                        }
+                    }
+                }
+                secondaryOperatorNames.add(names);
+            }
+
+            int numOfAttributes = attributes.size();
+            int maxSize = Math.max(0, Math.min(maxCombinationSize, numOfAttributes));
+            combinationSizes = new int[maxSize];
+            firstRanks = new long[maxSize];
+            long rank = 0;
+            for (int i=0; i<maxSize; i++) {
+                combinationSizes[i] = maxSize - i;
+                firstRanks[i] = rank;
+                rank = Math.addExact(rank, CombinationGenerator.getNumOfCombinations(numOfAttributes, combinationSizes[i]));
+            }
+            numOfCombinations = rank;
+        }
+
+        long getNumOfCombinations() {
+            return numOfCombinations;
+        }
+    }
+
+    private final Enumeration enumeration;
+    private final boolean secondaryAssignments;
+    //the rank of the next source combination and the end of the range (exclusive)
+    private long nextRank;
+    private final long endRank;
+
+    //generates the combinations from nextRank until the end of the range or of the combinations of its size
+    private CombinationGenerator combinationGenerator;
+    private final List<ColumnInfo> sourcesProbe = new ArrayList<>();
+    private final List<ColumnInfo> targetProbe = new ArrayList<>(Collections.singletonList((ColumnInfo) null));
+    private final List<ColumnInfo> targets = new ArrayList<>();
+    private final ArrayDeque<OperatorAssignment> buffer = new ArrayDeque<>();
+
+    /**
+     * @param enumeration
+     * @param secondaryAssignments if true, the assignments with a secondary operator are enumerated, otherwise the primary assignments
+     * @param nextRank
+     * @param endRank
+     */
+    OperatorAssignmentSpliterator(Enumeration enumeration, boolean secondaryAssignments, long nextRank, long endRank) {
+        this.enumeration = enumeration;
+        this.secondaryAssignments = secondaryAssignments;
+        this.nextRank = nextRank;
+        this.endRank = endRank;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OperatorAssignment> action) {
+        while (buffer.isEmpty()) {
+            if (!advanceCombination()) {
+                return false;
+            }
+        }
+        action.accept(buffer.poll());
+        return true;
+    }
+
+    /**
+     * Splits the remaining source combinations in half. The spliterator can be split during its traversal, except
+     * while the assignments of a combination are buffered (they precede all the remaining combinations)
+     * @return
+     */
+    @Override
+    public Spliterator<OperatorAssignment> trySplit() {
+        if (!buffer.isEmpty() || endRank - nextRank < 2) {
+            return null;
+        }
+        long middle = nextRank + (endRank - nextRank) / 2;
+        OperatorAssignmentSpliterator prefix = new OperatorAssignmentSpliterator(enumeration, secondaryAssignments, nextRank, middle);
+        nextRank = middle;
+        //the generator covers ranks that now belong to the prefix, the combination of middle is unranked instead
+        combinationGenerator = null;
+        return prefix;
+    }
+
+    /**
+     * The number of assignments is not known in advance, so the number of remaining source combinations is returned
+     * @return
+     */
+    @Override
+    public long estimateSize() {
+        return endRank - nextRank;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Moves to the next source combination and adds its assignments to the buffer
+     * @return false if there are no more combinations
+     */
+    private boolean advanceCombination() {
+        if (nextRank >= endRank) {
+            combinationGenerator = null;
+            return false;
+        }
+        if (combinationGenerator == null || !combinationGenerator.hasMore()) {
+            //find the size of the combination of nextRank (there are only a few sizes)
+            int i = enumeration.combinationSizes.length - 1;
+            while (enumeration.firstRanks[i] > nextRank) {
+                i--;
+            }
+            int combinationSize = enumeration.combinationSizes[i];
+            long firstRank = enumeration.firstRanks[i];
+            long lastRank = Math.min(endRank, i + 1 < enumeration.firstRanks.length ? enumeration.firstRanks[i + 1] : enumeration.numOfCombinations);
+            combinationGenerator = new CombinationGenerator(enumeration.attributes.size(), combinationSize, nextRank - firstRank, lastRank - firstRank);
+        }
+        int[] combination = combinationGenerator.getNext();
+        nextRank++;
+
+        sourcesProbe.clear();
+        for (int index : combination) {
+            sourcesProbe.add(enumeration.attributes.get(index));
+        }
+        try {
+            addAssignments();
+        }
+        catch (Exception ex) {
+            throw new IllegalStateException("failed to enumerate the assignments of " + sourcesProbe.size() + " source attributes", ex);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the assignments of the current source combination to the buffer, in the order of getOperatorAssignments
+     * @throws Exception
+     */
+    private void addAssignments() throws Exception {
+        //first check if any of the required atts (if there are any) are included
+        if (enumeration.attributesToInclude != null) {
+            boolean included = false;
+            for (ColumnInfo ci : sourcesProbe) {
+                if (enumeration.attributesToInclude.contains(ci)) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return;
+            }
+        }
+        //if a distinct dolumn(s) exists, we need to make sure that at least one column (or one of its ancestors) satisfies the constraint
+        if (enumeration.applyDistinctValueConstraint &&
+                !OperatorsAssignmentsManager.isDistinctValueCompliantAttributeExists(enumeration.distinctValueCompliantColumnIds, sourcesProbe)) {
+            return;
+        }
+
+        //the targets that don't overlap with the sources are the same for all the operators
+        targets.clear();
+        for (ColumnInfo targetColumn : enumeration.attributes) {
+            if (!OperatorsAssignmentsManager.overlapExistsBetweenSourceAndTargetAttributes(sourcesProbe, targetColumn)) {
+                targets.add(targetColumn);
+            }
+        }
+
+        List<ColumnInfo> sources = null;
+        for (int i=0; i<enumeration.operators.size(); i++) {
+            Operator operator = enumeration.operators.get(i);
+            List<String> secondaryOperatorNames = enumeration.secondaryOperatorNames.get(i);
+            if (secondaryAssignments && secondaryOperatorNames.isEmpty()) {
+                continue;
+            }
+
+            if (operator.isApplicable(enumeration.dataset, sourcesProbe, Collections.<ColumnInfo>emptyList())) {
+                if (sources == null) {
+                    sources = new ArrayList<>(sourcesProbe);
+                }
+                addAssignment(operator, secondaryOperatorNames, sources, null);
+            }
+
+            //now we pair the source attributes with a target attribute and check again
+            for (ColumnInfo targetColumn : targets) {
+                targetProbe.set(0, targetColumn);
+                if (operator.isApplicable(enumeration.dataset, sourcesProbe, targetProbe)) {
+                    if (sources == null) {
+                        sources = new ArrayList<>(sourcesProbe);
+                    }
+                    List<ColumnInfo> tempList = new ArrayList<>();
+                    tempList.add(targetColumn);
+                    addAssignment(operator, secondaryOperatorNames, sources, tempList);
+                }
+            }
+        }
+    }
+
+    private void addAssignment(Operator operator, List<String> secondaryOperatorNames, List<ColumnInfo> sources, List<ColumnInfo> targets) throws Exception {
+        Operator assignedOperator = OperatorsAssignmentsManager.getOperator(operator);
+        if (!secondaryAssignments) {
+            buffer.add(new OperatorAssignment(sources, targets, assignedOperator, null));
+            return;
+        }
+        //the assignments that differ only in their secondary operator share the primary operator
+        for (String secondaryOperatorName : secondaryOperatorNames) {
+            UnaryOperator secondaryOperator = (UnaryOperator) OperatorsAssignmentsManager.getOperator(secondaryOperatorName, Operator.operatorType.Unary);
+            buffer.add(new OperatorAssignment(sources, targets, assignedOperator, secondaryOperator));
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package explorekit.operators;
 
 import explorekit.Evaluation.ClassificationResults;
+import explorekit.Evaluation.EvaluationExecutor;
 import explorekit.Evaluation.FilterEvaluators.FilterEvaluator;
 import explorekit.Evaluation.FilterEvaluators.InformationGainFilterEvaluator;
 import explorekit.Evaluation.WrapperEvaluation.WrapperEvaluator;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
+import explorekit.data.ColumnStore;
 import explorekit.data.Dataset;
+import explorekit.metrics.MetricsRegistry;
 import explorekit.operators.BinaryOperators.AddBinaryOperator;
+import explorekit.operators.BinaryOperators.BinaryOperator;
 import explorekit.operators.BinaryOperators.DivisionBinaryOperator;
 import explorekit.operators.BinaryOperators.MultiplyBinaryOperator;
 import explorekit.operators.BinaryOperators.SubtractBinaryOperator;
@@ -19,9 +23,12 @@ import weka.classifiers.functions.SMO;
 import weka.classifiers.trees.J48;
 import weka.classifiers.trees.RandomForest;
 
-import java.io.*;
-import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -31,8 +38,44 @@ public class OperatorsAssignmentsManager {
 
     public static Properties properties;
 
+    /**
+     * Shared by all the instances of the class, so that columns generated during the filter evaluation can be
+     * reused by the sub-folds evaluation and the wrapper evaluation. The cache is dropped at the end of every search
+     * (see releaseCandidateColumnCache)
+     */
+    private static CandidateColumnCache candidateColumnCache;
+
     public OperatorsAssignmentsManager(Properties properties) throws Exception {
         this.properties = properties;
+        getCandidateColumnCache();
+    }
+
+    /**
+     * Returns the cache of the generated candidate columns. The cache is created the first time this function is
+     * called, with the size defined by the candidateColumnCacheSizeInMB property (0 disables the cache)
+     * @return
+     */
+    public static synchronized CandidateColumnCache getCandidateColumnCache() {
+        if (candidateColumnCache == null) {
+            long cacheSize = 0;
+            if (properties != null && properties.getProperty("candidateColumnCacheSizeInMB") != null) {
+                cacheSize = Long.parseLong(properties.getProperty("candidateColumnCacheSizeInMB"));
+            }
+            candidateColumnCache = new CandidateColumnCache(cacheSize);
+        }
+        return candidateColumnCache;
+    }
+
+    /**
+     * Drops the cache and all the columns it holds (and with them the source columns they reference). The columns are
+     * identified by the OperatorAssignment objects of a search, so they are never requested once it ends. The next
+     * call to getCandidateColumnCache creates a new cache
+     */
+    public static synchronized void releaseCandidateColumnCache() {
+        if (candidateColumnCache != null) {
+            candidateColumnCache.clear();
+            candidateColumnCache = null;
+        }
     }
 
     /**
@@ -58,6 +101,19 @@ public class OperatorsAssignmentsManager {
                 Integer.parseInt(properties.getProperty("maxNumOfAttsInOperatorSource")), filterEvaluator, subFoldTrainingDatasets, currentScores, true);
     }
 
+    /**
+     * Returns the assignments of the non-unary operators that applyNonUnaryOperators evaluates, without generating
+     * or evaluating them (see calculateFilterEvaluatorScores)
+     * @param dataset
+     * @param mustIncluseAttributes Attributes which must be in either the source or the target of every generated feature
+     * @return
+     * @throws Exception
+     */
+    public static List<OperatorAssignment> getNonUnaryOperatorAssignments(Dataset dataset, List<ColumnInfo> mustIncluseAttributes) throws Exception {
+        return getOperatorAssignmentsForEvaluation(dataset, getNonUnaryOperatorsList(), mustIncluseAttributes,
+                Integer.parseInt(properties.getProperty("maxNumOfAttsInOperatorSource")), true);
+    }
+
     /**
      * Adds the attribute to the dataset. If the operator that was used to generate the attribute is not unary
      * then we apply all relevant Unary operators to generate additional attirbutes that are added to the dataset
@@ -72,7 +128,7 @@ public class OperatorsAssignmentsManager {
         List<ColumnInfo> newlyGeneratedColumns = new ArrayList<>();
 
         //start by generating the new attribute and adding it to the dataset
-        ColumnInfo newColumn = generateColumn(dataset, oa, true);
+        ColumnInfo newColumn = materialize(generateColumn(dataset, oa, true));
         dataset.addColumn(newColumn);
         newlyGeneratedColumns.add(newColumn);
 
@@ -81,7 +137,7 @@ public class OperatorsAssignmentsManager {
             List<OperatorAssignment> additionalAttributes = applyUnaryOperators(dataset, newlyGeneratedColumns, null, new ArrayList<>(), currentScores);
 
             for (OperatorAssignment operatorAssignment : additionalAttributes) {
-                ColumnInfo ci = generateColumn(dataset, operatorAssignment, true);
+                ColumnInfo ci = materialize(generateColumn(dataset, operatorAssignment, true));
                 dataset.addColumn(ci);
                 newlyGeneratedColumns.add(ci);
             }
@@ -156,16 +212,7 @@ public class OperatorsAssignmentsManager {
                 List<ColumnInfo> mustIncluseAttributes, int maxNumOfSourceAttributes, FilterEvaluator filterEvaluator,
                 List<Dataset> subFoldTrainingDatasets, List<ClassificationResults> currentScores, boolean reduceNumberOfAttributes) throws Exception {
 
-        //in case the number of initial attributes is very high, we need narrow the search space
-        if (reduceNumberOfAttributes && (mustIncluseAttributes == null || mustIncluseAttributes.size() == 0)) {
-            //It is important to break the condition in two, because in advanced interations we always have a "must include" attribute
-            if (dataset.getAllColumns(false).size() > 60) {
-                InformationGainFilterEvaluator initialSelectionAttEvaluator = new InformationGainFilterEvaluator();
-                mustIncluseAttributes = getTopRankingDiscreteAttributesByFilterScore(dataset, initialSelectionAttEvaluator, 10);
-            }
-        }
-
-        List<OperatorAssignment> operatorAssignments = getOperatorAssignments(dataset, mustIncluseAttributes, operators, maxNumOfSourceAttributes);
+        List<OperatorAssignment> operatorAssignments = getOperatorAssignmentsForEvaluation(dataset, operators, mustIncluseAttributes, maxNumOfSourceAttributes, reduceNumberOfAttributes);
 
         //Create all the new features, save them to file and evaluate them using the filter evaluator
         generateAttributeAndCalculateFilterEvaluatorScore(dataset, filterEvaluator, subFoldTrainingDatasets, currentScores, operatorAssignments);
@@ -182,83 +229,188 @@ public class OperatorsAssignmentsManager {
         return operatorAssignments;
     }
 
-    static int counter = 0;
+    /**
+     * Returns all the assignments of the operators. If reduceNumberOfAttributes is true and the dataset has many
+     * attributes, the assignments are restricted to the top ranking discrete attributes
+     * @param dataset
+     * @param operators
+     * @param mustIncluseAttributes
+     * @param maxNumOfSourceAttributes
+     * @param reduceNumberOfAttributes
+     * @return
+     * @throws Exception
+     */
+    private static List<OperatorAssignment> getOperatorAssignmentsForEvaluation(Dataset dataset, List<Operator> operators, List<ColumnInfo> mustIncluseAttributes,
+                int maxNumOfSourceAttributes, boolean reduceNumberOfAttributes) throws Exception {
+        //in case the number of initial attributes is very high, we need narrow the search space
+        if (reduceNumberOfAttributes && (mustIncluseAttributes == null || mustIncluseAttributes.size() == 0)) {
+            //It is important to break the condition in two, because in advanced interations we always have a "must include" attribute
+            if (dataset.getAllColumns(false).size() > 60) {
+                InformationGainFilterEvaluator initialSelectionAttEvaluator = new InformationGainFilterEvaluator();
+                mustIncluseAttributes = getTopRankingDiscreteAttributesByFilterScore(dataset, initialSelectionAttEvaluator, 10);
+            }
+        }
+
+        return getOperatorAssignments(dataset, mustIncluseAttributes, operators, maxNumOfSourceAttributes);
+    }
+
+    /**
+     * Generates the attributes and calculates their filter evaluator score on the evaluation threads, passing every
+     * assignment to the consumer as soon as its evaluation is complete (the consumer is called concurrently by the
+     * evaluation threads). Once the job is cancelled, the remaining assignments are not evaluated and are not passed
+     * to the consumer.
+     * @param dataset
+     * @param filterEvaluator
+     * @param subFoldTrainingDatasets
+     * @param currentScores
+     * @param operatorAssignments
+     * @param evaluatedAssignmentConsumer
+     * @param job
+     * @throws Exception
+     */
+    public static void calculateFilterEvaluatorScores(Dataset dataset, FilterEvaluator filterEvaluator, List<Dataset> subFoldTrainingDatasets,
+                List<ClassificationResults> currentScores, List<OperatorAssignment> operatorAssignments,
+                Consumer<OperatorAssignment> evaluatedAssignmentConsumer, EvaluationExecutor.Job job) throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.FilterEvaluation, properties);
+        executor.forEach(getSiblingAssignmentBatches(operatorAssignments), (batch, batchJob) ->
+                generateAndEvaluateSiblingAssignments(dataset, filterEvaluator, subFoldTrainingDatasets, currentScores, batch, counter, evaluatedAssignmentConsumer, batchJob), job);
+    }
+
+    /**
+     * Generates the attributes of a batch of sibling assignments and calculates their filter evaluator score
+     * @param dataset
+     * @param filterEvaluator
+     * @param subFoldTrainingDatasets
+     * @param currentScores
+     * @param batch
+     * @param counter the number of assignments that were processed so far
+     * @param evaluatedAssignmentConsumer receives every assignment that was processed (may be null)
+     * @param job if the job is cancelled, the remaining assignments of the batch are not processed (may be null)
+     */
+    private static void generateAndEvaluateSiblingAssignments(Dataset dataset, FilterEvaluator filterEvaluator, List<Dataset> subFoldTrainingDatasets,
+                List<ClassificationResults> currentScores, List<OperatorAssignment> batch, AtomicInteger counter,
+                Consumer<OperatorAssignment> evaluatedAssignmentConsumer, EvaluationExecutor.Job job) {
+        //the assignments of the batch share the aggregation of every dataset
+        SiblingAssignmentBatch siblingAssignmentBatch = new SiblingAssignmentBatch(batch);
+        for (OperatorAssignment oa : batch) {
+            if (job != null && job.isCancelled()) {
+                return;
+            }
+            try {
+                int numOfAnalyzedAttributes = counter.incrementAndGet();
+                if ((numOfAnalyzedAttributes % 1000) == 0) {
+                    Date date = new Date();
+                    System.out.println("analyzed " + numOfAnalyzedAttributes + " attributes : " + date.toString());
+                }
+
+                //generating the column and evaluating it on the sub-folds does not modify the datasets, so there is
+                //no need to replicate them for every candidate (the evaluators work on empty replicas)
+                ColumnInfo ci = generateColumn(dataset, oa, true, siblingAssignmentBatch);
+                //if the filter evaluator is not null, we'll conduct the initial evaluation of the new attribute
+                if ((ci != null) && (filterEvaluator != null)) {
+                    FilterEvaluator cloneEvaluator = filterEvaluator.getCopy();
+                    double filterEvaluatorScore = EvaluateAttributeUsingTrainingSubFolds(subFoldTrainingDatasets, cloneEvaluator, oa, currentScores, siblingAssignmentBatch);
+                    oa.setFilterEvaluatorScore(filterEvaluatorScore);
+                }
+            } catch (Exception ex) {
+                System.out.println("error when generating and evaluating attribute: " + oa.getName());
+                System.out.println("The error: " + ex.getMessage());
+            }
+            if (evaluatedAssignmentConsumer != null) {
+                evaluatedAssignmentConsumer.accept(oa);
+            }
+        }
+    }
+
     private static void generateAttributeAndCalculateFilterEvaluatorScore(Dataset dataset, FilterEvaluator filterEvaluator,
                  List<Dataset> subFoldTrainingDatasets, List<ClassificationResults> currentScores,
                  List<OperatorAssignment> operatorAssignments) throws Exception {
-        //System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "1");
         System.out.println("num of attributes to evaluate: " + operatorAssignments.size());
-        counter = 0;
+        AtomicInteger counter = new AtomicInteger();
         int numOfThread = Integer.parseInt(properties.getProperty("numOfThreads"));
 
         if (numOfThread > 1) {
-            //ReentrantLock attributeGenerationLock = new ReentrantLock();
-            //ReentrantLock filterEvaluationLock = new ReentrantLock();
-            operatorAssignments.parallelStream().forEach(oa -> {
-                try {
-                    //attributeGenerationLock.lock();
-                    Dataset replicatedDataset = dataset.replicateDataset();
-                    counter++;
-                    if ((counter % 1000) == 0) {
-                        Date date = new Date();
-                        System.out.println("analyzed " + counter + " attributes : " + date.toString());
-                    }
-                    //attributeGenerationLock.unlock();
-
-                    ColumnInfo ci = generateColumn(replicatedDataset, oa, true);
-                    //if the filter evaluator is not null, we'll conduct the initial evaluation of the new attribute
-                    if ((ci != null) && (filterEvaluator != null)) {
-                        //filterEvaluationLock.lock();
-                        FilterEvaluator cloneEvaluator = filterEvaluator.getCopy();
-                        List<Dataset> replicatedSubFoldsList = new ArrayList<Dataset>();
-                        for (Dataset subFoldDataset : subFoldTrainingDatasets) {
-                            replicatedSubFoldsList.add(subFoldDataset.replicateDataset());
-                        }
-                        //filterEvaluationLock.unlock();
-                        double filterEvaluatorScore = EvaluateAttributeUsingTrainingSubFolds(replicatedSubFoldsList, cloneEvaluator, oa, currentScores);
-                        oa.setFilterEvaluatorScore(filterEvaluatorScore);
-                    }
-                } catch (Exception ex) {
-                    System.out.println("error when generating and evaluating attribute: " + oa.getName());
-                    System.out.println("The error: " + ex.getMessage());
-                }
-            });
+            EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.FilterEvaluation, properties);
+            executor.forEach(getSiblingAssignmentBatches(operatorAssignments), (batch, job) ->
+                    generateAndEvaluateSiblingAssignments(dataset, filterEvaluator, subFoldTrainingDatasets, currentScores, batch, counter, null, null));
         }
         else {
-            for (OperatorAssignment oa : operatorAssignments) {
-                try {
-                    Dataset replicatedDataset = dataset.replicateDataset();
-                    counter++;
-                    if ((counter % 1000) == 0) {
-                        System.out.println("analyzed " + counter + " attributes");
-                    }
-                    ColumnInfo ci = generateColumn(replicatedDataset, oa, true);
-                    //if the filter evaluator is not null, we'll conduct the initial evaluation of the new attribute
-                    if ((ci != null) && (filterEvaluator != null)) {
-                        FilterEvaluator cloneEvaluator = filterEvaluator.getCopy();
-                        List<Dataset> replicatedSubFoldsList = new ArrayList<Dataset>();
-                        for (Dataset subFoldDataset : subFoldTrainingDatasets) {
-                            replicatedSubFoldsList.add(subFoldDataset.replicateDataset());
-                        }
-                        double filterEvaluatorScore = -1;
-                        try {
-                            filterEvaluatorScore = EvaluateAttributeUsingTrainingSubFolds(replicatedSubFoldsList, cloneEvaluator, oa, currentScores);
+            for (List<OperatorAssignment> batch : getSiblingAssignmentBatches(operatorAssignments)) {
+                SiblingAssignmentBatch siblingAssignmentBatch = new SiblingAssignmentBatch(batch);
+                for (OperatorAssignment oa : batch) {
+                    try {
+                        int numOfAnalyzedAttributes = counter.incrementAndGet();
+                        if ((numOfAnalyzedAttributes % 1000) == 0) {
+                            System.out.println("analyzed " + numOfAnalyzedAttributes + " attributes");
                         }
-                        catch (Exception ex){
-                            int x=5;
+                        ColumnInfo ci = generateColumn(dataset, oa, true, siblingAssignmentBatch);
+                        //if the filter evaluator is not null, we'll conduct the initial evaluation of the new attribute
+                        if ((ci != null) && (filterEvaluator != null)) {
+                            FilterEvaluator cloneEvaluator = filterEvaluator.getCopy();
+                            double filterEvaluatorScore = -1;
+                            try {
+                                filterEvaluatorScore = EvaluateAttributeUsingTrainingSubFolds(subFoldTrainingDatasets, cloneEvaluator, oa, currentScores, siblingAssignmentBatch);
+                            }
+                            catch (Exception ex){
+                                int x=5;
+                            }
+                            oa.setFilterEvaluatorScore(filterEvaluatorScore);
                         }
-                        oa.setFilterEvaluatorScore(filterEvaluatorScore);
+                    } catch (Exception ex) {
+                        System.out.println("error when generating and evaluating attribute: " + oa.getName());
+                        System.out.println("The error: " + ex.getMessage());
                     }
-                } catch (Exception ex) {
-                    System.out.println("error when generating and evaluating attribute: " + oa.getName());
-                    System.out.println("The error: " + ex.getMessage());
                 }
             }
         }
+        System.out.println(getCandidateColumnCache().getStatistics());
     }
 
     /**
-     * Used to recalculate the scores of existing attributes when a new search iteration begins.
+     * Partitions the assignments into batches that are processed together. GroupByThen assignments with the same
+     * source and target columns and TimeBasedGroupByThen assignments with the same source columns are placed in the
+     * same batch (so they can share the aggregation of the dataset), as are Binary assignments with the same source and
+     * target columns (so the values of all their operations are computed in one pass). Every other assignment is a
+     * batch of its own
+     * @param operatorAssignments
+     * @return
+     */
+    private static List<List<OperatorAssignment>> getSiblingAssignmentBatches(List<OperatorAssignment> operatorAssignments) {
+        List<List<OperatorAssignment>> batches = new ArrayList<>();
+        //the columns don't override equals(), so the keys are compared by the identity of the columns
+        HashMap<List<Object>, List<OperatorAssignment>> siblingBatches = new HashMap<>();
+        for (OperatorAssignment oa : operatorAssignments) {
+            List<Object> key;
+            switch (oa.getOperator().getType()) {
+                case GroupByThen:
+                    key = Arrays.asList(Operator.operatorType.GroupByThen, oa.getSources(), oa.getTragets());
+                    break;
+                case TimeBasedGroupByThen:
+                    //the time windows don't depend on the target column
+                    key = Arrays.asList(Operator.operatorType.TimeBasedGroupByThen, oa.getSources());
+                    break;
+                case Binary:
+                    key = Arrays.asList(Operator.operatorType.Binary, oa.getSources(), oa.getTragets());
+                    break;
+                default:
+                    batches.add(Collections.singletonList(oa));
+                    continue;
+            }
+            List<OperatorAssignment> batch = siblingBatches.get(key);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                siblingBatches.put(key, batch);
+                batches.add(batch);
+            }
+            batch.add(oa);
+        }
+        return batches;
+    }
+
+    /**
+     * Used to recalculate the scores of existing attributes when a new search iteration begins. Attributes for which
+     * the filter evaluator can recalculate the score (see FilterEvaluator.canRecalculateScore) are not generated again
      * @param dataset
      * @param candidateAttributes
      * @param subFoldTrainingDatasets
@@ -272,7 +424,40 @@ public class OperatorsAssignmentsManager {
         if (!filterEvaluator.needToRecalculateScoreAtEachIteration()) {
             return;
         }
-        generateAttributeAndCalculateFilterEvaluatorScore(dataset, filterEvaluator, subFoldTrainingDatasets, currentScores, candidateAttributes);
+
+        //the candidates for which the filter evaluator saved its state are rescored without generating them again
+        List<OperatorAssignment> candidatesToRescore = new ArrayList<>();
+        List<OperatorAssignment> candidatesToRegenerate = new ArrayList<>();
+        for (OperatorAssignment oa : candidateAttributes) {
+            if (filterEvaluator.canRecalculateScore(oa, subFoldTrainingDatasets)) {
+                candidatesToRescore.add(oa);
+            }
+            else {
+                candidatesToRegenerate.add(oa);
+            }
+        }
+        System.out.println("rescoring " + candidatesToRescore.size() + " attributes, regenerating " + candidatesToRegenerate.size() + " attributes");
+
+        EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.FilterEvaluation, properties);
+        executor.forEach(candidatesToRescore, (oa, job) -> {
+            long startTime = System.nanoTime();
+            FilterEvaluator cloneEvaluator = filterEvaluator.getCopy();
+            double score = 0;
+            for (int i=0; i<subFoldTrainingDatasets.size(); i++) {
+                ClassificationResults currentScore = null;
+                if (currentScores != null) {
+                    currentScore = currentScores.get(i);
+                }
+                score += cloneEvaluator.recalculateScore(subFoldTrainingDatasets.get(i), currentScore, oa, properties);
+            }
+            oa.setFilterEvaluatorScore(score/subFoldTrainingDatasets.size());
+            MetricsRegistry.getDefault().recordTime("filter." + filterEvaluator.getClass().getSimpleName() + ".rescore", startTime);
+            MetricsRegistry.getDefault().increment("filter.rescoredCandidates");
+        });
+
+        if (candidatesToRegenerate.size() > 0) {
+            generateAttributeAndCalculateFilterEvaluatorScore(dataset, filterEvaluator, subFoldTrainingDatasets, currentScores, candidatesToRegenerate);
+        }
     }
 
     /**
@@ -281,11 +466,14 @@ public class OperatorsAssignmentsManager {
      * @param filterEvaluator
      * @param operatorAssignment
      * @param currentScores
+     * @param siblingAssignmentBatch the state shared with the sibling assignments (may be null)
      * @return
      * @throws Exception
      */
     private static double EvaluateAttributeUsingTrainingSubFolds(List<Dataset> datasets, FilterEvaluator filterEvaluator,
-                                                                 OperatorAssignment operatorAssignment, List<ClassificationResults> currentScores) throws Exception {
+                                                                 OperatorAssignment operatorAssignment, List<ClassificationResults> currentScores,
+                                                                 SiblingAssignmentBatch siblingAssignmentBatch) throws Exception {
+        long startTime = System.nanoTime();
         double finalScore = 0;
 
         for (int i=0; i<datasets.size(); i++) {
@@ -294,7 +482,7 @@ public class OperatorsAssignmentsManager {
             if (currentScores != null) {
                 currentScore = currentScores.get(i);
             }
-            ColumnInfo ci = generateColumn(dataset, operatorAssignment, false);
+            ColumnInfo ci = generateColumn(dataset, operatorAssignment, false, siblingAssignmentBatch);
             if (ci == null) {
                 return Double.MIN_VALUE;
             }
@@ -310,6 +498,8 @@ public class OperatorsAssignmentsManager {
                 finalScore += filterEvaluator.produceScore(datasetEmptyReplica, currentScore, dataset, operatorAssignment, ci, properties);
             }
         }
+        MetricsRegistry.getDefault().recordTime("filter." + filterEvaluator.getClass().getSimpleName() + ".score", startTime);
+        MetricsRegistry.getDefault().increment("filter.candidates");
         return (finalScore/datasets.size());
     }
 
@@ -324,19 +514,42 @@ public class OperatorsAssignmentsManager {
      */
     public static double applyOperatorAndPerformWrapperEvaluation(List<Dataset> datasets, OperatorAssignment operatorAssignment,
                                                                    WrapperEvaluator wrapperEvaluator, List<ClassificationResults> currentScores, Dataset completeDataset) throws Exception{
+        return applyOperatorAndPerformWrapperEvaluation(datasets, operatorAssignment, wrapperEvaluator, currentScores, completeDataset, null);
+    }
+
+    /**
+     * Identical to applyOperatorAndPerformWrapperEvaluation, but the evaluation stops (with a CancellationException)
+     * before the next dataset is evaluated if the job is cancelled
+     * @param datasets
+     * @param operatorAssignment
+     * @param wrapperEvaluator
+     * @param currentScores
+     * @param completeDataset
+     * @param job may be null
+     * @return
+     * @throws Exception
+     */
+    public static double applyOperatorAndPerformWrapperEvaluation(List<Dataset> datasets, OperatorAssignment operatorAssignment, WrapperEvaluator wrapperEvaluator,
+                                                                   List<ClassificationResults> currentScores, Dataset completeDataset, EvaluationExecutor.Job job) throws Exception{
+        long startTime = System.nanoTime();
         double score = 0;
         for (int i=0; i<datasets.size(); i++) {
+            if (job != null && job.isCancelled()) {
+                throw new CancellationException("the evaluation of " + operatorAssignment.getName() + " was cancelled");
+            }
             Dataset dataset = datasets.get(i);
             ClassificationResults currentScore = null;
             if (currentScores != null) {
                 currentScore = currentScores.get(i);
             }
             Dataset datasetReplica = dataset.replicateDataset();
-            ColumnInfo ci = generateColumn(datasetReplica, operatorAssignment, true);
+            ColumnInfo ci = materialize(generateColumn(datasetReplica, operatorAssignment, true));
             //datasetReplica.addColumn(ci);
             double iterationScore = wrapperEvaluator.produceScore(datasetReplica, currentScore, completeDataset, operatorAssignment, ci, properties);
             score += iterationScore;
         }
+        MetricsRegistry.getDefault().recordTime("wrapper." + wrapperEvaluator.getClass().getSimpleName() + ".candidate", startTime);
+        MetricsRegistry.getDefault().increment("wrapper.candidates");
         return score/(datasets.size());
     }
 
@@ -351,7 +564,7 @@ public class OperatorsAssignmentsManager {
                 currentScore = currentScores.get(i);
             }
             Dataset datasetReplica = dataset.replicateDataset();
-            ColumnInfo ci = generateColumn(datasetReplica, operatorAssignment, true);
+            ColumnInfo ci = materialize(generateColumn(datasetReplica, operatorAssignment, true));
             datasetReplica.addColumn(ci);
             double iterationScore = wrapperEvaluator.produceScoreWithSampling(datasetReplica, currentScore,numOfTimesToSamplePerFold, numOfInstancesPerSampling, randomSeed, properties);
             score += iterationScore;
@@ -368,24 +581,47 @@ public class OperatorsAssignmentsManager {
      */
     public static  void GenerateAndAddColumnToDataset(Dataset dataste, List<OperatorAssignment> oaList) throws  Exception {
         for (OperatorAssignment oa : oaList) {
-            ColumnInfo ci = generateColumn(dataste, oa, true);
+            ColumnInfo ci = materialize(generateColumn(dataste, oa, true));
             dataste.addColumn(ci);
         }
     }
 
     /**
-     * Creates the new attribute. Also writes it to a file.
+     * Creates the new attribute. Also writes it to a file. Columns that were already generated for the same
+     * rows are retrieved from the candidate columns cache. The attributes of the binary operators and of
+     * StandardScore are returned as derived columns, computed on demand, unless lazyDerivedColumns is set to false
+     * (see materialize).
      * @param dataset
      * @param finalAttribute indicates if this is the version that is generated from the COMPLETE training set. This
      *                       is the only version that needs to be written or read from the file system
      * @param os
      */
     public static ColumnInfo generateColumn(Dataset dataset, OperatorAssignment os, boolean finalAttribute) throws Exception {
-        boolean writeToFile = false;
+        return generateColumn(dataset, os, finalAttribute, null);
+    }
+
+    /**
+     * Identical to generateColumn, but GroupByThen, TimeBasedGroupByThen and Binary assignments use the aggregation,
+     * the binary values and the generated columns of their sibling assignments (see SiblingAssignmentBatch) if they
+     * are available
+     * @param dataset
+     * @param os
+     * @param finalAttribute
+     * @param siblingAssignmentBatch the state shared with the sibling assignments. If null, nothing is shared
+     * @return
+     * @throws Exception
+     */
+    static ColumnInfo generateColumn(Dataset dataset, OperatorAssignment os, boolean finalAttribute, SiblingAssignmentBatch siblingAssignmentBatch) throws Exception {
+        boolean writeToFile = Boolean.parseBoolean(properties.getProperty("writeAttributesToFile", "false"));
+        boolean lazyDerivedColumns = Boolean.parseBoolean(properties.getProperty("lazyDerivedColumns", "true"));
+        CandidateColumnCache cache = getCandidateColumnCache();
         try {
-            ColumnInfo ci = null;
+            ColumnInfo ci = cache.get(dataset, os);
+            if (ci != null) {
+                return ci;
+            }
             if (finalAttribute && writeToFile) {
-                ci = readColumnInfoFromFile(dataset.getName(), os.getName());
+                ci = readColumnInfoFromFile(dataset, os);
             }
             if (ci == null) {
                 Operator operator = null;
@@ -398,13 +634,47 @@ public class OperatorsAssignmentsManager {
                     operator = getOperator(os.getOperator());
                 }
 
-                operator.processTrainingSet(dataset, os.getSources(), os.getTragets());
-
-                try {
-                    ci = operator.generate(dataset, os.getSources(), os.getTragets(), true);
+                //derived (lazy) binary columns are not computed in advance, so there is nothing to share
+                boolean shareWithSiblings = siblingAssignmentBatch != null && (operator instanceof GroupByThen || operator instanceof TimeBasedGroupByThen
+                        || (operator instanceof BinaryOperator && !lazyDerivedColumns));
+                if (shareWithSiblings) {
+                    ci = siblingAssignmentBatch.getGeneratedColumn(dataset, operator.getName(), os.getTragets());
                 }
-                catch (Exception ex) {
-                    int x=5;
+                if (ci == null) {
+                    MetricsRegistry metrics = MetricsRegistry.getDefault();
+                    long startTime = System.nanoTime();
+                    if (shareWithSiblings && operator instanceof GroupByThen) {
+                        ((GroupByThen) operator).processTrainingSet(siblingAssignmentBatch.getAggregation(dataset, os.getSources(), os.getTragets()));
+                    }
+                    else if (shareWithSiblings && operator instanceof TimeBasedGroupByThen) {
+                        ((TimeBasedGroupByThen) operator).processTrainingSet(siblingAssignmentBatch.getTimeWindowAggregation(dataset, os.getSources()));
+                    }
+                    else if (!shareWithSiblings) {
+                        operator.processTrainingSet(dataset, os.getSources(), os.getTragets());
+                    }
+                    metrics.recordTime("operator." + operator.getType().name() + ".processTrainingSet", startTime);
+
+                    startTime = System.nanoTime();
+                    try {
+                        if (shareWithSiblings && operator instanceof BinaryOperator) {
+                            BinaryOperator binaryOperator = (BinaryOperator) operator;
+                            ci = binaryOperator.generate(dataset, os.getSources(), os.getTragets(),
+                                    siblingAssignmentBatch.getBinaryColumn(dataset, binaryOperator.getOperation(), os.getSources(), os.getTragets()), true);
+                        }
+                        else if (operator instanceof BinaryOperator && !lazyDerivedColumns) {
+                            ci = ((BinaryOperator) operator).generateMaterialized(dataset, os.getSources(), os.getTragets(), true);
+                        }
+                        else {
+                            ci = operator.generate(dataset, os.getSources(), os.getTragets(), true);
+                        }
+                    }
+                    catch (Exception ex) {
+                        int x=5;
+                    }
+                    metrics.recordTime("operator." + operator.getType().name() + ".generate", startTime);
+                    if (shareWithSiblings) {
+                        siblingAssignmentBatch.putGeneratedColumn(dataset, operator.getName(), os.getTragets(), ci);
+                    }
                 }
 
                 if (ci != null && os != null && os.getSecondaryOperator() != null) {
@@ -414,8 +684,13 @@ public class OperatorsAssignmentsManager {
                     List<ColumnInfo> tempList = new ArrayList<>();
                     tempList.add(ci);
                     try {
+                        MetricsRegistry metrics = MetricsRegistry.getDefault();
+                        long startTime = System.nanoTime();
                         uOperator.processTrainingSet(replica, tempList, null);
+                        metrics.recordTime("operator." + uOperator.getType().name() + ".processTrainingSet", startTime);
+                        startTime = System.nanoTime();
                         ColumnInfo ci2 = uOperator.generate(replica, tempList, null, true);
+                        metrics.recordTime("operator." + uOperator.getType().name() + ".generate", startTime);
                         ci = ci2;
                     }
                     catch (Exception ex) {
@@ -423,11 +698,15 @@ public class OperatorsAssignmentsManager {
                     }
 
                 }
+                if (ci != null && !lazyDerivedColumns) {
+                    ci = ci.materialize();
+                }
                 if (finalAttribute && writeToFile) {
                     //write the column to file, so we don't have to calculate it again
-                    writeColumnInfoToFile(dataset.getName(), os.getName(), ci);
+                    writeColumnInfoToFile(dataset, os, ci);
                 }
             }
+            cache.put(dataset, os, ci);
             if (ci == null) {
 
             }
@@ -442,57 +721,48 @@ public class OperatorsAssignmentsManager {
     }
 
     /**
-     * Read a ColumnInfo object from file
-     * @param datasetName
-     * @param operatorAssignmentName
+     * Returns the attribute with its values stored in memory (see ColumnInfo.materialize), or null if it is null.
+     * Derived columns are materialized before they are added to a dataset for the wrapper evaluation or as final attributes
+     * @param ci
      * @return
-     * @throws Exception
      */
-    public static  ColumnInfo readColumnInfoFromFile(String datasetName, String operatorAssignmentName) throws Exception {
-        String fileName = getHashedName(datasetName + operatorAssignmentName) + ".ser";
-        String filePath = properties.get("operatorAssignmentFilesLocation") + fileName;
+    public static ColumnInfo materialize(ColumnInfo ci) {
+        return ci == null ? null : ci.materialize();
+    }
 
-        File file = new File(filePath);
-        if (!file.exists()) {
+    /**
+     * Reads a generated column from the column store of the dataset (located in operatorAssignmentFilesLocation).
+     * Returns null if the column was not previously written for the same rows of the dataset
+     * @param dataset
+     * @param os
+     * @return
+     * @throws Exception
+     */
+    public static ColumnInfo readColumnInfoFromFile(Dataset dataset, OperatorAssignment os) throws Exception {
+        ColumnStore store = ColumnStore.getStore(properties.getProperty("operatorAssignmentFilesLocation"), dataset.getName());
+        String lineageHash = ColumnStore.getLineageHash(dataset, os.getName());
+        if (!store.contains(lineageHash)) {
             return null;
         }
-        FileInputStream streamIn = new FileInputStream(filePath);
-        ObjectInputStream objectinputstream = new ObjectInputStream(streamIn);
         try {
-            ColumnInfo ci = (ColumnInfo) objectinputstream.readObject();
-            return ci;
+            Class<? extends Operator> operatorClass = (os.getSecondaryOperator() != null) ? os.getSecondaryOperator().getClass() : os.getOperator().getClass();
+            return store.read(lineageHash, dataset.getNumOfInstancesPerColumn(), os.getSources(), os.getTragets(), operatorClass);
         }
         catch (Exception ex) {
-            System.out.println("Error reading ColumnInfo from file");
+            System.out.println("Error reading ColumnInfo from file: " + ex.getMessage());
         }
         return null;
     }
 
     /**
-     * Writes a ColumnInfo object to file
+     * Writes a generated column to the column store of the dataset
+     * @param dataset
+     * @param os
      * @param ci
      */
-    public static  void writeColumnInfoToFile(String datasetName, String operatorAssignmentName, ColumnInfo ci) throws Exception {
-        String fileName = getHashedName(datasetName + operatorAssignmentName) + ".ser";
-        FileOutputStream fout = new FileOutputStream(properties.getProperty("operatorAssignmentFilesLocation") + fileName, true);
-        ObjectOutputStream oos = new ObjectOutputStream(fout);
-        oos.writeObject(ci);
-    }
-
-    /**
-     * Used to get hashes for the written ColumnInfo objects
-     * @param name
-     * @return
-     */
-    private static  String getHashedName(String name) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        md.update(name.getBytes());
-        byte[] digest = md.digest();
-        StringBuffer sb = new StringBuffer();
-        for (byte b : digest) {
-            sb.append(String.format("%02x", b & 0xff));
-        }
-        return sb.toString();
+    public static void writeColumnInfoToFile(Dataset dataset, OperatorAssignment os, ColumnInfo ci) throws Exception {
+        ColumnStore store = ColumnStore.getStore(properties.getProperty("operatorAssignmentFilesLocation"), dataset.getName());
+        store.write(ColumnStore.getLineageHash(dataset, os.getName()), ci);
     }
 
     /**
@@ -505,72 +775,57 @@ public class OperatorsAssignmentsManager {
      */
     public static  List<OperatorAssignment> getOperatorAssignments(Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators,
                                                                    int maxCombinationSize) throws Exception {
-        boolean areNonUniaryOperatorsBeingUsed = false;
-        if (operators.size() > 0 && !operators.get(0).getType().equals(Operator.operatorType.Unary)) {
-            areNonUniaryOperatorsBeingUsed = true;
-        }
-
-        if (attributesToInclude == null) {attributesToInclude = new ArrayList<>();}
-        List<OperatorAssignment> operatorsAssignments = new ArrayList();
-        for (int i=maxCombinationSize; i>0; i--) {
-            List<List<ColumnInfo>> sourceAttributeCombinations = getAttributeCombinations(dataset.getAllColumns(false), i);
-
-            //for each of the candidate source attributes combinations
-            for (List<ColumnInfo> sources: sourceAttributeCombinations) {
-                //if a distinct dolumn(s) exists, we need to make sure that at least one column (or one of its ancestors) satisfies the constraint
-                if (dataset.getDistinctValueColumns() != null && dataset.getDistinctValueColumns().size() > 0) {
-                    if (areNonUniaryOperatorsBeingUsed && !isDistinctValueCompliantAttributeExists(dataset.getDistinctValueCompliantColumns(), sources)) {
-                        continue;
-                    }
-                }
-
-                //first check if any of the required atts (if there are any) are included
-                if (attributesToInclude.size() > 0) {
-                    ArrayList<ColumnInfo> tempList = new ArrayList<>(sources);
-                    tempList.retainAll(attributesToInclude);
-                    if (tempList.size() == 0) { continue; }
-                }
-
-                //Now we check all the operators on the source attributes alone.
-                for (Operator operator: operators) {
-                    if (operator.isApplicable(dataset, sources, new ArrayList<ColumnInfo>())) {
-                        OperatorAssignment os = new OperatorAssignment(sources, null, getOperator(operator), null);
-                        operatorsAssignments.add(os);
-                    }
+        List<OperatorAssignment> operatorAssignments = new ArrayList<>();
+        forEachOperatorAssignment(dataset, attributesToInclude, operators, maxCombinationSize, operatorAssignments::add);
+        return operatorAssignments;
+    }
 
-                    //now we pair the source attributes with a target attribute and check again
-                    for (ColumnInfo targetColumn : dataset.getAllColumns(false)) {
-                        //if (sources.contains(targetColumn)) { continue; }
-                        if (overlapExistsBetweenSourceAndTargetAttributes(sources,targetColumn)) { continue; }
-                        List<ColumnInfo> tempList = new ArrayList<>();
-                        tempList.add(targetColumn);
-                        if (operator.isApplicable(dataset, sources, tempList)) {
-                            OperatorAssignment os = new OperatorAssignment(sources, tempList, getOperator(operator), null);
-                            operatorsAssignments.add(os);
-                        }
-                    }
-                }
-            }
+    /**
+     * Passes the assignments of getOperatorAssignments (in the same order) to the consumer, without collecting them
+     * into a list. The assignments are enumerated sequentially on the calling thread, since the callers are often
+     * tasks of an evaluation executor themselves (a parallel stream would run on the common ForkJoinPool)
+     * @param dataset
+     * @param attributesToInclude
+     * @param operators
+     * @param maxCombinationSize
+     * @param consumer
+     * @throws Exception
+     */
+    public static void forEachOperatorAssignment(Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators,
+                                                 int maxCombinationSize, Consumer<OperatorAssignment> consumer) throws Exception {
+        try {
+            streamOperatorAssignments(dataset, attributesToInclude, operators, maxCombinationSize, false).forEachOrdered(consumer);
         }
-
-        //Finally, we go over all the operator assignments. For every assignment that is not performed on
-        //an unary operator, we check if any of the unary operators can be applied on it.
-        List<OperatorAssignment> additionalAssignments = new ArrayList<>();
-        for (OperatorAssignment os : operatorsAssignments) {
-            if (os.getOperator().getType() != Operator.operatorType.Unary) {
-                for (Operator operator : getUnaryOperatorsList()) {
-                    if (operator.getType().equals(Operator.operatorType.Unary)) {
-                        UnaryOperator tempOperator = (UnaryOperator)operator;
-                        if (tempOperator.requiredInputType().equals(os.getOperator().getOutputType())) {
-                            OperatorAssignment additionalAssignment = new OperatorAssignment(os.getSources(), os.getTragets(), os.getOperator(), tempOperator);
-                            additionalAssignments.add(additionalAssignment);
-                        }
-                    }
-                }
+        catch (IllegalStateException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
             }
+            throw ex;
         }
-        operatorsAssignments.addAll(additionalAssignments);
-        return operatorsAssignments;
+    }
+
+    /**
+     * Returns the assignments of getOperatorAssignments (in the same order) as a stream that generates them lazily,
+     * so the combinations of the source attributes are never materialized and only applicable assignments are
+     * allocated (see OperatorAssignmentSpliterator). The primary assignments are followed by the assignments with a
+     * secondary (unary) operator. Failures during the enumeration are thrown as an IllegalStateException
+     * @param dataset
+     * @param attributesToInclude
+     * @param operators
+     * @param maxCombinationSize
+     * @param parallel whether the stream is parallel
+     * @return
+     * @throws Exception
+     */
+    public static Stream<OperatorAssignment> streamOperatorAssignments(Dataset dataset, List<ColumnInfo> attributesToInclude, List<Operator> operators,
+                                                                      int maxCombinationSize, boolean parallel) throws Exception {
+        OperatorAssignmentSpliterator.Enumeration enumeration = new OperatorAssignmentSpliterator.Enumeration(dataset, attributesToInclude, operators, maxCombinationSize);
+        Stream<OperatorAssignment> primaryAssignments = StreamSupport.stream(
+                new OperatorAssignmentSpliterator(enumeration, false, 0, enumeration.getNumOfCombinations()), parallel);
+        //For every assignment that is not performed on an unary operator, we check if any of the unary operators can be applied on it.
+        Stream<OperatorAssignment> secondaryAssignments = StreamSupport.stream(
+                new OperatorAssignmentSpliterator(enumeration, true, 0, enumeration.getNumOfCombinations()), parallel);
+        return Stream.concat(primaryAssignments, secondaryAssignments);
     }
 
     /**
@@ -579,87 +834,53 @@ public class OperatorsAssignmentsManager {
      * @param columns the list of columns that make up the source attributes of the currently analyzed attribute
      * @return
      */
-    private static boolean isDistinctValueCompliantAttributeExists(List<ColumnInfo> distinctValueCompliantColumns, List<ColumnInfo> columns) {
+    static boolean isDistinctValueCompliantAttributeExists(List<ColumnInfo> distinctValueCompliantColumns, List<ColumnInfo> columns) {
+        return isDistinctValueCompliantAttributeExists(getIds(distinctValueCompliantColumns), columns);
+    }
+
+    /**
+     * Identical to isDistinctValueCompliantAttributeExists, with the ids of the compliant columns (see ColumnInfo.getId)
+     * @param distinctValueCompliantColumnIds
+     * @param columns
+     * @return
+     */
+    static boolean isDistinctValueCompliantAttributeExists(BitSet distinctValueCompliantColumnIds, List<ColumnInfo> columns) {
         for (ColumnInfo ci : columns) {
-            if (distinctValueCompliantColumns.contains(ci) ||
-                    ((ci.getSourceColumns() != null) && isDistinctValueCompliantAttributeExists(distinctValueCompliantColumns, ci.getSourceColumns()))) {
+            if (ci.getSourceAncestry().intersects(distinctValueCompliantColumnIds)) {
                 return true;
             }
         }
         return false;
     }
 
-    private static boolean overlapExistsBetweenSourceAndTargetAttributes(List<ColumnInfo> sourceAtts, ColumnInfo targetAtt) {
-        //the simplest case - the same attribute appears both in the source and the target
-        if (sourceAtts.contains(targetAtt)) {
-            return true;
-        }
-
-        //Now we need to check that the source atts and the target att has no shared columns (including after the application of an operator)
-        List<ColumnInfo> sourceAttsAndAncestors = new ArrayList<>();
-        for (ColumnInfo sourceAtt: sourceAtts) {
-            sourceAttsAndAncestors.add(sourceAtt);
-            if (sourceAtt.getSourceColumns() != null) {
-                for (ColumnInfo ancestorAtt : sourceAtt.getSourceColumns()) {
-                    if (!sourceAttsAndAncestors.contains(ancestorAtt)) {
-                        sourceAttsAndAncestors.add(ancestorAtt);
-                    }
-                }
-            }
-            if (sourceAtt.getTargetColumns() != null) {
-                for (ColumnInfo ancestorAtt : sourceAtt.getTargetColumns()) {
-                    if (!sourceAttsAndAncestors.contains(ancestorAtt)) {
-                        sourceAttsAndAncestors.add(ancestorAtt);
-                    }
-                }
-            }
-        }
-
-        //do the same for the target att (because we only have one we don't need the external loop)
-        List<ColumnInfo> targetAttsAndAncestors = new ArrayList<>();
-        targetAttsAndAncestors.add(targetAtt);
-        if (targetAtt.getSourceColumns() != null) {
-            for (ColumnInfo ancestorAtt : targetAtt.getSourceColumns()) {
-                if (!targetAttsAndAncestors.contains(ancestorAtt)) {
-                    targetAttsAndAncestors.add(ancestorAtt);
-                }
-            }
-        }
-        if (targetAtt.getTargetColumns() != null) {
-            for (ColumnInfo ancestorAtt : targetAtt.getTargetColumns()) {
-                if (!targetAttsAndAncestors.contains(ancestorAtt)) {
-                    targetAttsAndAncestors.add(ancestorAtt);
-                }
+    /**
+     * Returns true if the source attributes and the target attribute share a column, including the columns they were
+     * generated from (their parents, see ColumnInfo.getLineage)
+     * @param sourceAtts
+     * @param targetAtt
+     * @return
+     */
+    static boolean overlapExistsBetweenSourceAndTargetAttributes(List<ColumnInfo> sourceAtts, ColumnInfo targetAtt) {
+        BitSet targetLineage = targetAtt.getLineage();
+        for (ColumnInfo sourceAtt : sourceAtts) {
+            if (sourceAtt.getLineage().intersects(targetLineage)) {
+                return true;
             }
         }
-
-        boolean overlap =  !Collections.disjoint(sourceAttsAndAncestors, targetAttsAndAncestors);
-
-        if (overlap &&  targetAttsAndAncestors.size() > 1) {
-            int x=5;
-        }
-
-        return overlap;
+        return false;
     }
 
     /**
-     * Returns lists of column-combinations
-     * @param attributes
-     * @param numOfAttributesInCombination
+     * Returns the ids of the columns (see ColumnInfo.getId)
+     * @param columns
      * @return
      */
-    private static  List<List<ColumnInfo>> getAttributeCombinations(List<ColumnInfo> attributes, int numOfAttributesInCombination) {
-        List<List<ColumnInfo>> attributeCombinations = new ArrayList<>();
-        CombinationGenerator gen = new CombinationGenerator (attributes.size(), numOfAttributesInCombination);
-        while (gen.hasMore ()) {
-            int[] indices = gen.getNext();
-            List<ColumnInfo> tempColumns = new ArrayList<>();
-            for (int index: indices) {
-                tempColumns.add(attributes.get(index));
-            }
-            attributeCombinations.add(tempColumns);
+    static BitSet getIds(List<ColumnInfo> columns) {
+        BitSet ids = new BitSet();
+        for (ColumnInfo ci : columns) {
+            ids.set(ci.getId());
         }
-        return attributeCombinations;
+        return ids;
     }
 
     /**
@@ -697,13 +918,27 @@ public class OperatorsAssignmentsManager {
      * @return
      * @throws Exception
      */
-    private static Operator getOperator(Operator operator) throws Exception {
+    static Operator getOperator(Operator operator) throws Exception {
         if (operator.getType().equals(Operator.operatorType.Unary)) {
             return getUnaryOperator(operator.getName());
         }
         return getNonUnaryOperator(operator.getName());
     }
 
+    /**
+     * Returns a new operator by the name returned by its getName() and its type
+     * @param operatorName
+     * @param operatorType
+     * @return
+     * @throws Exception
+     */
+    public static Operator getOperator(String operatorName, Operator.operatorType operatorType) throws Exception {
+        if (operatorType.equals(Operator.operatorType.Unary)) {
+            return getUnaryOperator(operatorName);
+        }
+        return getNonUnaryOperator(operatorName);
+    }
+
     /**
      * Returns an unary operator by name
      * @param operatorName
@@ -0,0 +1,145 @@
+package explorekit.operators;
+
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.data.NumericColumn;
+import explorekit.operators.BinaryOperators.BinaryOperator;
+import explorekit.operators.BinaryOperators.BinaryOperatorKernels;
+import explorekit.operators.GroupByThenOperators.GroupByThenAggregation;
+import explorekit.operators.TimeBasedGroupByThenOperators.TimeBasedGroupByThen;
+import explorekit.operators.TimeBasedGroupByThenOperators.TimeWindowAggregation;
+
+import java.util.*;
+
+/**
+ * Holds what sibling assignments can share. Siblings are GroupByThen assignments that have the same source and target
+ * columns (GroupByThenAvg, Max, Min, Stdev and Count, with and without secondary operators), or TimeBasedGroupByThen
+ * assignments that have the same source columns (all aggregates and window sizes, for every target column), or
+ * Binary assignments that have the same source and target columns (Add, Subtract, Multiply and Divide).
+ * The shared objects are the aggregation of every dataset (the complete dataset and each of the training sub-folds),
+ * which is computed once, the values of the binary operators, which are computed together in one pass over the
+ * columns, and the columns generated by each operator, which are used by all the assignments that differ only in
+ * their secondary operator.
+ *
+ * A batch is processed by a single thread, so the class is not synchronized.
+ */
+class SiblingAssignmentBatch {
+    private final IdentityHashMap<Dataset, GroupByThenAggregation> aggregations = new IdentityHashMap<>();
+    private final IdentityHashMap<Dataset, TimeWindowAggregation> timeWindowAggregations = new IdentityHashMap<>();
+    private final IdentityHashMap<Dataset, HashMap<List<Object>, ColumnInfo>> generatedColumns = new IdentityHashMap<>();
+    //the window sizes used by the TimeBasedGroupByThen assignments of the batch, computed together in one sweep
+    private final Set<Double> timeWindows = new HashSet<>();
+    //the operations of the Binary assignments of the batch, computed together in one pass
+    private final EnumSet<BinaryOperatorKernels.Operation> binaryOperations = EnumSet.noneOf(BinaryOperatorKernels.Operation.class);
+    private final IdentityHashMap<Dataset, EnumMap<BinaryOperatorKernels.Operation, NumericColumn>> binaryColumns = new IdentityHashMap<>();
+
+    SiblingAssignmentBatch(List<OperatorAssignment> assignments) {
+        for (OperatorAssignment oa : assignments) {
+            if (oa.getOperator() instanceof TimeBasedGroupByThen) {
+                timeWindows.add(((TimeBasedGroupByThen) oa.getOperator()).getTimeWindow());
+            }
+            if (oa.getOperator() instanceof BinaryOperator) {
+                binaryOperations.add(((BinaryOperator) oa.getOperator()).getOperation());
+            }
+        }
+    }
+
+    /**
+     * Returns the GroupByThen aggregation of the training set of the dataset, computing it if this is the first request for the dataset
+     * @param dataset
+     * @param sourceColumns
+     * @param targetColumns
+     * @return
+     */
+    GroupByThenAggregation getAggregation(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
+        GroupByThenAggregation aggregation = aggregations.get(dataset);
+        if (aggregation == null) {
+            aggregation = new GroupByThenAggregation(dataset, sourceColumns, targetColumns.get(0));
+            aggregations.put(dataset, aggregation);
+        }
+        return aggregation;
+    }
+
+    /**
+     * Returns the time windows aggregation of the dataset (for all the window sizes of the batch), computing it if
+     * this is the first request for the dataset
+     * @param dataset
+     * @param sourceColumns
+     * @return
+     * @throws Exception
+     */
+    TimeWindowAggregation getTimeWindowAggregation(Dataset dataset, List<ColumnInfo> sourceColumns) throws Exception {
+        TimeWindowAggregation aggregation = timeWindowAggregations.get(dataset);
+        if (aggregation == null) {
+            aggregation = new TimeWindowAggregation(dataset, sourceColumns, timeWindows);
+            timeWindowAggregations.put(dataset, aggregation);
+        }
+        return aggregation;
+    }
+
+    /**
+     * Returns the values of the binary operation on the source and target columns for the rows of the dataset. On the
+     * first request for the dataset, the values of all the operations of the batch are computed in a single pass
+     * @param dataset
+     * @param operation
+     * @param sourceColumns
+     * @param targetColumns
+     * @return
+     */
+    NumericColumn getBinaryColumn(Dataset dataset, BinaryOperatorKernels.Operation operation, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
+        EnumMap<BinaryOperatorKernels.Operation, NumericColumn> columns = binaryColumns.get(dataset);
+        if (columns == null) {
+            columns = new EnumMap<>(BinaryOperatorKernels.Operation.class);
+            Set<BinaryOperatorKernels.Operation> operations = EnumSet.copyOf(binaryOperations);
+            operations.add(operation);
+            for (BinaryOperatorKernels.Operation op : operations) {
+                columns.put(op, new NumericColumn(dataset.getNumOfInstancesPerColumn()));
+            }
+            BinaryOperatorKernels.computeAll(BinaryOperatorKernels.getValues(sourceColumns.get(0).getColumn()),
+                    BinaryOperatorKernels.getValues(targetColumns.get(0).getColumn()), dataset.getIndices(),
+                    getDoubleValues(columns.get(BinaryOperatorKernels.Operation.Add)),
+                    getDoubleValues(columns.get(BinaryOperatorKernels.Operation.Subtract)),
+                    getDoubleValues(columns.get(BinaryOperatorKernels.Operation.Multiply)),
+                    getDoubleValues(columns.get(BinaryOperatorKernels.Operation.Divide)));
+            binaryColumns.put(dataset, columns);
+        }
+        //the assignments that differ in their secondary operator share the generated column, so the values are
+        //released once they were handed out. If they are requested again (the generated column was rejected by
+        //isDistinctValEnforced and was not kept), they are computed again
+        NumericColumn column = columns.remove(operation);
+        if (column == null) {
+            column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
+            BinaryOperatorKernels.apply(operation, BinaryOperatorKernels.getValues(sourceColumns.get(0).getColumn()),
+                    BinaryOperatorKernels.getValues(targetColumns.get(0).getColumn()), dataset.getIndices(), column.getDoubleValues());
+        }
+        return column;
+    }
+
+    private static double[] getDoubleValues(NumericColumn column) {
+        return column == null ? null : column.getDoubleValues();
+    }
+
+    /**
+     * Returns the column previously generated by the operator for the dataset and target columns, or null if there is none
+     * @param dataset
+     * @param operatorName
+     * @param targetColumns
+     * @return
+     */
+    ColumnInfo getGeneratedColumn(Dataset dataset, String operatorName, List<ColumnInfo> targetColumns) {
+        HashMap<List<Object>, ColumnInfo> columns = generatedColumns.get(dataset);
+        return columns == null ? null : columns.get(Arrays.asList(operatorName, targetColumns));
+    }
+
+    void putGeneratedColumn(Dataset dataset, String operatorName, List<ColumnInfo> targetColumns, ColumnInfo ci) {
+        if (ci == null) {
+            return;
+        }
+        HashMap<List<Object>, ColumnInfo> columns = generatedColumns.get(dataset);
+        if (columns == null) {
+            columns = new HashMap<>();
+            generatedColumns.put(dataset, columns);
+        }
+        columns.put(Arrays.asList(operatorName, targetColumns), ci);
+    }
+}
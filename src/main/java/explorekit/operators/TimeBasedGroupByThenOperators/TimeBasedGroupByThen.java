@@ -1,16 +1,14 @@
 package explorekit.operators.TimeBasedGroupByThenOperators;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
-import explorekit.data.DateColumn;
+import explorekit.data.NumericColumn;
 import explorekit.operators.Operator;
 
-import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Created by giladkatz on 02/04/2016.
@@ -20,93 +18,67 @@ public abstract class TimeBasedGroupByThen extends Operator {
     //The time window the operator will be applied on. Specified minutes
     protected double timeWindow;
 
-    /**
-     * For each unique combination of source values (the date not included), we hold lists of instances that are contained
-     * within a specific time window
-     */
-    protected ListMultimap<List<Integer>, List<TimeBasedInstanceValue>> valuesPerKey = ArrayListMultimap.create();
+    //the statistics of the time windows of every group of source values (the date not included)
+    protected TimeWindowAggregation aggregation;
+    protected TimeWindowAggregation.WindowStatistics windowStatistics;
+    //the value of the generated attribute for the rows of every group
+    protected double[] valuePerGroup;
+    //the value for rows whose source values don't appear in the dataset
+    protected double missingValuesVal = 0;
 
     @Override
     public void processTrainingSet(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) throws Exception {
-        //we begin by separating the date column from the other source columns
-        ColumnInfo dateColumn = null;
-        List<ColumnInfo> nonDateColumns = new ArrayList<>();
-        for (ColumnInfo ci: sourceColumns) {
-            if (ci.getColumn().getType() == Column.columnType.Date) {
-                if (dateColumn == null) {
-                    dateColumn = ci;
-                }
-                else {
-                    throw new Exception("More than one date column in operation");
-                }
-            }
-            else {
-                nonDateColumns.add(ci);
-            }
-        }
-
-        //A not-very-elegant solution - a hashmap that connects the ordering by time to the current list of indices
-        //By storing the indices in a HashMap we can quickly access if an index is included
-        HashMap<Integer,Integer> indexToLocationMapping = new HashMap<>();
-        for (int index : dataset.getIndices()) {
-            indexToLocationMapping.put(index, indexToLocationMapping.size());
-        }
-
-        TreeMap<Date, List<Integer>> indicesByDate = ((DateColumn) dateColumn.getColumn()).getIndicesByDate();
-
-        HashMap<List<Integer>, Date> currentDatesPerValue = new HashMap<>();
-        HashMap<List<Integer>, List<TimeBasedInstanceValue>> currentWindowValues = new HashMap<>();
-        for (Date currentDate: indicesByDate.keySet()) {
-            for (int index : indicesByDate.get(currentDate)) {
-                if (!indexToLocationMapping.containsKey(index)) {
-                    continue;
-                }
-                //We obtain the source values and the target value
-                List<Integer> sourceValues = nonDateColumns.stream().map(c -> (Integer) c.getColumn().getValue(index)).collect(Collectors.toList());
-                Object targetValue = targetColumns.get(0).getColumn().getValue(index);
-                TimeBasedInstanceValue tbiv = new TimeBasedInstanceValue(currentDate, targetValue);
-
-                //now we need to determine where the new instance needs to be assigned - to an existing sliding time window or to a new one
-                if (!currentDatesPerValue.containsKey(sourceValues)) {
-                    currentDatesPerValue.put(sourceValues, currentDate);
-                    currentWindowValues.put(sourceValues, new ArrayList<>());
-                }
-
-                //if the date of the current instance is greater than the bound of teh time window, process and clear it
-                if (TimeDifferenceExceedsWindow(currentDate, currentDatesPerValue.get(sourceValues))) {
-                    //add the items in the existing time window (if there are any) to the final Map
-                    if (currentWindowValues.get(sourceValues).size() > 0) {
-                        //add the current list to the final map
-                        valuesPerKey.put(sourceValues, currentWindowValues.get(sourceValues));
-                        //reset the list of the current window
-                        currentWindowValues.get(sourceValues).clear();
-                        //set a new beginning to the date window
-                        currentDatesPerValue.put(sourceValues, currentDate);
-                    }
-                }
-
-                //finally, add the new instance at the relevant place
-                currentWindowValues.get(sourceValues).add(tbiv);
+        processTrainingSet(new TimeWindowAggregation(dataset, sourceColumns, Collections.singletonList(timeWindow)));
+    }
 
-            }
+    /**
+     * Uses an existing aggregation of the dataset. The time windows depend only on the source columns, so all the
+     * TimeBasedGroupByThen operators with the same source columns can share one aggregation
+     * @param aggregation
+     */
+    public void processTrainingSet(TimeWindowAggregation aggregation) {
+        this.aggregation = aggregation;
+        windowStatistics = aggregation.getStatistics(timeWindow);
+        valuePerGroup = new double[aggregation.getNumOfGroups()];
+        double sum = 0;
+        for (int group=0; group<aggregation.getNumOfGroups(); group++) {
+            valuePerGroup[group] = getGroupValue(group);
+            sum += valuePerGroup[group];
         }
-        //finally, we need to process all the items left in the currentWindowValues object
-        for (List<Integer> sourceValues : currentWindowValues.keySet()) {
-            valuesPerKey.put(sourceValues, currentWindowValues.get(sourceValues));
+        if (aggregation.getNumOfGroups() == 0) {
+            throw new NoSuchElementException("No value present");
         }
+        //the value for missing values would be the average of all the per-group values
+        missingValuesVal = sum / aggregation.getNumOfGroups();
     }
 
+    /**
+     * Returns the value of the generated attribute for the rows of the group, based on the statistics of its time windows
+     * @param group
+     * @return
+     */
+    protected abstract double getGroupValue(int group);
 
     /**
-     * Used to determine if the date of the curernt analyzed instance is outside the current time window
-     * @param currentDate
-     * @param windowStartDate
+     * Generates the values of the new attribute for all the rows of the dataset
+     * @param dataset
      * @return
      */
-    private boolean TimeDifferenceExceedsWindow(Date currentDate, Date windowStartDate) {
-        long timeDiff = currentDate.getTime()-windowStartDate.getTime();
-        long diffInMinutes = TimeUnit.MILLISECONDS.toMinutes(timeDiff);
-        return (diffInMinutes > this.timeWindow);
+    protected NumericColumn generateValues(Dataset dataset) {
+        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
+        double[] values = column.getDoubleValues();
+
+        int numOfRows = dataset.getNumberOfRows();
+        for (int i = 0; i < numOfRows; i++) {
+            int j = dataset.getIndices().get(i);
+            int group = aggregation.getGroup(j);
+            values[j] = (group == -1) ? missingValuesVal : valuePerGroup[group];
+        }
+        return column;
+    }
+
+    public double getTimeWindow() {
+        return timeWindow;
     }
 
     @Override
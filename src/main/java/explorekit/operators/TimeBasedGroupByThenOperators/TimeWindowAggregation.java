@@ -0,0 +1,178 @@
+package explorekit.operators.TimeBasedGroupByThenOperators;
+
+import explorekit.data.*;
+
+import java.util.*;
+
+/**
+ * The sliding time window statistics used by the TimeBasedGroupByThen operators. The rows of the dataset are grouped
+ * by the values of the non-date source columns, and the rows of every group are split (by the date column) into
+ * consecutive time windows: a window begins with the earliest row that is not in a previous window and contains all
+ * the rows that are up to windowSize minutes later. For every group we keep the number of windows and the average,
+ * standard deviation, min and max of the number of rows per window.
+ *
+ * The rows are sorted by time only once: the epoch milliseconds of the rows of every group are placed in one
+ * primitive array (ordered by group and then by time), and the statistics of all the requested window sizes are
+ * computed by sweeping over this array. Once created the object is not modified, so it can be shared by the operators
+ * with the same source columns (regardless of their aggregate, window size or target column).
+ */
+public class TimeWindowAggregation {
+    private static final long MILLISECONDS_PER_MINUTE = 60 * 1000;
+
+    private final GroupKeyEncoder encoder;
+    private final int numOfGroups;
+    //the rows of group g are located in [groupOffsets[g], groupOffsets[g+1]) of sortedTimes
+    private final int[] groupOffsets;
+    private final long[] sortedTimes;
+    private final HashMap<Double, WindowStatistics> statisticsPerWindowSize = new HashMap<>();
+
+    /**
+     * @param dataset
+     * @param sourceColumns the source columns of the operator - exactly one date column and one or more discrete columns
+     * @param windowSizes the sizes of the windows (in minutes) for which statistics are computed
+     * @throws Exception
+     */
+    public TimeWindowAggregation(Dataset dataset, List<ColumnInfo> sourceColumns, Collection<Double> windowSizes) throws Exception {
+        //we begin by separating the date column from the other source columns
+        ColumnInfo dateColumn = null;
+        List<ColumnInfo> nonDateColumns = new ArrayList<>();
+        for (ColumnInfo ci: sourceColumns) {
+            if (ci.getColumn().getType() == Column.columnType.Date) {
+                if (dateColumn == null) {
+                    dateColumn = ci;
+                }
+                else {
+                    throw new Exception("More than one date column in operation");
+                }
+            }
+            else {
+                nonDateColumns.add(ci);
+            }
+        }
+        if (dateColumn == null) {
+            throw new Exception("No date column in operation");
+        }
+
+        //the rows of the dataset in chronological order, with the group of every row
+        RowIndices indices = dataset.getIndices();
+        encoder = new GroupKeyEncoder(nonDateColumns);
+        int[] rowsByTime = new int[indices.size()];
+        int[] groupsByTime = new int[indices.size()];
+        int numOfRows = 0;
+        for (int row : ((DateColumn) dateColumn.getColumn()).getSortedIndices()) {
+            if (indices.contains(row)) {
+                rowsByTime[numOfRows] = row;
+                groupsByTime[numOfRows] = encoder.encode(row);
+                numOfRows++;
+            }
+        }
+        numOfGroups = encoder.getNumOfGroups();
+
+        //a counting sort by group, which keeps the chronological order within every group
+        groupOffsets = new int[numOfGroups + 1];
+        for (int i=0; i<numOfRows; i++) {
+            groupOffsets[groupsByTime[i] + 1]++;
+        }
+        for (int group=0; group<numOfGroups; group++) {
+            groupOffsets[group + 1] += groupOffsets[group];
+        }
+        int[] nextPosition = Arrays.copyOf(groupOffsets, numOfGroups);
+        sortedTimes = new long[numOfRows];
+        Column dates = dateColumn.getColumn();
+        for (int i=0; i<numOfRows; i++) {
+            sortedTimes[nextPosition[groupsByTime[i]]++] = dates.getLong(rowsByTime[i]);
+        }
+
+        for (double windowSize : windowSizes) {
+            statisticsPerWindowSize.put(windowSize, new WindowStatistics(windowSize));
+        }
+    }
+
+    /**
+     * Returns the group of the row, or -1 if the source values of the row did not appear in the dataset
+     * @param row
+     * @return
+     */
+    public int getGroup(int row) {
+        return encoder.lookup(row);
+    }
+
+    public int getNumOfGroups() {
+        return numOfGroups;
+    }
+
+    /**
+     * Returns the statistics of the given window size. Window sizes that were not requested when the object was created are computed on demand
+     * @param windowSize in minutes
+     * @return
+     */
+    public synchronized WindowStatistics getStatistics(double windowSize) {
+        WindowStatistics statistics = statisticsPerWindowSize.get(windowSize);
+        if (statistics == null) {
+            statistics = new WindowStatistics(windowSize);
+            statisticsPerWindowSize.put(windowSize, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * The per-group statistics of the number of rows in the time windows of one window size
+     */
+    public class WindowStatistics {
+        private final int[] numOfWindows = new int[numOfGroups];
+        private final double[] averages = new double[numOfGroups];
+        private final double[] m2s = new double[numOfGroups];
+        private final double[] mins = new double[numOfGroups];
+        private final double[] maxs = new double[numOfGroups];
+
+        private WindowStatistics(double windowSize) {
+            for (int group=0; group<numOfGroups; group++) {
+                int start = groupOffsets[group];
+                int end = groupOffsets[group + 1];
+                long windowStart = sortedTimes[start];
+                int windowCount = 0;
+                mins[group] = Double.POSITIVE_INFINITY;
+                maxs[group] = Double.NEGATIVE_INFINITY;
+                for (int i=start; i<end; i++) {
+                    //if the time of the current row is beyond the bound of the window (in whole minutes), close the window and start a new one
+                    if ((sortedTimes[i] - windowStart) / MILLISECONDS_PER_MINUTE > windowSize) {
+                        addWindow(group, windowCount);
+                        windowStart = sortedTimes[i];
+                        windowCount = 0;
+                    }
+                    windowCount++;
+                }
+                addWindow(group, windowCount);
+            }
+        }
+
+        private void addWindow(int group, int windowCount) {
+            int count = ++numOfWindows[group];
+            double delta = windowCount - averages[group];
+            averages[group] += delta / count;
+            m2s[group] += delta * (windowCount - averages[group]);
+            mins[group] = Math.min(mins[group], windowCount);
+            maxs[group] = Math.max(maxs[group], windowCount);
+        }
+
+        public int getNumOfWindows(int group) {
+            return numOfWindows[group];
+        }
+
+        public double getAverageWindowCount(int group) {
+            return averages[group];
+        }
+
+        public double getStdevOfWindowCounts(int group) {
+            return Math.sqrt(m2s[group] / numOfWindows[group]);
+        }
+
+        public double getMinWindowCount(int group) {
+            return mins[group];
+        }
+
+        public double getMaxWindowCount(int group) {
+            return maxs[group];
+        }
+    }
+}
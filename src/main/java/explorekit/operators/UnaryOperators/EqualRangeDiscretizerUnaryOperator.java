@@ -30,10 +30,10 @@ public class EqualRangeDiscretizerUnaryOperator extends UnaryOperator {
         double minVal = Double.MAX_VALUE;
         double maxVal = Double.MIN_VALUE;
 
-        ColumnInfo columnInfo = sourceColumns.get(0);
+        Column sourceColumn = sourceColumns.get(0).getColumn();
         for (int i =0; i<dataset.getNumOfTrainingDatasetRows(); i++) {
             int j = dataset.getIndicesOfTrainingInstances().get(i);
-            double val = (Double)columnInfo.getColumn().getValue(i);
+            double val = sourceColumn.getDouble(j);
             if (!Double.isNaN(val) && !Double.isInfinite(val)) {
                 minVal = Math.min(minVal, val);
                 maxVal = Math.max(maxVal, val);
@@ -56,12 +56,10 @@ public class EqualRangeDiscretizerUnaryOperator extends UnaryOperator {
             //this is the number of rows we need to work on - not the size of the vector
             int numOfRows = dataset.getNumberOfRows();
             ColumnInfo columnInfo = sourceColumns.get(0);
+            Column sourceColumn = columnInfo.getColumn();
             for (int i = 0; i < numOfRows; i++) {
-                if (dataset.getIndices().size() == i) {
-                    int x = 5;
-                }
                 int j = dataset.getIndices().get(i);
-                int binIndex = GetBinIndex((double) columnInfo.getColumn().getValue(j));
+                int binIndex = GetBinIndex(sourceColumn.getDouble(j));
                 column.setValue(j, binIndex);
             }
 
@@ -5,7 +5,7 @@ import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
 import explorekit.data.DiscreteColumn;
 
-import java.util.Date;
+import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -29,9 +29,13 @@ public class HourOfDayUnaryOperator extends UnaryOperator {
         //this is the number of rows we need to work on - not the size of the vector
         int numOfRows = dataset.getNumberOfRows();
         ColumnInfo columnInfo = sourceColumns.get(0);
+        //a single calendar is reused for all the rows (in the default time zone, as Date.getHours() does)
+        Calendar calendar = Calendar.getInstance();
+        Column dates = columnInfo.getColumn();
         for (int i=0; i<numOfRows; i++) {
             int j = dataset.getIndices().get(i);
-            int hourIndex = ((Date) columnInfo.getColumn().getValue(j)).getHours();
+            calendar.setTimeInMillis(dates.getLong(j));
+            int hourIndex = calendar.get(Calendar.HOUR_OF_DAY);
             column.setValue(j, hourIndex);
         }
 
@@ -5,7 +5,7 @@ import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
 import explorekit.data.DiscreteColumn;
 
-import java.util.Date;
+import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -28,9 +28,13 @@ public class IsWeekendUnaryOperator extends UnaryOperator {
         //this is the number of rows we need to work on - not the size of the vector
         int numOfRows = dataset.getNumberOfRows();
         ColumnInfo columnInfo = sourceColumns.get(0);
+        //a single calendar is reused for all the rows (in the default time zone, as Date.getDay() does)
+        Calendar calendar = Calendar.getInstance();
+        Column dates = columnInfo.getColumn();
         for (int i=0; i<numOfRows; i++) {
             int j = dataset.getIndices().get(i);
-            int dayIndex = ((Date) columnInfo.getColumn().getValue(j)).getDay();
+            calendar.setTimeInMillis(dates.getLong(j));
+            int dayIndex = calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
             if (dayIndex == 6 || dayIndex == 0) {
                 dayIndex = 1;
             }
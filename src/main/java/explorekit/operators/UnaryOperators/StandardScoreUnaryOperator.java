@@ -3,11 +3,9 @@ package explorekit.operators.UnaryOperators;
 import explorekit.data.Column;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
-import explorekit.data.NumericColumn;
+import explorekit.data.DerivedNumericColumn;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.OptionalDouble;
 
 /**
  * Created by giladkatz on 05/03/2016.
@@ -17,21 +15,30 @@ public class StandardScoreUnaryOperator extends UnaryOperator{
     private double avg;
     private double stdev;
 
+    /**
+     * Generates the attribute as a DerivedNumericColumn, whose values are computed from the source column when they
+     * are read (using the average and deviation of the training set at the time of the generation)
+     * @param dataset
+     * @param sourceColumns
+     * @param targetColumns
+     * @param enforceDistinctVal
+     * @return
+     */
     public ColumnInfo generate(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns, boolean enforceDistinctVal) {
-        NumericColumn column = new NumericColumn(dataset.getNumOfInstancesPerColumn());
-        //this is the number of rows we need to work on - not the size of the vector
-        int numOfRows = dataset.getNumberOfRows();
         ColumnInfo columnInfo = sourceColumns.get(0);
-        for (int i=0; i<numOfRows; i++) {
-            int j = dataset.getIndices().get(i);
-            double standardScoreVal = getStandardScore((double) columnInfo.getColumn().getValue(j));
-            if (Double.isNaN(standardScoreVal) || Double.isInfinite(standardScoreVal)) {
-
+        Column sourceColumn = columnInfo.getColumn();
+        double avg = this.avg;
+        double stdev = this.stdev;
+        DerivedNumericColumn column = new DerivedNumericColumn(dataset.getNumOfInstancesPerColumn(), dataset.getIndices(), row -> {
+            if (stdev == 0) {
+                return 0;
             }
-            else {
-                column.setValue(j, standardScoreVal);
+            double standardScoreVal = (sourceColumn.getDouble(row) - avg)/stdev;
+            if (Double.isNaN(standardScoreVal) || Double.isInfinite(standardScoreVal)) {
+                return 0;
             }
-        }
+            return standardScoreVal;
+        });
 
         //now we generate the name of the new attribute
         String attString = "StandardScoreUnaryOperator(";
@@ -49,21 +56,30 @@ public class StandardScoreUnaryOperator extends UnaryOperator{
     }
 
     public void processTrainingSet(Dataset dataset, List<ColumnInfo> sourceColumns, List<ColumnInfo> targetColumns) {
-        List<Double> vals = new ArrayList<>();
-        ColumnInfo columnInfo = sourceColumns.get(0);
+        Column sourceColumn = sourceColumns.get(0).getColumn();
+        //two passes over the primitive values: the first for the average, the second for the deviation
+        int numOfValues = 0;
+        double sum = 0;
         for (int i =0; i<dataset.getNumOfTrainingDatasetRows(); i++) {
             int j = dataset.getIndicesOfTrainingInstances().get(i);
-            double val = (Double)columnInfo.getColumn().getValue(i);
+            double val = sourceColumn.getDouble(j);
             if (!Double.isNaN(val) && !Double.isInfinite(val)) {
-                vals.add(val);
+                sum += val;
+                numOfValues++;
             }
         }
-        OptionalDouble tempAvg = vals.stream().mapToDouble(a -> a).average();
 
-        if (tempAvg.isPresent()) {
-            avg = tempAvg.getAsDouble();
-            double tempStdev = vals.stream().mapToDouble(a -> Math.pow(a-avg,2)).sum();
-            stdev = Math.sqrt(tempStdev/vals.size());
+        if (numOfValues > 0) {
+            avg = sum/numOfValues;
+            double tempStdev = 0;
+            for (int i =0; i<dataset.getNumOfTrainingDatasetRows(); i++) {
+                int j = dataset.getIndicesOfTrainingInstances().get(i);
+                double val = sourceColumn.getDouble(j);
+                if (!Double.isNaN(val) && !Double.isInfinite(val)) {
+                    tempStdev += (val-avg)*(val-avg);
+                }
+            }
+            stdev = Math.sqrt(tempStdev/numOfValues);
         }
         else {
             System.out.println("no values in the attribute");
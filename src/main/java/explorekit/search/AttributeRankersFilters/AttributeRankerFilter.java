@@ -24,6 +24,33 @@ public abstract class AttributeRankerFilter {
     public abstract List<OperatorAssignment> rankAndFilter(List<OperatorAssignment> operatorAssignments, List<ColumnInfo> previousIterationChosenAttributes,
                                                     List<Dataset> datasets, List<ClassificationResults> currentScore);
 
+    /**
+     * Same as rankAndFilter, but the candidate attributes are already ordered by their filter score (the highest first,
+     * candidates with the same score in the order they were added). Rankers that order the candidates by their filter
+     * score can use this order instead of sorting all the candidates again. By default the candidates are ranked by
+     * rankAndFilter
+     * @param rankedOperatorAssignments The candidate attributes, ordered by their filter score
+     * @param previousIterationChosenAttributes The attribute that has been chosen in the previous iteration
+     * @param datasets The training folds used for the training
+     * @param currentScore The probabilities assigned to each instance by the current classification
+     * @return
+     */
+    public List<OperatorAssignment> rankAndFilterRankedCandidates(List<OperatorAssignment> rankedOperatorAssignments, List<ColumnInfo> previousIterationChosenAttributes,
+                                                                  List<Dataset> datasets, List<ClassificationResults> currentScore) {
+        return rankAndFilter(rankedOperatorAssignments, previousIterationChosenAttributes, datasets, currentScore);
+    }
+
+    /**
+     * Returns a comparator that orders the candidate attributes the way rankAndFilter does (the first candidate is the
+     * one that should be evaluated first). This allows the candidates to be ranked as they are scored by the
+     * FilterEvaluator, without waiting for all of them. Rankers that need the complete list of candidates return null
+     * @param previousIterationChosenAttributes The attribute that has been chosen in the previous iteration
+     * @return
+     */
+    public Comparator<OperatorAssignment> getRankingComparator(List<ColumnInfo> previousIterationChosenAttributes) {
+        return null;
+    }
+
     /**
      * Used in the sorting of OperatorAssignment objects based on the score of the initial evaluator
      */
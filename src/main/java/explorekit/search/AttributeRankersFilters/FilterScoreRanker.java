@@ -7,6 +7,7 @@ import explorekit.operators.OperatorAssignment;
 import explorekit.search.Search;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -20,4 +21,16 @@ public class FilterScoreRanker extends AttributeRankerFilter {
         Collections.reverse(operatorAssignments);
         return operatorAssignments;
     }
+
+    @Override
+    public List<OperatorAssignment> rankAndFilterRankedCandidates(List<OperatorAssignment> rankedOperatorAssignments, List<ColumnInfo> previousIterationChosenAttributes,
+                                                                  List<Dataset> datasets, List<ClassificationResults> currentScore) {
+        //the candidates are already in the order of this ranker
+        return rankedOperatorAssignments;
+    }
+
+    @Override
+    public Comparator<OperatorAssignment> getRankingComparator(List<ColumnInfo> previousIterationChosenAttributes) {
+        return new FilterEvaluatorScoreComparator().reversed();
+    }
 }
@@ -7,6 +7,7 @@ import explorekit.operators.OperatorAssignment;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -24,36 +25,75 @@ public class FilterScoreWithExclusionsRanker extends AttributeRankerFilter{
 
         Collections.sort(operatorAssignments, new FilterEvaluatorScoreComparator());
         Collections.reverse(operatorAssignments);
+        return downgradeAssignments(operatorAssignments, previousIterationChosenAttributes);
+    }
 
+    @Override
+    public List<OperatorAssignment> rankAndFilterRankedCandidates(List<OperatorAssignment> rankedOperatorAssignments, List<ColumnInfo> previousIterationChosenAttributes,
+                                                                  List<Dataset> datasets, List<ClassificationResults> currentScore) {
+        //the candidates are already ordered by the filter score, only the downgraded ones need to be moved
+        return downgradeAssignments(rankedOperatorAssignments, previousIterationChosenAttributes);
+    }
+
+    /**
+     * Moves the assignments that use the attributes chosen in the previous iteration to the end of the list, keeping
+     * the order of the assignments within each group
+     * @param operatorAssignments
+     * @param previousIterationChosenAttributes
+     * @return
+     */
+    private List<OperatorAssignment> downgradeAssignments(List<OperatorAssignment> operatorAssignments, List<ColumnInfo> previousIterationChosenAttributes) {
         if (previousIterationChosenAttributes == null) {
             return operatorAssignments;
         }
 
+        List<OperatorAssignment> rankedAssignments = new ArrayList<>(operatorAssignments.size());
         List<OperatorAssignment> indicesToDowngrade = new ArrayList<>();
-        for (int i=0; i<operatorAssignments.size(); i++) {
-            OperatorAssignment testedAssignment = operatorAssignments.get(i);
-            //if the attribute that was chosen in the previous iteration is used either as source or target
-            if ( (testedAssignment.getSources() != null && !Collections.disjoint(testedAssignment.getSources(),previousIterationChosenAttributes)) ||
-                    (testedAssignment.getTragets() != null && !Collections.disjoint(testedAssignment.getTragets(),previousIterationChosenAttributes)) ) {
+        for (OperatorAssignment testedAssignment : operatorAssignments) {
+            if (isUsingPreviousIterationChosenAttributes(testedAssignment, previousIterationChosenAttributes)) {
                 indicesToDowngrade.add(testedAssignment);
-                continue;
             }
-
-            for (ColumnInfo previousIterationChosenAttribute: previousIterationChosenAttributes) {
-                if ((testedAssignment.getSources() != null && testedAssignment.getSources().equals(previousIterationChosenAttribute.getSourceColumns()))
-                        && (testedAssignment.getTragets() != null && testedAssignment.getTragets().equals(previousIterationChosenAttribute.getTargetColumns()))) {
-                    indicesToDowngrade.add(testedAssignment);
-                    continue;
-                }
+            else {
+                rankedAssignments.add(testedAssignment);
             }
         }
 
-        //remove all the items from the list
-        operatorAssignments.removeAll(indicesToDowngrade);
+        //add the downgraded items at the end
+        rankedAssignments.addAll(indicesToDowngrade);
 
-        //add all the items again at the end
-        operatorAssignments.addAll(indicesToDowngrade);
+        return rankedAssignments;
+    }
 
-        return operatorAssignments;
+    @Override
+    public Comparator<OperatorAssignment> getRankingComparator(List<ColumnInfo> previousIterationChosenAttributes) {
+        Comparator<OperatorAssignment> filterScoreComparator = new FilterEvaluatorScoreComparator().reversed();
+        if (previousIterationChosenAttributes == null) {
+            return filterScoreComparator;
+        }
+        //the downgraded attributes are placed after all the others
+        return Comparator.<OperatorAssignment, Boolean>comparing(oa -> isUsingPreviousIterationChosenAttributes(oa, previousIterationChosenAttributes))
+                .thenComparing(filterScoreComparator);
+    }
+
+    /**
+     * Returns true if the attribute that was chosen in the previous iteration is used either as source or target of
+     * the assignment, or if the assignment uses the same source and target attributes as the chosen attribute
+     * @param testedAssignment
+     * @param previousIterationChosenAttributes
+     * @return
+     */
+    private boolean isUsingPreviousIterationChosenAttributes(OperatorAssignment testedAssignment, List<ColumnInfo> previousIterationChosenAttributes) {
+        if ( (testedAssignment.getSources() != null && !Collections.disjoint(testedAssignment.getSources(),previousIterationChosenAttributes)) ||
+                (testedAssignment.getTragets() != null && !Collections.disjoint(testedAssignment.getTragets(),previousIterationChosenAttributes)) ) {
+            return true;
+        }
+
+        for (ColumnInfo previousIterationChosenAttribute: previousIterationChosenAttributes) {
+            if ((testedAssignment.getSources() != null && testedAssignment.getSources().equals(previousIterationChosenAttribute.getSourceColumns()))
+                    && (testedAssignment.getTragets() != null && testedAssignment.getTragets().equals(previousIterationChosenAttribute.getTargetColumns()))) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,115 @@
+package explorekit.search;
+
+import explorekit.operators.OperatorAssignment;
+
+import java.util.*;
+
+/**
+ * The candidate attributes of the search, kept ordered by their filter score (highest first) across the search
+ * iterations. Every candidate is indexed by the score it had when it was positioned, so when candidates are added or
+ * removed, or when the scores of some of them change, only these candidates are repositioned instead of sorting all
+ * the candidates again in every iteration.
+ *
+ * Candidates with the same score are ordered by the time they were added (the oldest first). The full sort that was
+ * previously done in every iteration reversed the order of such candidates, and since the sibling assignments are
+ * batched the new candidates are also added in a different order than before. Candidates with equal scores may
+ * therefore be evaluated by the wrapper in a different order than in earlier versions, which can change the number of
+ * evaluated attributes in an iteration (and, when several candidates meet the stopping criteria, the chosen one).
+ *
+ * The scores are set on the OperatorAssignment objects by the evaluators, so changed scores are only detected (and the
+ * candidates repositioned) when refresh() is called with the candidates that were scored again.
+ */
+public class CandidatePool {
+    private final TreeSet<Entry> rankedEntries = new TreeSet<>(new EntryComparator());
+    private final IdentityHashMap<OperatorAssignment, Entry> entries = new IdentityHashMap<>();
+    private long nextSequenceNumber = 0;
+
+    public CandidatePool(Collection<OperatorAssignment> candidates) {
+        addAll(candidates);
+    }
+
+    /**
+     * Adds the candidates to the pool. Candidates that are already in the pool are ignored
+     * @param candidates
+     */
+    public void addAll(Collection<OperatorAssignment> candidates) {
+        for (OperatorAssignment oa : candidates) {
+            if (!entries.containsKey(oa)) {
+                Entry entry = new Entry(oa, nextSequenceNumber++);
+                entries.put(oa, entry);
+                rankedEntries.add(entry);
+            }
+        }
+    }
+
+    public boolean remove(OperatorAssignment oa) {
+        Entry entry = entries.remove(oa);
+        if (entry == null) {
+            return false;
+        }
+        rankedEntries.remove(entry);
+        return true;
+    }
+
+    /**
+     * Repositions the given candidates if their filter score changed since they were positioned. Only these candidates
+     * are checked, the others are assumed to keep their scores
+     * @param rescoredCandidates the candidates that were scored again. Candidates that are not in the pool are ignored
+     * @return the number of repositioned candidates
+     */
+    public int refresh(Collection<OperatorAssignment> rescoredCandidates) {
+        List<Entry> changedEntries = new ArrayList<>();
+        for (OperatorAssignment oa : rescoredCandidates) {
+            Entry entry = entries.get(oa);
+            if (entry != null && Double.compare(entry.score, oa.getFilterEvaluatorScore()) != 0) {
+                changedEntries.add(entry);
+            }
+        }
+        for (Entry entry : changedEntries) {
+            rankedEntries.remove(entry);
+            Entry updatedEntry = new Entry(entry.oa, entry.sequenceNumber);
+            entries.put(entry.oa, updatedEntry);
+            rankedEntries.add(updatedEntry);
+        }
+        return changedEntries.size();
+    }
+
+    /**
+     * Returns the candidates, ordered by their filter score (as of the last refresh)
+     * @return
+     */
+    public List<OperatorAssignment> getRankedCandidates() {
+        List<OperatorAssignment> candidates = new ArrayList<>(rankedEntries.size());
+        for (Entry entry : rankedEntries) {
+            candidates.add(entry.oa);
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private final OperatorAssignment oa;
+        private final double score;
+        private final long sequenceNumber;
+
+        Entry(OperatorAssignment oa, long sequenceNumber) {
+            this.oa = oa;
+            this.score = oa.getFilterEvaluatorScore();
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    private static class EntryComparator implements Comparator<Entry> {
+        @Override
+        public int compare(Entry entry1, Entry entry2) {
+            int result = Double.compare(entry2.score, entry1.score);
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(entry1.sequenceNumber, entry2.sequenceNumber);
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package explorekit.search;
 
 import explorekit.Evaluation.ClassificationResults;
+import explorekit.Evaluation.EvaluationExecutor;
 import explorekit.Evaluation.FilterEvaluators.FilterEvaluator;
 import explorekit.Evaluation.WrapperEvaluation.WrapperEvaluator;
 import explorekit.data.ColumnInfo;
 import explorekit.data.Dataset;
+import explorekit.metrics.MetricsRegistry;
 import explorekit.operators.OperatorAssignment;
 import explorekit.operators.OperatorsAssignmentsManager;
 import explorekit.search.AttributeRankersFilters.AttributeRankerFilter;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -31,15 +39,29 @@ public class FilterWrapperHeuristicSearch extends Search {
     }
 
     public void run(Dataset originalDataset, String runInfo) throws Exception{
+        try {
+            startSearch(originalDataset, runInfo);
+        }
+        finally {
+            releaseSearchResources();
+        }
+    }
+
+    private void startSearch(Dataset originalDataset, String runInfo) throws Exception{
         //the initialization of the oevaluators (and the generation of background models, if needed) is not counted in the experiment time
         FilterEvaluator filterEvaluator = super.getFilter(properties.getProperty("filterApproach"), originalDataset, properties);
         WrapperEvaluator wrapperEvaluator = super.getWrapper(properties.getProperty("wrapperApproach"));
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.reset();
+        metrics.addReporters(properties);
 
         experimentStartDate = new Date();
         System.out.println("Experiment Start Date/Time: " + experimentStartDate.toString());
 
         //The first step is to evaluate the initial attributes, so we get a reference point to how well we did
+        long phaseStartTime = System.nanoTime();
         wrapperEvaluator.EvaluationAndWriteResultsToFile(originalDataset, "", 0, runInfo, true,0, -1, -1, properties);
+        metrics.recordTime("search.initialEvaluation", phaseStartTime);
 
         //now we create the replica of the original dataset, to which we can add columns
         Dataset dataset = originalDataset.replicateDataset();
@@ -56,7 +78,9 @@ public class FilterWrapperHeuristicSearch extends Search {
 
         //The probabilities assigned to each instance using the ORIGINAL dataset (training folds only)
         System.out.println("Producing initial classification results"  + " : " + date.toString());
+        phaseStartTime = System.nanoTime();
         List<ClassificationResults> currentClassificationProbs = wrapperEvaluator.produceClassificationResults(originalDatasetTrainingFolds, properties);
+        metrics.recordTime("search.classificationResults", phaseStartTime);
         date = new Date();
         System.out.println("  .....done " + date.toString());
 
@@ -64,6 +88,7 @@ public class FilterWrapperHeuristicSearch extends Search {
         //here are different than the ones generated at later stages because they are included in the dataset that is
         //used to generate attributes in the iterative search phase
         System.out.println("Starting to apply unary operators:   "  + " : " + date.toString());
+        phaseStartTime = System.nanoTime();
         OperatorsAssignmentsManager oam = new OperatorsAssignmentsManager(properties);
         List<OperatorAssignment> candidateAttributes = oam.applyUnaryOperators(dataset,null, filterEvaluator, subFoldTrainingDatasets, currentClassificationProbs);
         date = new Date();
@@ -73,21 +98,117 @@ public class FilterWrapperHeuristicSearch extends Search {
         //final dataset beacuse they are essential to the full generation of additional features
         System.out.println("Starting to generate and add columns to dataset:   "  + " : " + date.toString());
         oam.GenerateAndAddColumnToDataset(dataset, candidateAttributes);
+        metrics.recordTime("search.unaryOperators", phaseStartTime);
         date = new Date();
         System.out.println("  .....done " + date.toString());
+        metrics.report(dataset.getName() + runInfo, 0);
 
         //The initial dataset has been populated with the discretized/normalized features. Time to begin the search
         int iterationsCounter = 1;
         List<ColumnInfo> columnsAddedInthePreviousIteration = null;
+        initialAssignments = new ArrayList<>(candidateAttributes);
+        chosenAssignments = new ArrayList<>();
+        candidatesPendingFilterEvaluation.clear();
+
+        performIterativeSearch(originalDataset, runInfo, filterEvaluator, wrapperEvaluator, dataset, originalDatasetTrainingFolds, subFoldTrainingDatasets, currentClassificationProbs, oam, candidateAttributes, iterationsCounter, columnsAddedInthePreviousIteration, 0);
+    }
+
+    /**
+     * Resumes the search from the checkpoint that was written after the last completed iteration. The attributes that
+     * were chosen in the completed iterations are generated again and added to the datasets (in the order in which
+     * they were chosen), and the search continues with the candidates (and scores) of the checkpoint. If there is no
+     * checkpoint, the search starts from the beginning
+     * @param originalDataset
+     * @param runInfo
+     * @throws Exception
+     */
+    @Override
+    public void resume(Dataset originalDataset, String runInfo) throws Exception {
+        String checkpointDirectory = properties.getProperty("checkpointDirectory", "");
+        SearchCheckpoint checkpoint = null;
+        if (!checkpointDirectory.isEmpty()) {
+            checkpoint = SearchCheckpoint.read(SearchCheckpoint.getCheckpointPath(checkpointDirectory, originalDataset, runInfo));
+        }
+        if (checkpoint == null) {
+            System.out.println("No checkpoint was found for " + originalDataset.getName() + runInfo + ". Starting a new search");
+            run(originalDataset, runInfo);
+            return;
+        }
+        try {
+            resumeSearch(originalDataset, runInfo, checkpoint);
+        }
+        finally {
+            releaseSearchResources();
+        }
+    }
+
+    private void resumeSearch(Dataset originalDataset, String runInfo, SearchCheckpoint checkpoint) throws Exception {
+        checkpoint.verifyFolds(originalDataset);
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        metrics.reset();
+        metrics.addReporters(properties);
+
+        FilterEvaluator filterEvaluator = super.getFilter(properties.getProperty("filterApproach"), originalDataset, properties);
+        WrapperEvaluator wrapperEvaluator = super.getWrapper(properties.getProperty("wrapperApproach"));
+
+        //the evaluation of the initial attributes was already written to the results file, and the experiment time
+        //is counted from the beginning of the original run
+        experimentStartDate = new Date(checkpoint.getExperimentStartTime());
+        Date date = new Date();
+        System.out.println("Resuming the search from iteration " + checkpoint.getNextIteration() + " : " + date.toString());
+
+        Dataset dataset = originalDataset.replicateDataset();
+        List<Dataset> originalDatasetTrainingFolds = originalDataset.GenerateTrainingSetSubFolds();
+        List<Dataset> subFoldTrainingDatasets = dataset.GenerateTrainingSetSubFolds();
+        List<ClassificationResults> currentClassificationProbs = wrapperEvaluator.produceClassificationResults(originalDatasetTrainingFolds, properties);
+
+        //the attributes that were added to the dataset before the search began
+        OperatorsAssignmentsManager oam = new OperatorsAssignmentsManager(properties);
+        initialAssignments = checkpoint.getInitialAssignments(dataset);
+        oam.GenerateAndAddColumnToDataset(dataset, initialAssignments);
+
+        //the attributes that were chosen in the completed iterations. The columns of every chosen attribute may be
+        //attributes that were chosen before it, so they are added one at a time
+        chosenAssignments = new ArrayList<>();
+        List<ColumnInfo> columnsAddedInthePreviousIteration = null;
+        for (int i=0; i<checkpoint.getNumOfChosenAssignments(); i++) {
+            OperatorAssignment oa = checkpoint.getChosenAssignment(i, dataset);
+            columnsAddedInthePreviousIteration = oam.addAddtibuteToDataset(dataset, oa, true, currentClassificationProbs);
+            oam.addAddtibuteToDataset(originalDataset, oa, false, currentClassificationProbs);
+            currentClassificationProbs = wrapperEvaluator.produceClassificationResults(originalDatasetTrainingFolds, properties);
+            chosenAssignments.add(oa);
+        }
+        date = new Date();
+        System.out.println("  .....restored " + chosenAssignments.size() + " chosen attributes " + date.toString());
+
+        candidatesPendingFilterEvaluation.clear();
+        List<OperatorAssignment> candidateAttributes = checkpoint.getCandidates(dataset, candidatesPendingFilterEvaluation);
 
-        performIterativeSearch(originalDataset, runInfo, filterEvaluator, wrapperEvaluator, dataset, originalDatasetTrainingFolds, subFoldTrainingDatasets, currentClassificationProbs, oam, candidateAttributes, iterationsCounter, columnsAddedInthePreviousIteration);
+        performIterativeSearch(originalDataset, runInfo, filterEvaluator, wrapperEvaluator, dataset, originalDatasetTrainingFolds, subFoldTrainingDatasets, currentClassificationProbs,
+                oam, candidateAttributes, checkpoint.getNextIteration(), columnsAddedInthePreviousIteration, checkpoint.getTotalNumOfWrapperEvaluations());
     }
 
+    /**
+     * Releases what the search holds beyond its own objects once it ends (or fails): the cached candidate columns,
+     * which keep the columns of the dataset alive, and the evaluation executors of the search
+     */
+    private void releaseSearchResources() {
+        OperatorsAssignmentsManager.releaseCandidateColumnCache();
+        EvaluationExecutor.shutdown(properties);
+    }
 
     OperatorAssignment chosenOperatorAssignment = null;
     OperatorAssignment topRankingAssignment = null;
+    //the ranks of the chosen and the top ranking assignments (their positions in the order of the wrapper evaluation)
+    int chosenAssignmentRank = Integer.MAX_VALUE;
+    int topRankingAssignmentRank = Integer.MAX_VALUE;
     int evaluatedAttsCounter = 0;
     boolean terminateSearch = false;
+    //used by the pipelined evaluation: the candidates whose filter evaluation was cancelled in the previous iteration
+    Set<OperatorAssignment> candidatesPendingFilterEvaluation = new HashSet<>();
+    //the lineage of the dataset, saved in the checkpoints: the attributes added before the search began and the ones chosen in every iteration
+    List<OperatorAssignment> initialAssignments = new ArrayList<>();
+    List<OperatorAssignment> chosenAssignments = new ArrayList<>();
 
 
     /**
@@ -105,78 +226,96 @@ public class FilterWrapperHeuristicSearch extends Search {
      * @param candidateAttributes The attributes that are being ocnsidered for adding to the dataset
      * @param iterationsCounter
      * @param columnsAddedInthePreviousIteration The attriubtes that were already added to the dataset
+     * @param totalNumOfWrapperEvaluations The number of wrapper evaluations performed in the previous iterations
      * @throws Exception
      */
     private void performIterativeSearch(Dataset originalDataset, String runInfo, FilterEvaluator filterEvaluator, WrapperEvaluator wrapperEvaluator,
                                         Dataset dataset, List<Dataset> originalDatasetTrainingFolds, List<Dataset> subFoldTrainingDatasets, List<ClassificationResults> currentClassificationProbs,
-                                        OperatorsAssignmentsManager oam, List<OperatorAssignment> candidateAttributes, int iterationsCounter, List<ColumnInfo> columnsAddedInthePreviousIteration) throws Exception {
-        int totalNumOfWrapperEvaluations = 0;
+                                        OperatorsAssignmentsManager oam, List<OperatorAssignment> candidateAttributes, int iterationsCounter, List<ColumnInfo> columnsAddedInthePreviousIteration,
+                                        int totalNumOfWrapperEvaluations) throws Exception {
 
         AttributeRankerFilter rankerFilter = getRankerFilter(properties.getProperty("rankerApproach"));
 
+        //in the pipelined mode the wrapper evaluation begins while the filter is still scoring the candidates
+        boolean pipelinedWrapperEvaluation = Boolean.parseBoolean(properties.getProperty("pipelinedWrapperEvaluation", "false"));
+        if (pipelinedWrapperEvaluation && rankerFilter.getRankingComparator(null) == null) {
+            System.out.println("The ranker " + properties.getProperty("rankerApproach") + " requires all the candidates. Disabling the pipelined wrapper evaluation");
+            pipelinedWrapperEvaluation = false;
+        }
+        String checkpointDirectory = properties.getProperty("checkpointDirectory", "");
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+        //the candidates are kept ranked by their filter score across the iterations, so that only the new candidates
+        //and the ones that were scored again need to be positioned in every iteration, and the ranker gets them in
+        //this order instead of sorting them again. Candidates with equal scores keep the order in which they were added
+        CandidatePool candidatePool = new CandidatePool(candidateAttributes);
+
         while (iterationsCounter <= this.maxIterations) {
+            long iterationStartTime = System.nanoTime();
+            long numOfFilterEvaluationsAtStart = metrics.getCount("filter.candidates") + metrics.getCount("filter.rescoredCandidates");
+            long numOfWrapperEvaluationsAtStart = metrics.getCount("wrapper.candidates");
             filterEvaluator.recalculateDatasetBasedFeatures(originalDataset, properties);
             Date date = new Date();
             System.out.println("Starting search iteration " + Integer.toString(iterationsCounter) + " : " + date.toString());
 
 
             //recalculte the filter evaluator score of the existing attributes
-            oam.recalculateFilterEvaluatorScores(dataset,candidateAttributes,subFoldTrainingDatasets,filterEvaluator,currentClassificationProbs);
-
-            //now we generate all the candidate features
-            date = new Date(); System.out.println("            Starting feature generation : " + date.toString());
-            candidateAttributes.addAll(oam.applyNonUnaryOperators(dataset, columnsAddedInthePreviousIteration, filterEvaluator, subFoldTrainingDatasets, currentClassificationProbs));
-            date = new Date(); System.out.println("            Finished feature generation : " + date.toString());
-
-            //Sort the candidates by their initial (filter) score and test them using the wrapper evaluator
-            candidateAttributes = rankerFilter.rankAndFilter(candidateAttributes,columnsAddedInthePreviousIteration,subFoldTrainingDatasets,currentClassificationProbs);
-
-            System.out.println("            Starting wrapper evaluation : " + date.toString());
-            evaluatedAttsCounter = 0;
-            chosenOperatorAssignment = null;
-            topRankingAssignment = null;
-
-            terminateSearch = false;
-            ReentrantLock wrapperResultsLock = new ReentrantLock();
-            int numOfThreads = Integer.parseInt(properties.getProperty("numOfThreads"));
-
-            final List<ClassificationResults> localCurrentClassificationProbs = currentClassificationProbs;
-            for (int i=0; i< candidateAttributes.size(); i+=numOfThreads) {
-                if (chosenOperatorAssignment != null) {
-                    break;
+            long phaseStartTime = System.nanoTime();
+            if (filterEvaluator.needToRecalculateScoreAtEachIteration()) {
+                List<OperatorAssignment> existingCandidates = candidatePool.getRankedCandidates();
+                oam.recalculateFilterEvaluatorScores(dataset,existingCandidates,subFoldTrainingDatasets,filterEvaluator,currentClassificationProbs);
+                candidatePool.refresh(existingCandidates);
+            }
+            metrics.recordTime("search.filterRecalculation", phaseStartTime);
+
+            if (pipelinedWrapperEvaluation) {
+                phaseStartTime = System.nanoTime();
+                performPipelinedEvaluation(filterEvaluator, wrapperEvaluator, dataset, originalDatasetTrainingFolds, subFoldTrainingDatasets,
+                        currentClassificationProbs, oam, candidatePool, columnsAddedInthePreviousIteration,
+                        rankerFilter.getRankingComparator(columnsAddedInthePreviousIteration));
+                metrics.recordTime("search.pipelinedEvaluation", phaseStartTime);
+            }
+            else {
+                //now we generate all the candidate features
+                date = new Date(); System.out.println("            Starting feature generation : " + date.toString());
+                phaseStartTime = System.nanoTime();
+                candidatePool.addAll(oam.applyNonUnaryOperators(dataset, columnsAddedInthePreviousIteration, filterEvaluator, subFoldTrainingDatasets, currentClassificationProbs));
+                metrics.recordTime("search.featureGeneration", phaseStartTime);
+                date = new Date(); System.out.println("            Finished feature generation : " + date.toString());
+
+                //Rank the candidates (already ordered by their initial (filter) score) and test them using the wrapper evaluator
+                phaseStartTime = System.nanoTime();
+                List<OperatorAssignment> rankedCandidates = rankerFilter.rankAndFilterRankedCandidates(candidatePool.getRankedCandidates(),columnsAddedInthePreviousIteration,subFoldTrainingDatasets,currentClassificationProbs);
+                metrics.recordTime("search.ranking", phaseStartTime);
+
+                System.out.println("            Starting wrapper evaluation : " + date.toString());
+                resetWrapperEvaluationResults();
+
+                terminateSearch = false;
+                ReentrantLock wrapperResultsLock = new ReentrantLock();
+                double maxNumOfWrapperEvaluations = Double.parseDouble(properties.getProperty("maxNumOfWrapperEvaluationsPerIteration"));
+
+                //the candidates are evaluated in the order of their ranking, and each task knows the rank of its candidate.
+                //Of the candidates that meet the stopping criteria, the one with the lowest rank is chosen, and only the
+                //candidates ranked after it are skipped. The result does not depend on the order in which the tasks end
+                final List<ClassificationResults> localCurrentClassificationProbs = currentClassificationProbs;
+                EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.WrapperEvaluation, properties);
+                List<Integer> ranks = new ArrayList<>(rankedCandidates.size());
+                for (int i=0; i<rankedCandidates.size(); i++) {
+                    ranks.add(i);
                 }
-                List<OperatorAssignment> oaList = candidateAttributes.subList(i,i+Math.min(numOfThreads, candidateAttributes.size()-i));
-                oaList.parallelStream().forEach(oa -> {
-                    try {
-                        if (oa.getFilterEvaluatorScore() != Double.MIN_VALUE && evaluatedAttsCounter <= Double.parseDouble(properties.getProperty("maxNumOfWrapperEvaluationsPerIteration"))
-                                && oa.getFilterEvaluatorScore() > 0.001) {
-                            double score = oam.applyOperatorAndPerformWrapperEvaluation(originalDatasetTrainingFolds, oa, wrapperEvaluator, localCurrentClassificationProbs, null);
-                            oa.setWrapperEvaluatorScore(score);
-
-                            wrapperResultsLock.lock();
-                            evaluatedAttsCounter++;
-
-                            //we want to keep tabs on the OA with the best observed wrapper performance
-                            if (topRankingAssignment == null || topRankingAssignment.getWrapperEvaluatorScore() < score) {
-                                topRankingAssignment = oa;
-                            }
-
-                            if (isStoppingCriteriaMet(filterEvaluator, wrapperEvaluator, oa, score, topRankingAssignment)) {
-                                chosenOperatorAssignment = oa;
-                            }
-                            if ((evaluatedAttsCounter % 100) == 0) {
-                                Date currentDate = new Date();
-                                System.out.println("                     Evaluated : " + evaluatedAttsCounter + "attributes:   " + currentDate.toString());
-                            }
-                            wrapperResultsLock.unlock();
-                        }
-                    }
-                    catch (Exception ex) {
-
+                phaseStartTime = System.nanoTime();
+                executor.forEach(ranks, (rank, job) -> {
+                    OperatorAssignment oa = rankedCandidates.get(rank);
+                    if (isWrapperEvaluationCandidate(oa) && canEvaluateCandidate(rank, maxNumOfWrapperEvaluations, wrapperResultsLock)) {
+                        double score = oam.applyOperatorAndPerformWrapperEvaluation(originalDatasetTrainingFolds, oa, wrapperEvaluator, localCurrentClassificationProbs, null);
+                        oa.setWrapperEvaluatorScore(score);
+                        recordWrapperEvaluationResult(filterEvaluator, wrapperEvaluator, oa, rank, score, wrapperResultsLock);
                     }
                 });
+                metrics.recordTime("search.wrapperEvaluation", phaseStartTime);
+                System.out.println("            Finished wrapper evaluation : " + date.toString());
             }
-            System.out.println("            Finished wrapper evaluation : " + date.toString());
 
             //Sum the number of evaluated attributes into the global counter
             totalNumOfWrapperEvaluations += evaluatedAttsCounter;
@@ -193,23 +332,44 @@ public class FilterWrapperHeuristicSearch extends Search {
             }
 
             //remove the chosen attribute from the list of "candidates"
-            candidateAttributes.remove(chosenOperatorAssignment);
+            candidatePool.remove(chosenOperatorAssignment);
+            chosenAssignments.add(chosenOperatorAssignment);
 
             //The final step - add the new attribute to the datasets
             //start with the dataset used in the following search iterations
+            phaseStartTime = System.nanoTime();
             columnsAddedInthePreviousIteration = oam.addAddtibuteToDataset(dataset, chosenOperatorAssignment, true, currentClassificationProbs);
 
             //continue with the final dataset
             oam.addAddtibuteToDataset(originalDataset, chosenOperatorAssignment, false, currentClassificationProbs);
+            metrics.recordTime("search.addAttribute", phaseStartTime);
 
             //finally, we need to recalculate the baseline score used for the attribute selection (using the updated final dataset)
+            phaseStartTime = System.nanoTime();
             currentClassificationProbs = wrapperEvaluator.produceClassificationResults(originalDatasetTrainingFolds, properties);
+            metrics.recordTime("search.classificationResults", phaseStartTime);
 
             StringBuilder expDescription = new StringBuilder();
             expDescription.append("Evaluation results for iteration " + Integer.toString(iterationsCounter) + "\n");
             expDescription.append("Added attribute: " + chosenOperatorAssignment.getName() + "\n");
             wrapperEvaluator.EvaluationAndWriteResultsToFile(originalDataset, chosenOperatorAssignment.getName(), iterationsCounter, runInfo, false, evaluatedAttsCounter, chosenOperatorAssignment.getFilterEvaluatorScore() ,chosenOperatorAssignment.getWrapperEvaluatorScore(), properties);
+
+            //the throughput of the iteration, followed by the metrics report
+            double iterationSeconds = (System.nanoTime() - iterationStartTime) / 1e9;
+            metrics.recordTime("search.iteration", iterationStartTime);
+            long numOfFilterEvaluations = metrics.getCount("filter.candidates") + metrics.getCount("filter.rescoredCandidates") - numOfFilterEvaluationsAtStart;
+            metrics.setGauge("search.filterCandidatesPerSecond", numOfFilterEvaluations / iterationSeconds);
+            metrics.setGauge("search.wrapperCandidatesPerSecond", (metrics.getCount("wrapper.candidates") - numOfWrapperEvaluationsAtStart) / iterationSeconds);
+            metrics.setGauge("search.candidatePoolSize", candidatePool.size());
+            metrics.report(dataset.getName() + runInfo, iterationsCounter);
             iterationsCounter++;
+
+            //save the state of the search, so it can be resumed from the next iteration
+            if (!checkpointDirectory.isEmpty()) {
+                SearchCheckpoint checkpoint = new SearchCheckpoint(dataset, experimentStartDate.getTime(), iterationsCounter, totalNumOfWrapperEvaluations,
+                        initialAssignments, chosenAssignments, candidatePool.getRankedCandidates(), candidatesPendingFilterEvaluation);
+                checkpoint.write(SearchCheckpoint.getCheckpointPath(checkpointDirectory, dataset, runInfo));
+            }
         }
 
         //some cleanup, if required
@@ -217,7 +377,220 @@ public class FilterWrapperHeuristicSearch extends Search {
 
         //After the search process is over, write the total amount of time spent and the number of wrapper evaluations that were conducted
         writeFinalStatisticsToResultsFile(dataset.getName(), runInfo,experimentStartDate,totalNumOfWrapperEvaluations);
+        metrics.closeReporters();
+
+    }
 
+    /**
+     * The pipelined version of the generation and the evaluation of the candidates of an iteration. Instead of waiting
+     * for the filter to score all the candidates, every candidate is placed in a priority queue (ordered by the ranker)
+     * as soon as it is scored, and the wrapper threads continuously take the top ranking candidate from the queue.
+     * Once a candidate meets the stopping criteria (or the maximal number of wrapper evaluations is reached) the job is
+     * cancelled, which stops both the filter evaluation and the wrapper evaluations that are still running. Since the
+     * wrapper evaluation begins before all the candidates are scored, the candidates are not necessarily evaluated in
+     * the order of their final ranking. Candidates whose filter evaluation was cancelled are scored in the next iteration.
+     * If a filter or wrapper task fails, the failure is thrown once all the tasks are done.
+     * @param filterEvaluator
+     * @param wrapperEvaluator
+     * @param dataset
+     * @param originalDatasetTrainingFolds
+     * @param subFoldTrainingDatasets
+     * @param currentClassificationProbs
+     * @param oam
+     * @param candidatePool The existing candidates. The newly generated candidates are added to the pool
+     * @param columnsAddedInthePreviousIteration
+     * @param rankingComparator
+     * @throws Exception
+     */
+    private void performPipelinedEvaluation(FilterEvaluator filterEvaluator, WrapperEvaluator wrapperEvaluator, Dataset dataset,
+                                            List<Dataset> originalDatasetTrainingFolds, List<Dataset> subFoldTrainingDatasets, List<ClassificationResults> currentClassificationProbs,
+                                            OperatorsAssignmentsManager oam, CandidatePool candidatePool, List<ColumnInfo> columnsAddedInthePreviousIteration,
+                                            Comparator<OperatorAssignment> rankingComparator) throws Exception {
+        Date date = new Date();
+        System.out.println("            Starting pipelined feature generation and wrapper evaluation : " + date.toString());
+        resetWrapperEvaluationResults();
+        terminateSearch = false;
+        ReentrantLock wrapperResultsLock = new ReentrantLock();
+        double maxNumOfWrapperEvaluations = Double.parseDouble(properties.getProperty("maxNumOfWrapperEvaluationsPerIteration"));
+
+        //the candidates that need to be scored by the filter: the new ones and the ones that were not scored in the
+        //previous iteration (unless the scores of all the existing candidates were already recalculated)
+        List<OperatorAssignment> assignmentsToScore = new ArrayList<>();
+        if (!filterEvaluator.needToRecalculateScoreAtEachIteration()) {
+            assignmentsToScore.addAll(candidatesPendingFilterEvaluation);
+        }
+        candidatesPendingFilterEvaluation.clear();
+        List<OperatorAssignment> newAssignments = oam.getNonUnaryOperatorAssignments(dataset, columnsAddedInthePreviousIteration);
+        assignmentsToScore.addAll(newAssignments);
+
+        PriorityBlockingQueue<OperatorAssignment> rankedCandidates = new PriorityBlockingQueue<>(Math.max(candidatePool.size(), 1), rankingComparator);
+        Set<OperatorAssignment> unscoredCandidates = new HashSet<>(assignmentsToScore);
+        for (OperatorAssignment oa : candidatePool.getRankedCandidates()) {
+            if (!unscoredCandidates.contains(oa) && isWrapperEvaluationCandidate(oa)) {
+                rankedCandidates.add(oa);
+            }
+        }
+
+        //a single job is shared by the filter and the wrapper evaluation, so cancelling it stops both
+        EvaluationExecutor.Job job = new EvaluationExecutor.Job();
+        Set<OperatorAssignment> scoredCandidates = ConcurrentHashMap.newKeySet();
+        AtomicBoolean filterEvaluationDone = new AtomicBoolean(false);
+
+        //every wrapper thread evaluates the top ranking candidate, until the queue is empty and all the candidates were scored.
+        //The rank of a candidate is the order in which it was taken from the queue, which depends on the progress of the
+        //filter, and the evaluation stops at the first candidate that meets the stopping criteria
+        AtomicInteger numOfTakenCandidates = new AtomicInteger();
+        EvaluationExecutor executor = EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.WrapperEvaluation, properties);
+        List<Integer> wrapperWorkers = new ArrayList<>();
+        for (int i=0; i<executor.getNumOfThreads(); i++) {
+            wrapperWorkers.add(i);
+        }
+        EvaluationExecutor.StartedTasks wrapperEvaluation = executor.start(wrapperWorkers, (worker, wrapperJob) -> {
+            while (!job.isCancelled()) {
+                OperatorAssignment oa = rankedCandidates.poll(100, TimeUnit.MILLISECONDS);
+                if (oa == null) {
+                    if (filterEvaluationDone.get() && rankedCandidates.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                int rank = numOfTakenCandidates.getAndIncrement();
+                if (!canEvaluateCandidate(rank, maxNumOfWrapperEvaluations, wrapperResultsLock)) {
+                    job.cancel();
+                    return;
+                }
+                double score;
+                try {
+                    score = oam.applyOperatorAndPerformWrapperEvaluation(originalDatasetTrainingFolds, oa, wrapperEvaluator, currentClassificationProbs, null, job);
+                }
+                catch (CancellationException ex) {
+                    return;
+                }
+                catch (Exception ex) {
+                    System.out.println("error when evaluating attribute: " + oa.getName());
+                    System.out.println("The error: " + ex.getMessage());
+                    continue;
+                }
+                oa.setWrapperEvaluatorScore(score);
+                if (recordWrapperEvaluationResult(filterEvaluator, wrapperEvaluator, oa, rank, score, wrapperResultsLock)) {
+                    job.cancel();
+                }
+            }
+        }, job);
+
+        //meanwhile, the filter scores the candidates on the filter evaluation threads
+        try {
+            oam.calculateFilterEvaluatorScores(dataset, filterEvaluator, subFoldTrainingDatasets, currentClassificationProbs, assignmentsToScore, oa -> {
+                scoredCandidates.add(oa);
+                if (isWrapperEvaluationCandidate(oa)) {
+                    rankedCandidates.add(oa);
+                }
+            }, job);
+        }
+        catch (Exception ex) {
+            //stop the wrapper evaluation before the failure is thrown
+            job.cancel();
+            throw ex;
+        }
+        finally {
+            filterEvaluationDone.set(true);
+            wrapperEvaluation.await();
+        }
+        //only candidates whose evaluation was cancelled are left for the next iteration, a failed task fails the search
+        if (job.getFailure() != null) {
+            throw new Exception("the pipelined evaluation failed: " + job.getFailure().getMessage(), job.getFailure());
+        }
+
+        candidatePool.addAll(newAssignments);
+        candidatePool.refresh(assignmentsToScore);
+        for (OperatorAssignment oa : assignmentsToScore) {
+            if (!scoredCandidates.contains(oa)) {
+                candidatesPendingFilterEvaluation.add(oa);
+            }
+        }
+        date = new Date();
+        System.out.println("            Finished pipelined evaluation : " + date.toString() + ". Scored " + scoredCandidates.size() + " of " + assignmentsToScore.size() + " candidates");
+    }
+
+    /**
+     * Returns true if the filter score of the candidate is high enough for it to be evaluated by the wrapper
+     * @param oa
+     * @return
+     */
+    private boolean isWrapperEvaluationCandidate(OperatorAssignment oa) {
+        return oa.getFilterEvaluatorScore() != Double.MIN_VALUE && oa.getFilterEvaluatorScore() > 0.001;
+    }
+
+    private void resetWrapperEvaluationResults() {
+        evaluatedAttsCounter = 0;
+        chosenOperatorAssignment = null;
+        topRankingAssignment = null;
+        chosenAssignmentRank = Integer.MAX_VALUE;
+        topRankingAssignmentRank = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns true if the candidate with the given rank needs to be evaluated by the wrapper: the maximal number of
+     * evaluations was not reached and no candidate with a lower rank was chosen. Throws a CancellationException if a
+     * candidate with a lower rank was chosen, so that the candidate is counted as skipped
+     * @param rank
+     * @param maxNumOfWrapperEvaluations
+     * @param wrapperResultsLock
+     * @return
+     */
+    private boolean canEvaluateCandidate(int rank, double maxNumOfWrapperEvaluations, ReentrantLock wrapperResultsLock) {
+        wrapperResultsLock.lock();
+        try {
+            if (rank > chosenAssignmentRank) {
+                throw new CancellationException("a candidate with a lower rank was chosen");
+            }
+            return evaluatedAttsCounter <= maxNumOfWrapperEvaluations;
+        }
+        finally {
+            wrapperResultsLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the top ranking assignment with the score of the evaluated candidate (of two candidates with the same
+     * score, the one with the lower rank is kept). If the candidate meets the stopping criteria and no candidate with a
+     * lower rank was chosen, it becomes the chosen assignment
+     * @param filterEvaluator
+     * @param wrapperEvaluator
+     * @param oa
+     * @param rank the position of the candidate in the order of the wrapper evaluation
+     * @param score
+     * @param wrapperResultsLock
+     * @return true if the candidate became the chosen assignment
+     */
+    private boolean recordWrapperEvaluationResult(FilterEvaluator filterEvaluator, WrapperEvaluator wrapperEvaluator, OperatorAssignment oa, int rank,
+                                                  double score, ReentrantLock wrapperResultsLock) {
+        wrapperResultsLock.lock();
+        try {
+            evaluatedAttsCounter++;
+
+            //we want to keep tabs on the OA with the best observed wrapper performance
+            if (topRankingAssignment == null || topRankingAssignment.getWrapperEvaluatorScore() < score ||
+                    (topRankingAssignment.getWrapperEvaluatorScore() == score && rank < topRankingAssignmentRank)) {
+                topRankingAssignment = oa;
+                topRankingAssignmentRank = rank;
+            }
+
+            boolean chosen = false;
+            if (rank < chosenAssignmentRank && isStoppingCriteriaMet(filterEvaluator, wrapperEvaluator, oa, score, topRankingAssignment)) {
+                chosenOperatorAssignment = oa;
+                chosenAssignmentRank = rank;
+                chosen = true;
+            }
+            if ((evaluatedAttsCounter % 100) == 0) {
+                Date currentDate = new Date();
+                System.out.println("                     Evaluated : " + evaluatedAttsCounter + "attributes:   " + currentDate.toString());
+            }
+            return chosen;
+        }
+        finally {
+            wrapperResultsLock.unlock();
+        }
     }
 
     /**
@@ -1,6 +1,7 @@
 package explorekit.search.RiggedSearch;
 
 import explorekit.Evaluation.ClassificationResults;
+import explorekit.Evaluation.EvaluationExecutor;
 import explorekit.Evaluation.FilterEvaluators.FilterEvaluator;
 import explorekit.Evaluation.WrapperEvaluation.WrapperEvaluator;
 import explorekit.data.ColumnInfo;
@@ -83,15 +84,14 @@ public class RiggedExhaustiveWrapperSearch extends Search {
 
             //now we get all the possible operator assignments
             List<Operator> operators = oam.getNonUnaryOperatorsList();
-            candidateAttributes.addAll(oam.getOperatorAssignments(dataset, columnsAddedInthePreviousIteration,
-                    operators, Integer.parseInt(properties.getProperty("maxNumOfAttsInOperatorSource"))));
+            oam.forEachOperatorAssignment(dataset, columnsAddedInthePreviousIteration,
+                    operators, Integer.parseInt(properties.getProperty("maxNumOfAttsInOperatorSource")), candidateAttributes::add);
 
             //now we run the wrapper evaluation on all of the operator assignments and get the scores
             ReentrantLock attributeGenerationLock = new ReentrantLock();
             ReentrantLock wrapperEvaluationLock = new ReentrantLock();
             List<ClassificationResults> tempCurrentClassificationProbs = currentClassificationProbs;
-            //System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "1");
-            candidateAttributes.parallelStream().forEach(oa -> {
+            EvaluationExecutor.getExecutor(EvaluationExecutor.Phase.WrapperEvaluation, properties).forEach(candidateAttributes, (oa, job) -> {
                 try {
                     attributeGenerationLock.lock();
                     Dataset replicatedDataset = originalDataset.replicateDataset();
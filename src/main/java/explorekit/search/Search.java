@@ -29,6 +29,17 @@ public abstract class Search {
      */
     public void run(Dataset dataset, String runInfo) throws Exception {}
 
+    /**
+     * Resumes a search that was stopped, from the last state it saved. Searches that do not save their state start
+     * from the beginning
+     * @param dataset
+     * @param runInfo
+     * @throws Exception
+     */
+    public void resume(Dataset dataset, String runInfo) throws Exception {
+        run(dataset, runInfo);
+    }
+
     /**
      * Used to run Weka on the dataset and produce all relevant statistics.
      * IMPORTANT: we currently assume that the target class is discrete
@@ -0,0 +1,501 @@
+package explorekit.search;
+
+import explorekit.data.ColumnInfo;
+import explorekit.data.Dataset;
+import explorekit.data.Fold;
+import explorekit.operators.Operator;
+import explorekit.operators.OperatorAssignment;
+import explorekit.operators.OperatorsAssignmentsManager;
+import explorekit.operators.UnaryOperators.UnaryOperator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A snapshot of the state of an iterative search, written after every completed iteration so that a search that was
+ * stopped can be resumed from the last completed iteration instead of from the beginning.
+ *
+ * The generated attributes themselves are not saved. Instead, the snapshot contains the lineage of the attributes
+ * (the operator assignments): the assignments that were added to
+ * the dataset before the search began, the assignments that were chosen in the completed iterations (in order) and
+ * the remaining candidates with their scores. When the search is resumed the chosen attributes are generated again
+ * and added to the dataset, which also restores the classification results of the current dataset. The folds of the
+ * dataset are saved as well, to make sure that the search is resumed on the same partitioning of the data.
+ *
+ * A column is identified by its position in the columns of the dataset (getAllColumns(true)), since the original
+ * columns are loaded and the generated columns are added in the same order when the search is resumed. The name of
+ * the column is saved as well, and the checkpoint is rejected if the column in that position has a different name.
+ *
+ * The snapshot is a compact binary file. Every string (operator and column names) is written once, in a table that
+ * precedes the assignments, and is referenced by its position in the table. The file is replaced atomically, so a
+ * search that is stopped while the snapshot is written leaves the previous snapshot intact.
+ */
+public class SearchCheckpoint {
+    private static final int MAGIC_NUMBER = 0x454b4350;
+    private static final int VERSION = 2;
+
+    private final String datasetName;
+    private final long experimentStartTime;
+    private final int nextIteration;
+    private final int totalNumOfWrapperEvaluations;
+    private final boolean[] foldTypes;
+    private final List<int[]> foldIndices;
+    private final List<AssignmentRecord> initialAssignments;
+    private final List<AssignmentRecord> chosenAssignments;
+    private final List<AssignmentRecord> candidates;
+
+    /**
+     * Creates the snapshot of the state of the search
+     * @param dataset the dataset the search is performed on
+     * @param experimentStartTime
+     * @param nextIteration the first iteration that was not completed
+     * @param totalNumOfWrapperEvaluations
+     * @param initialAssignments the assignments that were added to the dataset before the iterative search began
+     * @param chosenAssignments the assignments chosen in the completed iterations, in the order they were chosen
+     * @param candidates the remaining candidates
+     * @param candidatesPendingFilterEvaluation the candidates that were not scored by the filter evaluator yet
+     */
+    public SearchCheckpoint(Dataset dataset, long experimentStartTime, int nextIteration, int totalNumOfWrapperEvaluations,
+                            List<OperatorAssignment> initialAssignments, List<OperatorAssignment> chosenAssignments,
+                            List<OperatorAssignment> candidates, Set<OperatorAssignment> candidatesPendingFilterEvaluation) {
+        this.datasetName = dataset.getName();
+        this.experimentStartTime = experimentStartTime;
+        this.nextIteration = nextIteration;
+        this.totalNumOfWrapperEvaluations = totalNumOfWrapperEvaluations;
+        List<Fold> folds = dataset.getFolds();
+        this.foldTypes = new boolean[folds.size()];
+        this.foldIndices = new ArrayList<>();
+        for (int i=0; i<folds.size(); i++) {
+            foldTypes[i] = folds.get(i).isTestFold();
+            foldIndices.add(folds.get(i).getIndices().toArray());
+        }
+        Map<ColumnInfo, Integer> columnPositions = new IdentityHashMap<>();
+        for (ColumnInfo ci : dataset.getAllColumns(true)) {
+            columnPositions.put(ci, columnPositions.size());
+        }
+        this.initialAssignments = toRecords(initialAssignments, Collections.emptySet(), columnPositions);
+        this.chosenAssignments = toRecords(chosenAssignments, Collections.emptySet(), columnPositions);
+        this.candidates = toRecords(candidates, candidatesPendingFilterEvaluation, columnPositions);
+    }
+
+    private SearchCheckpoint(String datasetName, long experimentStartTime, int nextIteration, int totalNumOfWrapperEvaluations,
+                             boolean[] foldTypes, List<int[]> foldIndices, List<AssignmentRecord> initialAssignments,
+                             List<AssignmentRecord> chosenAssignments, List<AssignmentRecord> candidates) {
+        this.datasetName = datasetName;
+        this.experimentStartTime = experimentStartTime;
+        this.nextIteration = nextIteration;
+        this.totalNumOfWrapperEvaluations = totalNumOfWrapperEvaluations;
+        this.foldTypes = foldTypes;
+        this.foldIndices = foldIndices;
+        this.initialAssignments = initialAssignments;
+        this.chosenAssignments = chosenAssignments;
+        this.candidates = candidates;
+    }
+
+    private static List<AssignmentRecord> toRecords(List<OperatorAssignment> assignments, Set<OperatorAssignment> pendingAssignments,
+                                                    Map<ColumnInfo, Integer> columnPositions) {
+        List<AssignmentRecord> records = new ArrayList<>(assignments.size());
+        for (OperatorAssignment oa : assignments) {
+            records.add(new AssignmentRecord(oa, pendingAssignments.contains(oa), columnPositions));
+        }
+        return records;
+    }
+
+    /**
+     * Returns the path of the checkpoint file of the search of the dataset
+     * @param checkpointDirectory
+     * @param dataset
+     * @param runInfo
+     * @return
+     */
+    public static String getCheckpointPath(String checkpointDirectory, Dataset dataset, String runInfo) {
+        return Paths.get(checkpointDirectory, dataset.getName() + runInfo + ".checkpoint").toString();
+    }
+
+    public String getDatasetName() {
+        return datasetName;
+    }
+
+    public long getExperimentStartTime() {
+        return experimentStartTime;
+    }
+
+    public int getNextIteration() {
+        return nextIteration;
+    }
+
+    public int getTotalNumOfWrapperEvaluations() {
+        return totalNumOfWrapperEvaluations;
+    }
+
+    /**
+     * Verifies that the dataset has the same folds (the same rows in every fold) as the dataset of the checkpoint
+     * @param dataset
+     * @throws Exception
+     */
+    public void verifyFolds(Dataset dataset) throws Exception {
+        if (!dataset.getName().equals(datasetName)) {
+            throw new Exception("The checkpoint was created for dataset " + datasetName + " and not for " + dataset.getName());
+        }
+        List<Fold> folds = dataset.getFolds();
+        if (folds.size() != foldIndices.size()) {
+            throw new Exception("The number of folds of the dataset does not match the checkpoint");
+        }
+        for (int i=0; i<folds.size(); i++) {
+            if (folds.get(i).isTestFold() != foldTypes[i] || !Arrays.equals(folds.get(i).getIndices().toArray(), foldIndices.get(i))) {
+                throw new Exception("Fold " + i + " of the dataset does not match the checkpoint");
+            }
+        }
+    }
+
+    /**
+     * Recreates the assignments that were added to the dataset before the iterative search began. Their source and
+     * target columns are taken from the given dataset
+     * @param dataset
+     * @return
+     * @throws Exception
+     */
+    public List<OperatorAssignment> getInitialAssignments(Dataset dataset) throws Exception {
+        return toOperatorAssignments(initialAssignments, dataset, null);
+    }
+
+    public int getNumOfChosenAssignments() {
+        return chosenAssignments.size();
+    }
+
+    /**
+     * Recreates the assignment chosen in the given iteration (starting from 0). Since the source and target columns
+     * of a chosen assignment may be attributes that were chosen in the previous iterations, the assignment can only be
+     * recreated after the previously chosen attributes were added to the dataset
+     * @param index
+     * @param dataset
+     * @return
+     * @throws Exception
+     */
+    public OperatorAssignment getChosenAssignment(int index, Dataset dataset) throws Exception {
+        AssignmentRecord record = chosenAssignments.get(index);
+        return record.toOperatorAssignment(dataset.getAllColumns(true));
+    }
+
+    /**
+     * Recreates the remaining candidates, with their filter and wrapper scores
+     * @param dataset
+     * @param candidatesPendingFilterEvaluation the candidates that were not scored by the filter evaluator are added to this set
+     * @return
+     * @throws Exception
+     */
+    public List<OperatorAssignment> getCandidates(Dataset dataset, Set<OperatorAssignment> candidatesPendingFilterEvaluation) throws Exception {
+        return toOperatorAssignments(candidates, dataset, candidatesPendingFilterEvaluation);
+    }
+
+    private static List<OperatorAssignment> toOperatorAssignments(List<AssignmentRecord> records, Dataset dataset, Set<OperatorAssignment> pendingAssignments) throws Exception {
+        List<ColumnInfo> columns = dataset.getAllColumns(true);
+        List<OperatorAssignment> assignments = new ArrayList<>(records.size());
+        for (AssignmentRecord record : records) {
+            OperatorAssignment oa = record.toOperatorAssignment(columns);
+            if (pendingAssignments != null && record.pendingFilterEvaluation) {
+                pendingAssignments.add(oa);
+            }
+            assignments.add(oa);
+        }
+        return assignments;
+    }
+
+    /**
+     * Writes the snapshot to the file. The file is first written to a temporary file, which then replaces the file
+     * @param path
+     * @throws Exception
+     */
+    public void write(String path) throws Exception {
+        Path target = Paths.get(path);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temporaryFile = Paths.get(path + ".tmp");
+
+        //the table of all the strings of the assignments
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        for (List<AssignmentRecord> records : Arrays.asList(initialAssignments, chosenAssignments, candidates)) {
+            for (AssignmentRecord record : records) {
+                record.addStrings(strings);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeUTF(datasetName);
+            out.writeLong(experimentStartTime);
+            out.writeInt(nextIteration);
+            out.writeInt(totalNumOfWrapperEvaluations);
+
+            out.writeInt(foldIndices.size());
+            for (int i=0; i<foldIndices.size(); i++) {
+                out.writeBoolean(foldTypes[i]);
+                int[] indices = foldIndices.get(i);
+                out.writeInt(indices.length);
+                for (int index : indices) {
+                    out.writeInt(index);
+                }
+            }
+
+            out.writeInt(strings.size());
+            for (String string : strings.keySet()) {
+                out.writeUTF(string);
+            }
+            for (List<AssignmentRecord> records : Arrays.asList(initialAssignments, chosenAssignments, candidates)) {
+                out.writeInt(records.size());
+                for (AssignmentRecord record : records) {
+                    record.write(out, strings);
+                }
+            }
+        }
+        Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot that was written by write(). Returns null if the file does not exist
+     * @param path
+     * @return
+     * @throws Exception
+     */
+    public static SearchCheckpoint read(String path) throws Exception {
+        Path source = Paths.get(path);
+        if (!Files.exists(source)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != MAGIC_NUMBER) {
+                throw new Exception(path + " is not a search checkpoint");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new Exception("Unsupported checkpoint version: " + version);
+            }
+            String datasetName = in.readUTF();
+            long experimentStartTime = in.readLong();
+            int nextIteration = in.readInt();
+            int totalNumOfWrapperEvaluations = in.readInt();
+
+            int numOfFolds = in.readInt();
+            boolean[] foldTypes = new boolean[numOfFolds];
+            List<int[]> foldIndices = new ArrayList<>(numOfFolds);
+            for (int i=0; i<numOfFolds; i++) {
+                foldTypes[i] = in.readBoolean();
+                int[] indices = new int[in.readInt()];
+                for (int j=0; j<indices.length; j++) {
+                    indices[j] = in.readInt();
+                }
+                foldIndices.add(indices);
+            }
+
+            String[] strings = new String[in.readInt()];
+            for (int i=0; i<strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            List<List<AssignmentRecord>> recordLists = new ArrayList<>();
+            for (int i=0; i<3; i++) {
+                int numOfRecords = in.readInt();
+                List<AssignmentRecord> records = new ArrayList<>(numOfRecords);
+                for (int j=0; j<numOfRecords; j++) {
+                    records.add(AssignmentRecord.read(in, strings));
+                }
+                recordLists.add(records);
+            }
+            return new SearchCheckpoint(datasetName, experimentStartTime, nextIteration, totalNumOfWrapperEvaluations, foldTypes, foldIndices,
+                    recordLists.get(0), recordLists.get(1), recordLists.get(2));
+        }
+    }
+
+    /**
+     * The lineage of a single operator assignment: the names of its operators and the positions and names of its
+     * source and target columns
+     */
+    private static class AssignmentRecord {
+        private final String operatorName;
+        private final Operator.operatorType operatorType;
+        private final String secondaryOperatorName;
+        private final List<String> sourceNames;
+        private final List<String> targetNames;
+        private final int[] sourcePositions;
+        private final int[] targetPositions;
+        private final double filterEvaluatorScore;
+        private final double wrapperEvaluatorScore;
+        private final boolean pendingFilterEvaluation;
+
+        AssignmentRecord(OperatorAssignment oa, boolean pendingFilterEvaluation, Map<ColumnInfo, Integer> columnPositions) {
+            this.operatorName = oa.getOperator().getName();
+            this.operatorType = oa.getOperator().getType();
+            this.secondaryOperatorName = oa.getSecondaryOperator() != null ? oa.getSecondaryOperator().getName() : null;
+            this.sourceNames = getNames(oa.getSources());
+            this.targetNames = getNames(oa.getTragets());
+            this.sourcePositions = getPositions(oa.getSources(), columnPositions);
+            this.targetPositions = getPositions(oa.getTragets(), columnPositions);
+            this.filterEvaluatorScore = oa.getFilterEvaluatorScore();
+            this.wrapperEvaluatorScore = oa.getWrapperEvaluatorScore();
+            this.pendingFilterEvaluation = pendingFilterEvaluation;
+        }
+
+        private AssignmentRecord(String operatorName, Operator.operatorType operatorType, String secondaryOperatorName, List<String> sourceNames,
+                                 List<String> targetNames, int[] sourcePositions, int[] targetPositions, double filterEvaluatorScore,
+                                 double wrapperEvaluatorScore, boolean pendingFilterEvaluation) {
+            this.operatorName = operatorName;
+            this.operatorType = operatorType;
+            this.secondaryOperatorName = secondaryOperatorName;
+            this.sourceNames = sourceNames;
+            this.targetNames = targetNames;
+            this.sourcePositions = sourcePositions;
+            this.targetPositions = targetPositions;
+            this.filterEvaluatorScore = filterEvaluatorScore;
+            this.wrapperEvaluatorScore = wrapperEvaluatorScore;
+            this.pendingFilterEvaluation = pendingFilterEvaluation;
+        }
+
+        private static List<String> getNames(List<ColumnInfo> columns) {
+            if (columns == null) {
+                return null;
+            }
+            List<String> names = new ArrayList<>(columns.size());
+            for (ColumnInfo ci : columns) {
+                names.add(ci.getName());
+            }
+            return names;
+        }
+
+        /**
+         * Returns the positions of the columns in the dataset. Throws an IllegalStateException if a column does not
+         * belong to the dataset, since such an assignment could not be recreated when the search is resumed
+         */
+        private static int[] getPositions(List<ColumnInfo> columns, Map<ColumnInfo, Integer> columnPositions) {
+            if (columns == null) {
+                return null;
+            }
+            int[] positions = new int[columns.size()];
+            for (int i=0; i<positions.length; i++) {
+                Integer position = columnPositions.get(columns.get(i));
+                if (position == null) {
+                    throw new IllegalStateException("The column " + columns.get(i).getName() + " does not belong to the dataset of the search");
+                }
+                positions[i] = position;
+            }
+            return positions;
+        }
+
+        OperatorAssignment toOperatorAssignment(List<ColumnInfo> datasetColumns) throws Exception {
+            Operator operator = OperatorsAssignmentsManager.getOperator(operatorName, operatorType);
+            UnaryOperator secondaryOperator = null;
+            if (secondaryOperatorName != null) {
+                secondaryOperator = (UnaryOperator) OperatorsAssignmentsManager.getOperator(secondaryOperatorName, Operator.operatorType.Unary);
+            }
+            OperatorAssignment oa = new OperatorAssignment(getColumns(sourcePositions, sourceNames, datasetColumns),
+                    getColumns(targetPositions, targetNames, datasetColumns), operator, secondaryOperator);
+            oa.setFilterEvaluatorScore(filterEvaluatorScore);
+            oa.setWrapperEvaluatorScore(wrapperEvaluatorScore);
+            return oa;
+        }
+
+        private static List<ColumnInfo> getColumns(int[] positions, List<String> names, List<ColumnInfo> datasetColumns) throws Exception {
+            if (positions == null) {
+                return null;
+            }
+            List<ColumnInfo> columns = new ArrayList<>(positions.length);
+            for (int i=0; i<positions.length; i++) {
+                if (positions[i] >= datasetColumns.size()) {
+                    throw new Exception("The column " + names.get(i) + " of the checkpoint does not exist in the dataset");
+                }
+                ColumnInfo ci = datasetColumns.get(positions[i]);
+                if (!ci.getName().equals(names.get(i))) {
+                    throw new Exception("The column in position " + positions[i] + " of the dataset is " + ci.getName() +
+                            " and not " + names.get(i) + " as in the checkpoint");
+                }
+                columns.add(ci);
+            }
+            return columns;
+        }
+
+        void addStrings(Map<String, Integer> strings) {
+            List<String> recordStrings = new ArrayList<>();
+            recordStrings.add(operatorName);
+            recordStrings.add(operatorType.name());
+            if (secondaryOperatorName != null) {
+                recordStrings.add(secondaryOperatorName);
+            }
+            recordStrings.addAll(sourceNames);
+            if (targetNames != null) {
+                recordStrings.addAll(targetNames);
+            }
+            for (String string : recordStrings) {
+                strings.putIfAbsent(string, strings.size());
+            }
+        }
+
+        void write(DataOutputStream out, Map<String, Integer> strings) throws IOException {
+            out.writeInt(strings.get(operatorName));
+            out.writeInt(strings.get(operatorType.name()));
+            out.writeInt(secondaryOperatorName != null ? strings.get(secondaryOperatorName) : -1);
+            writeColumns(out, sourcePositions, sourceNames, strings);
+            writeColumns(out, targetPositions, targetNames, strings);
+            out.writeDouble(filterEvaluatorScore);
+            out.writeDouble(wrapperEvaluatorScore);
+            out.writeBoolean(pendingFilterEvaluation);
+        }
+
+        private static void writeColumns(DataOutputStream out, int[] positions, List<String> names, Map<String, Integer> strings) throws IOException {
+            if (positions == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(positions.length);
+            for (int position : positions) {
+                out.writeInt(position);
+            }
+            for (String name : names) {
+                out.writeInt(strings.get(name));
+            }
+        }
+
+        static AssignmentRecord read(DataInputStream in, String[] strings) throws IOException {
+            String operatorName = strings[in.readInt()];
+            Operator.operatorType operatorType = Operator.operatorType.valueOf(strings[in.readInt()]);
+            int secondaryOperatorIndex = in.readInt();
+            String secondaryOperatorName = secondaryOperatorIndex >= 0 ? strings[secondaryOperatorIndex] : null;
+            int[] sourcePositions = readPositions(in);
+            List<String> sourceNames = readNames(in, strings, sourcePositions);
+            int[] targetPositions = readPositions(in);
+            List<String> targetNames = readNames(in, strings, targetPositions);
+            double filterEvaluatorScore = in.readDouble();
+            double wrapperEvaluatorScore = in.readDouble();
+            boolean pendingFilterEvaluation = in.readBoolean();
+            return new AssignmentRecord(operatorName, operatorType, secondaryOperatorName, sourceNames, targetNames,
+                    sourcePositions, targetPositions, filterEvaluatorScore, wrapperEvaluatorScore, pendingFilterEvaluation);
+        }
+
+        private static int[] readPositions(DataInputStream in) throws IOException {
+            int numOfColumns = in.readInt();
+            if (numOfColumns < 0) {
+                return null;
+            }
+            int[] positions = new int[numOfColumns];
+            for (int i=0; i<numOfColumns; i++) {
+                positions[i] = in.readInt();
+            }
+            return positions;
+        }
+
+        private static List<String> readNames(DataInputStream in, String[] strings, int[] positions) throws IOException {
+            if (positions == null) {
+                return null;
+            }
+            List<String> names = new ArrayList<>(positions.length);
+            for (int i=0; i<positions.length; i++) {
+                names.add(strings[in.readInt()]);
+            }
+            return names;
+        }
+
+    }
+}